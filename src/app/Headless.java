@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Runs the universe without a window, graphics or sound so the simulation can
+ * be soak tested and timed on machines without a GPU. Nothing is ever
+ * constructed or attached, every system is treated as out of system.
+ *
+ * Usage: Headless [hours] [tpf] [serial] [seed]
+ *
+ * Giving a seed runs deterministically, so two runs with the same arguments
+ * produce the same universe and the same report.
+ */
+package app;
+
+import celestial.Ship.Ship;
+import engine.Core;
+import engine.God;
+import engine.Rng;
+import engine.SystemUpdater;
+import java.util.ArrayList;
+import lib.Faction;
+import lib.astral.Parser;
+import lib.astral.Parser.Term;
+import universe.SolarSystem;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Headless {
+
+    private static final double REPORT_INTERVAL = 3600;
+
+    public static void main(String[] args) {
+        double hours = 1;
+        float tpf = Core.DEFAULT_TICK;
+        boolean parallel = true;
+        try {
+            if (args.length > 0) {
+                hours = Double.parseDouble(args[0]);
+            }
+            if (args.length > 1) {
+                tpf = Float.parseFloat(args[1]);
+            }
+            if (args.length > 2) {
+                parallel = !args[2].equals("serial");
+            }
+            if (args.length > 3) {
+                Rng.setMasterSeed(Long.parseLong(args[3]));
+                parallel = false;
+            }
+        } catch (Exception e) {
+            System.out.println("Usage: Headless [hours] [tpf] [serial] [seed]");
+            return;
+        }
+        new Headless().run(hours, tpf, parallel);
+    }
+
+    public void run(double hours, float tpf, boolean parallel) {
+        //build the world
+        long buildStart = System.nanoTime();
+        Universe universe = new Universe(null);
+        makeObserver(universe);
+        God god = new God(universe);
+        SystemUpdater updater = new SystemUpdater();
+        updater.setParallel(parallel);
+        updater.disableTiers();
+        System.out.println("Universe built in " + ms(System.nanoTime() - buildStart) + " ms");
+        report(universe, 0);
+
+        //timing
+        long updateTime = 0;
+        long mergeTime = 0;
+        long godTime = 0;
+        long ticks = 0;
+        double simulated = 0;
+        double nextReport = REPORT_INTERVAL;
+        double end = hours * 3600;
+        long runStart = System.nanoTime();
+        while (simulated < end) {
+            updater.oosPeriodicUpdate(universe, null, tpf);
+            updateTime += updater.getLastUpdateTime();
+            mergeTime += updater.getLastMergeTime();
+            long godStart = System.nanoTime();
+            god.simulatedUpdate(tpf);
+            godTime += System.nanoTime() - godStart;
+            simulated += tpf;
+            ticks++;
+            if (simulated >= nextReport) {
+                report(universe, simulated);
+                nextReport += REPORT_INTERVAL;
+            }
+        }
+        long runTime = System.nanoTime() - runStart;
+
+        //summary
+        report(universe, simulated);
+        System.out.println("Ticks: " + ticks + " at " + tpf + " s (" + (parallel ? "parallel" : "serial") + ")");
+        System.out.println("Ticks per second: " + (long) (ticks / (runTime / 1000000000.0)));
+        System.out.println("Speed: " + (long) (simulated / (runTime / 1000000000.0)) + "x real time");
+        System.out.println("Systems: " + ms(updateTime) + " ms, " + perTick(updateTime, ticks) + " us/tick");
+        System.out.println("Merge: " + ms(mergeTime) + " ms, " + perTick(mergeTime, ticks) + " us/tick");
+        System.out.println("God: " + ms(godTime) + " ms, " + perTick(godTime, ticks) + " us/tick");
+        System.exit(0);
+    }
+
+    private void makeObserver(Universe universe) {
+        /*
+         * Plenty of code assumes there is a player ship. This one exists but
+         * is never put in a system, so every system stays out of system.
+         */
+        Parser parse = new Parser("UNIVERSE.txt");
+        ArrayList<Term> games = parse.getTermsOfType("NewGame");
+        String shipName = games.get(0).getValue("ship");
+        ArrayList<Term> types = Universe.getCache().getShipCache().getTermsOfType("Ship");
+        for (int a = 0; a < types.size(); a++) {
+            if (types.get(a).getValue("type").equals(shipName)) {
+                universe.setPlayerShip(new Ship(universe, types.get(a), Faction.PLAYER));
+                universe.getPlayerShip().setName("Observer");
+                break;
+            }
+        }
+    }
+
+    private void report(Universe universe, double simulated) {
+        int celestials = 0;
+        int ships = 0;
+        int stations = 0;
+        ArrayList<SolarSystem> systems = universe.getSystems();
+        for (int a = 0; a < systems.size(); a++) {
+            celestials += systems.get(a).getCelestials().size();
+            ships += systems.get(a).getShipList().size();
+            stations += systems.get(a).getStationList().size();
+        }
+        System.out.println("[" + (long) (simulated / 60) + " min] systems: " + systems.size()
+                + ", celestials: " + celestials + ", ships: " + ships + ", stations: " + stations);
+    }
+
+    private static long ms(long nanos) {
+        return nanos / 1000000;
+    }
+
+    private static long perTick(long nanos, long ticks) {
+        if (ticks == 0) {
+            return 0;
+        }
+        return nanos / ticks / 1000;
+    }
+}
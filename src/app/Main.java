@@ -29,6 +29,7 @@ import com.jme3.renderer.RenderManager;
 import com.jme3.scene.plugins.blender.BlenderModelLoader;
 import com.jme3.system.AppSettings;
 import engine.Core;
+import engine.FixedTimer;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
@@ -52,6 +53,12 @@ public class Main extends SimpleApplication {
     //engine
     private BulletAppState bulletAppState;
     Core core;
+    //input log to replay instead of playing live
+    private static String replayPath;
+
+    public static void setReplay(String path) {
+        replayPath = path;
+    }
 
     public static void main(String[] args) {
         //redirect console output to various endpoints in addition to console
@@ -141,6 +148,13 @@ public class Main extends SimpleApplication {
 
         //start engine
         core = new Core(rootNode, guiNode, bulletAppState, assetManager, planetAppState, inputManager, settings, listener);
+        if (replayPath != null) {
+            core.startReplay(replayPath);
+        }
+        if (core.isDeterministic()) {
+            //every frame is the same length, however long it really took
+            setTimer(new FixedTimer(core.getFixedTick()));
+        }
 
         //setup post processing
         fpp = new FilterPostProcessor(assetManager);
@@ -156,6 +170,9 @@ public class Main extends SimpleApplication {
     @Override
     public void simpleUpdate(float tpf) {
         core.periodicUpdate(tpf);
+        if (core.isReplayFinished()) {
+            stop();
+        }
     }
 
     @Override
@@ -172,4 +189,12 @@ public class Main extends SimpleApplication {
     public void loseFocus() {
         core.setFocus(false);
     }
+
+    @Override
+    public void destroy() {
+        if (core != null) {
+            core.shutdown();
+        }
+        super.destroy();
+    }
 }
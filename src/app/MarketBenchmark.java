@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Times station price lookups. Builds the universe like Headless does, then
+ * asks every station for the price of every ware, once with the old linear
+ * search through the market lists and once with the station's market index,
+ * and checks both agree. The old search keeps its own copy of the static
+ * price lists, the way stations kept them before the index, and a few
+ * stations get a static price so that path is compared too.
+ *
+ * Usage: MarketBenchmark [rounds] [seed]
+ */
+package app;
+
+import cargo.Item;
+import cargo.WareRegistry;
+import celestial.Ship.Ship;
+import celestial.Ship.Station;
+import engine.Rng;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import lib.Faction;
+import lib.astral.Parser;
+import lib.astral.Parser.Term;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class MarketBenchmark {
+
+    private static final int AUTOCALCULATE_PRICE = -1;
+    //static price every this many stations
+    private static final int STATIC_EVERY = 10;
+    //the old static price lists, per station
+    private final IdentityHashMap<Station, ArrayList<ItemPrice>> buyingPrices = new IdentityHashMap<>();
+    private final IdentityHashMap<Station, ArrayList<ItemPrice>> sellingPrices = new IdentityHashMap<>();
+
+    public static void main(String[] args) {
+        int rounds = 20;
+        try {
+            if (args.length > 0) {
+                rounds = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                Rng.setMasterSeed(Long.parseLong(args[1]));
+            }
+        } catch (Exception e) {
+            System.out.println("Usage: MarketBenchmark [rounds] [seed]");
+            return;
+        }
+        new MarketBenchmark().run(rounds);
+    }
+
+    public void run(int rounds) {
+        Universe universe = new Universe(null);
+        makeObserver(universe);
+        //every station, and one item of every ware
+        ArrayList<Station> stations = new ArrayList<>();
+        for (int a = 0; a < universe.getSystems().size(); a++) {
+            ArrayList<Entity> list = universe.getSystems().get(a).getStationList();
+            for (int b = 0; b < list.size(); b++) {
+                stations.add((Station) list.get(b));
+            }
+        }
+        WareRegistry wares = Universe.getCache().getWares();
+        ArrayList<Item> items = new ArrayList<>();
+        for (int a = 0; a < wares.size(); a++) {
+            items.add(new Item(a));
+        }
+        //the old static price lists, set up like installJobs() used to
+        for (int a = 0; a < stations.size(); a++) {
+            Station station = stations.get(a);
+            buyingPrices.put(station, copyPrices(station.getStationBuying()));
+            sellingPrices.put(station, copyPrices(station.getStationSelling()));
+            if (a % STATIC_EVERY == 0 && !station.getStationBuying().isEmpty()) {
+                //pin a price on both sides of the comparison
+                Item ware = station.getStationBuying().get(0);
+                try {
+                    station.setStaticBuyPrice(ware, ware.getMaxPrice());
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+                buyingPrices.get(station).get(0).price = ware.getMaxPrice();
+            }
+        }
+        long lookups = (long) stations.size() * items.size();
+        System.out.println(stations.size() + " stations, " + items.size() + " wares");
+
+        //make sure they agree before timing anything
+        for (int a = 0; a < stations.size(); a++) {
+            for (int b = 0; b < items.size(); b++) {
+                int old = linearPrice(stations.get(a), items.get(b));
+                int now = stations.get(a).getPrice(items.get(b));
+                if (old != now) {
+                    System.out.println("Mismatch at " + stations.get(a).getName() + " for "
+                            + items.get(b).getName() + ": " + old + " vs " + now);
+                    System.exit(1);
+                }
+            }
+        }
+
+        //warm up then time
+        long sink = 0;
+        sink += time(stations, items, true, 2);
+        sink += time(stations, items, false, 2);
+        long start = System.nanoTime();
+        sink += time(stations, items, true, rounds);
+        long linear = System.nanoTime() - start;
+        start = System.nanoTime();
+        sink += time(stations, items, false, rounds);
+        long indexed = System.nanoTime() - start;
+        System.out.println("Linear: " + ms(linear) + " ms, " + perLookup(linear, lookups * rounds) + " ns/lookup");
+        System.out.println("Indexed: " + ms(indexed) + " ms, " + perLookup(indexed, lookups * rounds) + " ns/lookup");
+        System.out.println("Checksum: " + sink);
+        System.exit(0);
+    }
+
+    private long time(ArrayList<Station> stations, ArrayList<Item> items, boolean linear, int rounds) {
+        long sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (int a = 0; a < stations.size(); a++) {
+                Station station = stations.get(a);
+                for (int b = 0; b < items.size(); b++) {
+                    if (linear) {
+                        sum += linearPrice(station, items.get(b));
+                    } else {
+                        sum += station.getPrice(items.get(b));
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    /*
+     * The price lookup as it was before the market index: search the lists
+     * for the ware, search the static price list the same way, then work the
+     * price out from the row.
+     */
+    private int linearPrice(Station station, Item item) {
+        ArrayList<Item> buying = station.getStationBuying();
+        ArrayList<Item> selling = station.getStationSelling();
+        Item row = null;
+        for (int a = 0; a < buying.size(); a++) {
+            if (buying.get(a).isSameWare(item)) {
+                try {
+                    int fixed = linearStatic(buyingPrices.get(station), item);
+                    if (fixed != AUTOCALCULATE_PRICE) {
+                        return fixed;
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+                row = buying.get(a);
+                break;
+            }
+        }
+        if (row == null) {
+            for (int a = 0; a < selling.size(); a++) {
+                if (selling.get(a).isSameWare(item)) {
+                    try {
+                        int fixed = linearStatic(sellingPrices.get(station), item);
+                        if (fixed != AUTOCALCULATE_PRICE) {
+                            return fixed;
+                        }
+                    } catch (Exception ex) {
+                        ex.printStackTrace();
+                    }
+                    row = selling.get(a);
+                    break;
+                }
+            }
+        }
+        if (row == null) {
+            return 0;
+        }
+        int max = row.getMaxPrice();
+        int min = row.getMinPrice();
+        int d = max - min;
+        float per = (float) row.getQuantity() / (float) row.getStore();
+        int price = min + (int) (d * (1 - per));
+        if (price < min) {
+            price = min;
+        } else if (price > max) {
+            price = max;
+        }
+        return price;
+    }
+
+    private int linearStatic(ArrayList<ItemPrice> prices, Item item) throws Exception {
+        //the old getStaticBuyPrice() and getStaticSellPrice()
+        for (int a = 0; a < prices.size(); a++) {
+            if (prices.get(a).item.isSameWare(item)) {
+                return prices.get(a).price;
+            }
+        }
+        throw new Exception("Station does not trade item " + item);
+    }
+
+    private static ArrayList<ItemPrice> copyPrices(ArrayList<Item> rows) {
+        ArrayList<ItemPrice> ret = new ArrayList<>();
+        for (int a = 0; a < rows.size(); a++) {
+            ret.add(new ItemPrice(rows.get(a), AUTOCALCULATE_PRICE));
+        }
+        return ret;
+    }
+
+    private static class ItemPrice {
+
+        private final Item item;
+        private int price;
+
+        public ItemPrice(Item item, int price) {
+            this.item = item;
+            this.price = price;
+        }
+    }
+
+    private void makeObserver(Universe universe) {
+        //same stand in player as Headless
+        Parser parse = new Parser("UNIVERSE.txt");
+        ArrayList<Term> games = parse.getTermsOfType("NewGame");
+        String shipName = games.get(0).getValue("ship");
+        ArrayList<Term> types = Universe.getCache().getShipCache().getTermsOfType("Ship");
+        for (int a = 0; a < types.size(); a++) {
+            if (types.get(a).getValue("type").equals(shipName)) {
+                universe.setPlayerShip(new Ship(universe, types.get(a), Faction.PLAYER));
+                universe.getPlayerShip().setName("Observer");
+                break;
+            }
+        }
+    }
+
+    private static long ms(long nanos) {
+        return nanos / 1000000;
+    }
+
+    private static long perLookup(long nanos, long lookups) {
+        if (lookups == 0) {
+            return 0;
+        }
+        return nanos / lookups;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Starts the game and drives it from a recorded input log instead of the
+ * keyboard, mouse and joystick. Record a log by setting a seed and
+ * record_input=true in the Simulation mapper, then replay it to get the same
+ * run frame for frame. The game exits when the log runs out and prints how
+ * long the simulation took per frame, so builds can be compared.
+ *
+ * Usage: Replay [log]
+ */
+package app;
+
+import lib.astral.AstralIO;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Replay {
+
+    public static void main(String[] args) {
+        String path = AstralIO.getSaveDir() + "input.log";
+        if (args.length > 0) {
+            path = args[0];
+        }
+        Main.setReplay(path);
+        Main.main(new String[0]);
+    }
+}
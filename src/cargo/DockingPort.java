@@ -36,6 +36,7 @@ import com.jme3.scene.Node;
 import com.jme3.scene.shape.Sphere;
 import entity.Entity.State;
 import java.io.Serializable;
+import universe.GameEvent.ShipDocked;
 
 /**
  *
@@ -86,7 +87,7 @@ public class DockingPort implements Serializable {
                         float dist = cLoc.distance(nLoc);
                         if (dist < size && client.getLinearVelocity().length() < DOCK_SPEED_LIMIT) {
                             //dock the ship
-                            client.setDocked(true);
+                            dockClient();
                             client.clearForces();
                             client.setPhysicsLocation(nLoc);
                             client.setThrottle(0);
@@ -121,7 +122,7 @@ public class DockingPort implements Serializable {
                         float dist = cLoc.distance(nLoc);
                         if (dist < size && client.getVelocity().length() < DOCK_SPEED_LIMIT) {
                             //dock the ship
-                            client.setDocked(true);
+                            dockClient();
                             client.setLocation(nLoc);
                         }
                     }
@@ -137,6 +138,12 @@ public class DockingPort implements Serializable {
         }
     }
 
+    private void dockClient() {
+        client.setDocked(true);
+        host.getCurrentSystem().getUniverse().getEvents()
+                .publish(new ShipDocked(host.getCurrentSystem(), client, host));
+    }
+
     public boolean isEmpty() {
         return (client == null);
     }
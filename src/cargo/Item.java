@@ -27,9 +27,6 @@
 package cargo;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import lib.astral.Parser;
-import lib.astral.Parser.Term;
 import universe.Universe;
 
 public class Item implements Serializable {
@@ -42,58 +39,24 @@ public class Item implements Serializable {
     public static final String TYPE_COMMODITY = "commodity";
     public static final String TYPE_SHIP = "ship";
     public static final String TYPE_STATION = "station";
-    private int volume;
-    private int store;
-    private double mass;
+    //shared stats
+    private ItemType ware;
     private double HP;
-    private String name;
-    private String description;
-    private String type;
-    protected String group;
     protected int quantity = 1;
     //flags
     private boolean alive;
-    //economic parameters
-    private int minPrice;
-    private int maxPrice;
 
     public Item(String name) {
-        this.name = name;
-        init();
-    }
-
-    private void init() {
-        Parser parse = Universe.getCache().getItemCache();
-        ArrayList<Term> terms = parse.getTermsOfType("Item");
-        Term relevant = null;
-        for (int a = 0; a < terms.size(); a++) {
-            String termName = terms.get(a).getValue("name");
-            if (termName.equals(getName())) {
-                //get the stats we want
-                relevant = terms.get(a);
-                //and end
-                break;
-            }
-        }
-        if (relevant != null) {
-            //extract
-            type = relevant.getValue("type");
-            volume = Integer.parseInt(relevant.getValue("volume"));
-            mass = Double.parseDouble(relevant.getValue("mass"));
-            HP = Double.parseDouble(relevant.getValue("HP"));
-            minPrice = Integer.parseInt(relevant.getValue("minPrice"));
-            maxPrice = Integer.parseInt(relevant.getValue("maxPrice"));
-            description = relevant.getValue("description");
-            group = relevant.getValue("group");
-            String st = relevant.getValue("store");
-            if (st != null) {
-                store = Integer.parseInt(relevant.getValue("store"));
-            } else {
-                store = 1000;
-            }
-        } else {
-            System.out.println("The item " + getName() + " does not exist in ITEM.txt");
-        }
+        this(Universe.getCache().getWares().get(name));
+    }
+
+    public Item(int id) {
+        this(Universe.getCache().getWares().get(id));
+    }
+
+    public Item(ItemType ware) {
+        this.ware = ware;
+        HP = ware.getHP();
     }
 
     public void periodicUpdate(double tpf) {
@@ -108,50 +71,46 @@ public class Item implements Serializable {
         }
     }
 
+    public boolean isSameWare(Item other) {
+        return ware.getId() == other.ware.getId();
+    }
+
     //Reusable Parsing
     public String removeLeftSpaces(String s) {
         return s.replaceAll("^\\s+", "");
     }
 
     //Accesors + Mutators
-    public double getVolume() {
-        return volume * (double) quantity;
+    public ItemType getItemType() {
+        return ware;
     }
 
-    public void setVolume(int volume) {
-        this.volume = volume;
+    public double getVolume() {
+        return ware.getVolume() * (double) quantity;
     }
 
     public double getMass() {
-        return mass * (double) quantity;
+        return ware.getMass() * (double) quantity;
     }
 
-    public void setMass(double mass) {
-        this.mass = mass;
+    protected void setMass(double mass) {
+        ware = ware.withMass(mass);
     }
 
     public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
+        return ware.getName();
     }
 
     public String getDescription() {
-        return description;
-    }
-
-    public void setDescription(String description) {
-        this.description = description;
+        return ware.getDescription();
     }
 
     public String getType() {
-        return type;
+        return ware.getType();
     }
 
-    public void setType(String type) {
-        this.type = type;
+    protected void setType(String type) {
+        ware = ware.withType(type);
     }
 
     public double getHP() {
@@ -171,32 +130,20 @@ public class Item implements Serializable {
     }
 
     public int getMinPrice() {
-        return minPrice;
-    }
-
-    public void setMinPrice(int minPrice) {
-        this.minPrice = minPrice;
+        return ware.getMinPrice();
     }
 
     public int getMaxPrice() {
-        return maxPrice;
-    }
-
-    public void setMaxPrice(int maxPrice) {
-        this.maxPrice = maxPrice;
+        return ware.getMaxPrice();
     }
 
     public String getGroup() {
-        return group;
-    }
-
-    public void setGroup(String group) {
-        this.group = group;
+        return ware.getGroup();
     }
 
     @Override
     public String toString() {
-        return name + "[" + quantity + "]";
+        return getName() + "[" + quantity + "]";
     }
 
     public int getQuantity() {
@@ -208,10 +155,6 @@ public class Item implements Serializable {
     }
 
     public int getStore() {
-        return store;
-    }
-
-    public void setStore(int store) {
-        this.store = store;
+        return ware.getStore();
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * The fixed stats of one kind of ware, read from ITEM.txt once and shared by
+ * every Item of that kind. Items only add how many there are and how damaged
+ * they are. Types are compared by their id from the WareRegistry.
+ *
+ * Weapons overwrite a few stats from WEAPONS.txt, so they get a private copy
+ * with the same id. Shared types are swapped back to the registry's copy
+ * when a save is loaded.
+ */
+package cargo;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class ItemType implements Serializable {
+
+    private final int id;
+    private final String name;
+    private final String type;
+    private final String description;
+    private final String group;
+    private final int volume;
+    private final double mass;
+    private final double HP;
+    private final int minPrice;
+    private final int maxPrice;
+    private final int store;
+    //a private copy, not the registry's
+    private final boolean derived;
+
+    public ItemType(int id, String name, String type, String description, String group,
+            int volume, double mass, double HP, int minPrice, int maxPrice, int store) {
+        this(id, name, type, description, group, volume, mass, HP, minPrice, maxPrice, store, false);
+    }
+
+    private ItemType(int id, String name, String type, String description, String group,
+            int volume, double mass, double HP, int minPrice, int maxPrice, int store, boolean derived) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.description = description;
+        this.group = group;
+        this.volume = volume;
+        this.mass = mass;
+        this.HP = HP;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.store = store;
+        this.derived = derived;
+    }
+
+    public ItemType withType(String type) {
+        return new ItemType(id, name, type, description, group, volume, mass, HP, minPrice, maxPrice, store, true);
+    }
+
+    public ItemType withMass(double mass) {
+        return new ItemType(id, name, type, description, group, volume, mass, HP, minPrice, maxPrice, store, true);
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        if (derived) {
+            return this;
+        }
+        return Universe.getCache().getWares().get(name);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getVolume() {
+        return volume;
+    }
+
+    public double getMass() {
+        return mass;
+    }
+
+    public double getHP() {
+        return HP;
+    }
+
+    public int getMinPrice() {
+        return minPrice;
+    }
+
+    public int getMaxPrice() {
+        return maxPrice;
+    }
+
+    public int getStore() {
+        return store;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ItemType && ((ItemType) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -27,6 +27,7 @@
 package cargo;
 
 import celestial.Ship.Station;
+import celestial.Ship.StationMarket;
 import java.io.Serializable;
 import java.util.ArrayList;
 import lib.astral.Parser;
@@ -77,7 +78,7 @@ public class Job implements Serializable {
                     //see if the station has this registered as a product
                     boolean needed = true;
                     for (int b = 0; b < stationSelling.size(); b++) {
-                        if (stationSelling.get(b).getName().equals(p.getName())) {
+                        if (stationSelling.get(b).isSameWare(p)) {
                             //yep it does
                             needed = false;
                             break;
@@ -102,7 +103,7 @@ public class Job implements Serializable {
                     //see if the station has this registered as a resource
                     boolean needed = true;
                     for (int b = 0; b < stationBuying.size(); b++) {
-                        if (stationBuying.get(b).getName().equals(p.getName())) {
+                        if (stationBuying.get(b).isSameWare(p)) {
                             //yep it does
                             needed = false;
                             break;
@@ -129,26 +130,20 @@ public class Job implements Serializable {
          }*/
         if (timer == 0) {
             //collect resources and start
+            StationMarket market = host.getMarket();
             boolean hasResources = true;
             for (int a = 0; a < resources.size(); a++) {
-                for (int b = 0; b < stationBuying.size(); b++) {
-                    if (resources.get(a).getName().equals(stationBuying.get(b).getName())) {
-                        if (stationBuying.get(b).getQuantity() >= resources.get(a).getQuantity()) {
-                            //ok
-                        } else {
-                            hasResources = false;
-                            break;
-                        }
-                    }
+                Item stock = market.getBuying(resources.get(a));
+                if (stock != null && stock.getQuantity() < resources.get(a).getQuantity()) {
+                    hasResources = false;
+                    break;
                 }
             }
             if (hasResources) {
                 for (int a = 0; a < resources.size(); a++) {
-                    for (int b = 0; b < stationBuying.size(); b++) {
-                        if (resources.get(a).getName().equals(stationBuying.get(b).getName())) {
-                            stationBuying.get(b).setQuantity(stationBuying.get(b).getQuantity() - resources.get(a).getQuantity());
-                            break;
-                        }
+                    Item stock = market.getBuying(resources.get(a));
+                    if (stock != null) {
+                        market.stock(stock, stock.getQuantity() - resources.get(a).getQuantity());
                     }
                 }
                 timer += tpf;
@@ -160,13 +155,12 @@ public class Job implements Serializable {
         } else {
             //process complete, deliver products and reset
             if (canDeliver()) {
+                StationMarket market = host.getMarket();
                 for (int a = 0; a < products.size(); a++) {
-                    for (int b = 0; b < stationSelling.size(); b++) {
-                        if (products.get(a).getName().equals(stationSelling.get(b).getName())) {
-                            //deliver
-                            stationSelling.get(b).setQuantity(stationSelling.get(b).getQuantity() + products.get(a).getQuantity());
-                            break;
-                        }
+                    Item stock = market.getSelling(products.get(a));
+                    if (stock != null) {
+                        //deliver
+                        market.stock(stock, stock.getQuantity() + products.get(a).getQuantity());
                     }
                 }
                 timer = 0;
@@ -180,17 +174,16 @@ public class Job implements Serializable {
         try {
             //iterate each product
             for (int a = 0; a < products.size(); a++) {
-                //check each station's selling list
-                for (int b = 0; b < stationSelling.size(); b++) {
-                    if (products.get(a).getName().equals(stationSelling.get(b).getName())) {
-                        //determine if there is room for delivery
-                        int stored = stationSelling.get(b).getQuantity();
-                        int max = stationSelling.get(b).getStore();
-                        int delivering = products.get(a).getQuantity();
-                        if (stored + delivering > max) {
-                            //no room
-                            return false;
-                        }
+                //check the station's selling list
+                Item stock = host.getMarket().getSelling(products.get(a));
+                if (stock != null) {
+                    //determine if there is room for delivery
+                    int stored = stock.getQuantity();
+                    int max = stock.getStore();
+                    int delivering = products.get(a).getQuantity();
+                    if (stored + delivering > max) {
+                        //no room
+                        return false;
                     }
                 }
             }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Every ware in ITEM.txt, numbered in file order and parsed once. Looking a
+ * ware up by id is an array index, by name a hash lookup. A name that isn't
+ * in ITEM.txt is reported once and gets an empty type of its own, like the
+ * blank items that used to be made for it.
+ */
+package cargo;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lib.astral.Parser;
+import lib.astral.Parser.Term;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class WareRegistry {
+
+    //items are made from the parallel update too, lookups don't lock
+    private final CopyOnWriteArrayList<ItemType> types = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, ItemType> byName = new ConcurrentHashMap<>();
+
+    public WareRegistry(Parser items) {
+        ArrayList<Term> terms = items.getTermsOfType("Item");
+        for (int a = 0; a < terms.size(); a++) {
+            Term relevant = terms.get(a);
+            String name = relevant.getValue("name");
+            if (byName.containsKey(name)) {
+                //the first one wins, as it always did
+                continue;
+            }
+            try {
+                String st = relevant.getValue("store");
+                int store;
+                if (st != null) {
+                    store = Integer.parseInt(st);
+                } else {
+                    store = 1000;
+                }
+                add(new ItemType(types.size(), name,
+                        relevant.getValue("type"),
+                        relevant.getValue("description"),
+                        relevant.getValue("group"),
+                        Integer.parseInt(relevant.getValue("volume")),
+                        Double.parseDouble(relevant.getValue("mass")),
+                        Double.parseDouble(relevant.getValue("HP")),
+                        Integer.parseInt(relevant.getValue("minPrice")),
+                        Integer.parseInt(relevant.getValue("maxPrice")),
+                        store));
+            } catch (Exception e) {
+                System.out.println("The item " + name + " in ITEM.txt could not be read");
+            }
+        }
+    }
+
+    private void add(ItemType type) {
+        types.add(type);
+        byName.put(type.getName(), type);
+    }
+
+    public ItemType get(String name) {
+        ItemType ret = byName.get(name);
+        if (ret == null) {
+            ret = addUnknown(name);
+        }
+        return ret;
+    }
+
+    private synchronized ItemType addUnknown(String name) {
+        ItemType ret = byName.get(name);
+        if (ret == null) {
+            System.out.println("The item " + name + " does not exist in ITEM.txt");
+            ret = new ItemType(types.size(), name, null, null, null, 0, 0, 0, 0, 0, 0);
+            add(ret);
+        }
+        return ret;
+    }
+
+    public ItemType get(int id) {
+        return types.get(id);
+    }
+
+    public int size() {
+        return types.size();
+    }
+}
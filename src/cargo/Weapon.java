@@ -36,6 +36,7 @@ import com.jme3.math.Vector3f;
 import engine.Core;
 import java.util.ArrayList;
 import lib.astral.Parser;
+import universe.GameEvent.SoundQueued;
 
 /**
  *
@@ -91,7 +92,6 @@ public class Weapon extends Equipment {
             }
         }
         if (relevant != null) {
-            setName(relevant.getValue("name"));
             setType(relevant.getValue("type"));
             setMass(Float.parseFloat(relevant.getValue("mass")));
             setShieldDamage(Float.parseFloat(relevant.getValue("shieldDamage")));
@@ -302,6 +302,8 @@ public class Weapon extends Equipment {
             if (!host.getSoundQue().contains(sound)) {
                 sound.setLocalTranslation(host.getLocation().clone());
                 host.getSoundQue().add(sound);
+                host.getCurrentSystem().getUniverse().getEvents()
+                        .publish(new SoundQueued(host.getCurrentSystem(), host));
             }
         }
     }
@@ -319,7 +321,7 @@ public class Weapon extends Equipment {
             ArrayList<Item> cargo = host.getCargoBay();
             for (int a = 0; a < cargo.size(); a++) {
                 Item tmp = cargo.get(a);
-                if (tmp.getName().equals(ammo.getName())) {
+                if (tmp.isSameWare(ammo)) {
                     if (tmp.getGroup().equals(ammo.getGroup())) {
                         if (tmp.getType().equals(ammo.getType())) {
                             if (tmp.getQuantity() > 1) {
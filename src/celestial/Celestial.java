@@ -28,9 +28,12 @@ package celestial;
 
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
+import engine.TimerWheel.Timer;
 import entity.PhysicsEntity;
 import java.io.Serializable;
 import lib.astral.AstralIO;
+import universe.EntityStore;
+import universe.GameEvent.EntityDied;
 import universe.SolarSystem;
 import universe.Universe;
 
@@ -47,6 +50,13 @@ public class Celestial extends PhysicsEntity implements Serializable {
     protected SolarSystem currentSystem;
     //discovery
     private boolean discoveredByPlayer = false;
+    //sleeping
+    private boolean asleep = false;
+    private boolean catchUp = false;
+    private double sleptAt;
+    private Timer<Celestial> alarm;
+    //slot in the solar system's entity store
+    private long storeHandle = EntityStore.NO_HANDLE;
 
     //camera
     private transient Node cameraRestPoint;
@@ -82,6 +92,69 @@ public class Celestial extends PhysicsEntity implements Serializable {
         return currentSystem;
     }
 
+    /*
+     * Stops the solar system from updating this celestial until the given
+     * number of seconds have passed or something calls wake(). Use infinity
+     * to only be woken by events. Only works out of system.
+     */
+    public void sleep(double duration) {
+        if (!asleep && currentSystem != null && currentSystem.canSleep()) {
+            asleep = true;
+            sleptAt = currentSystem.getClock();
+            if (duration != Double.POSITIVE_INFINITY) {
+                alarm = currentSystem.setAlarm(this, sleptAt + duration);
+            }
+        }
+    }
+
+    public void wake() {
+        if (asleep) {
+            asleep = false;
+            catchUp = true;
+            if (alarm != null) {
+                alarm.cancel();
+                alarm = null;
+            }
+        }
+    }
+
+    public boolean isAsleep() {
+        return asleep;
+    }
+
+    public long getStoreHandle() {
+        return storeHandle;
+    }
+
+    public void setStoreHandle(long storeHandle) {
+        this.storeHandle = storeHandle;
+    }
+
+    /*
+     * Returns the time step for the next update. Right after waking up this
+     * covers all the time spent asleep so timers and recharging catch up.
+     */
+    public float getCatchUpTpf(float tpf) {
+        if (catchUp) {
+            catchUp = false;
+            if (currentSystem != null) {
+                return (float) Math.max(tpf, currentSystem.getClock() - sleptAt);
+            }
+        }
+        return tpf;
+    }
+
+    @Override
+    public void setState(State state) {
+        boolean died = getState() == State.ALIVE && state != State.ALIVE;
+        super.setState(state);
+        //anything that changes state needs to be updated
+        wake();
+        if (died && currentSystem != null) {
+            currentSystem.getUniverse().getEvents().publish(new EntityDied(currentSystem, this));
+        }
+    }
+
     public void setCurrentSystem(SolarSystem currentSystem) {
         this.currentSystem = currentSystem;
     }
@@ -27,6 +27,7 @@ package celestial;
 
 import com.jme3.bullet.collision.PhysicsCollisionObject;
 import com.jme3.math.ColorRGBA;
+import engine.Rng;
 import java.util.Random;
 import universe.Universe;
 
@@ -58,7 +59,7 @@ public class Explosion extends Projectile {
 
     private void initStats() {
         //the explosion shouldn't be easily predictable unless tampered with before spawning
-        Random rnd = new Random();
+        Random rnd = Rng.create();
         setNumParticles((int) (rnd.nextFloat() * (MAX_COUNT - MIN_COUNT)) + MIN_COUNT);
         maxLife = (int) (rnd.nextFloat() * (MAX_LIFE - MIN_LIFE)) + MIN_LIFE;
         setHighLife(maxLife);
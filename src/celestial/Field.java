@@ -37,6 +37,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import engine.Rng;
 import entity.Entity;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -344,11 +345,12 @@ public class Field extends Celestial implements Serializable {
 
         public void constructBlock() {
             //block = new Node();
+            Random rnd = Rng.create();
             for (int a = 0; a < map.length; a++) {
                 roids[a] = asteroid.clone();
                 roids[a].setLocalTranslation(map[a].x, map[a].y, map[a].z);
                 roids[a].rotate(rot[a].x, rot[a].y, rot[a].z);
-                roids[a].scale(new Random().nextInt(getRockScale()) + 1);
+                roids[a].scale(rnd.nextInt(getRockScale()) + 1);
                 CollisionShape hullShape = CollisionShapeFactory.createDynamicMeshShape(roids[a]);
                 RigidBodyControl box = new RigidBodyControl(hullShape);
                 //box.setMass(0);
@@ -27,6 +27,7 @@
 package celestial;
 
 import celestial.Ship.Ship;
+import celestial.Ship.Station;
 import com.jme3.asset.AssetManager;
 import com.jme3.bullet.BulletAppState;
 import com.jme3.bullet.collision.shapes.SphereCollisionShape;
@@ -189,26 +190,23 @@ public class Jumphole extends Planet {
     private void jumpShip(Ship ship) {
         SolarSystem start = ship.getCurrentSystem();
         SolarSystem end = outGate.getCurrentSystem();
-        //pull from old system
-        start.pullEntityFromSystem(ship);
-        //store location
-        Vector3f diff = getLocation().subtract(ship.getLocation());
-        ship.setLocation(outGate.getLocation().add(diff.mult(2)));
+        //wait for the merge if systems are being updated in parallel
+        Vector3f arrival = outGate.getLocation().add(getLocation().subtract(ship.getLocation()).mult(2));
+        if (start.deferTransfer(ship, end, arrival)) {
+            return;
+        }
         //complete transfer
-        end.putEntityInSystem(ship);
+        end.jumpEntityInto(ship, arrival);
 
     }
 
     private void checkForJumpers() {
         //check for any ships to jump
-        ArrayList<Entity> near = getCurrentSystem().getShipList();
+        ArrayList<Ship> near = getCurrentSystem().getGrid().getInRange(getLocation(), 1.5f * radius, Ship.class,
+                (Entity test) -> !(test instanceof Station));
         for (int a = 0; a < near.size(); a++) {
-            Ship tmp = (Ship) near.get(a);
-            float dist = tmp.getLocation().distance(getLocation());
-            if (dist <= 1.5f * radius) {
-                //jump
-                jumpShip(tmp);
-            }
+            //jump
+            jumpShip(near.get(a));
         }
     }
 
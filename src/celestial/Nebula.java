@@ -35,6 +35,7 @@ import com.jme3.material.RenderState;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
+import engine.Rng;
 import java.util.Random;
 import jmeplanet.PlanetAppState;
 import lib.astral.Parser.Term;
@@ -51,7 +52,7 @@ public class Nebula extends Celestial {
     public static final int MIN_PARTICLES = 50;
     public static final int MAX_PARTICLES = 2000;
     //end constants
-    private final Random rnd = new Random();
+    private final Random rnd = Rng.create();
     private final Term type;
     private ColorRGBA color = ColorRGBA.Black;
     private transient NebulaEmitter emitter;
@@ -39,7 +39,6 @@ import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
-import entity.Entity;
 import java.util.ArrayList;
 import universe.Universe;
 
@@ -236,20 +235,12 @@ public class Projectile extends Celestial {
     }
 
     public void aoeDamageFromFuse() {
-        //explode damaging all ships in fuse range
-        ArrayList<Entity> shipEntities = this.getCurrentSystem().getShipList();
-        ArrayList<Entity> stationEntities = this.getCurrentSystem().getStationList();
-        ArrayList<Entity> combinedList = new ArrayList<>();
-        combinedList.addAll(shipEntities);
-        combinedList.addAll(stationEntities);
-        for (int a = 0; a < combinedList.size(); a++) {
-            if (combinedList.get(a) instanceof Ship) {
-                Ship tmp = (Ship) combinedList.get(a);
-                if (tmp.distanceTo(this) < getProximityFuse()) {
-                    tmp.applyDamage(shieldDamage, hullDamage);
-                    tmp.setLastBlow(host);
-                }
-            }
+        //explode damaging all ships and stations in fuse range
+        ArrayList<Ship> inRange = getCurrentSystem().getGrid().getInRange(getLocation(), getProximityFuse(), Ship.class, null);
+        for (int a = 0; a < inRange.size(); a++) {
+            Ship tmp = inRange.get(a);
+            tmp.applyDamage(shieldDamage, hullDamage);
+            tmp.setLastBlow(host);
         }
     }
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Something a ship decided to do during the think phase that changes more
+ * than the ship itself. Thinking may run on several threads at once, so
+ * these are kept on the ship and applied one ship at a time by act().
+ */
+package celestial.Ship;
+
+import cargo.DockingPort;
+import cargo.Weapon;
+import universe.SolarSystem;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Intent {
+
+    public enum Type {
+
+        FIRE, //shoot a turret at a target
+        DOCK, //ask a station for a docking port
+        RELEASE, //give a docking port back
+        JUMP, //jump to another system
+        TRADE, //buy or sell at the station we are docked at
+        SLEEP //sleep until the wait is over
+    }
+    private final Type type;
+    private Weapon weapon;
+    private Ship target;
+    private Station station;
+    private DockingPort port;
+    private SolarSystem system;
+    private Ship.Behavior behavior;
+    private double duration;
+
+    private Intent(Type type) {
+        this.type = type;
+    }
+
+    public static Intent fire(Weapon weapon, Ship target) {
+        Intent ret = new Intent(Type.FIRE);
+        ret.weapon = weapon;
+        ret.target = target;
+        return ret;
+    }
+
+    public static Intent dock(Station station) {
+        Intent ret = new Intent(Type.DOCK);
+        ret.station = station;
+        return ret;
+    }
+
+    public static Intent release(DockingPort port) {
+        Intent ret = new Intent(Type.RELEASE);
+        ret.port = port;
+        return ret;
+    }
+
+    public static Intent jump(SolarSystem system) {
+        Intent ret = new Intent(Type.JUMP);
+        ret.system = system;
+        return ret;
+    }
+
+    public static Intent trade(Station station, Ship.Behavior behavior) {
+        //the behavior runs its docked step again in act()
+        Intent ret = new Intent(Type.TRADE);
+        ret.station = station;
+        ret.behavior = behavior;
+        return ret;
+    }
+
+    public static Intent sleep(double duration) {
+        Intent ret = new Intent(Type.SLEEP);
+        ret.duration = duration;
+        return ret;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Weapon getWeapon() {
+        return weapon;
+    }
+
+    public Ship getTarget() {
+        return target;
+    }
+
+    public Station getStation() {
+        return station;
+    }
+
+    public DockingPort getPort() {
+        return port;
+    }
+
+    public SolarSystem getSystem() {
+        return system;
+    }
+
+    public Ship.Behavior getBehavior() {
+        return behavior;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+}
@@ -29,6 +29,7 @@ import cargo.DockingPort;
 import cargo.Equipment;
 import cargo.Hardpoint;
 import cargo.Item;
+import cargo.ItemType;
 import cargo.Nozzle;
 import cargo.Weapon;
 import celestial.Celestial;
@@ -47,6 +48,7 @@ import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Node;
+import engine.Rng;
 import entity.Entity;
 import java.util.ArrayList;
 import java.util.Random;
@@ -60,6 +62,8 @@ import lib.Faction;
 import lib.astral.Parser.Param;
 import lib.astral.Parser.Term;
 import universe.SolarSystem;
+import universe.SpatialGrid;
+import universe.TradeRoutePlanner.Route;
 import universe.Universe;
 
 /**
@@ -168,6 +172,15 @@ public class Ship extends Celestial {
     //sensor
     private float sensor;
     private Ship target;
+    //what the sensors saw at the start of the tick
+    private transient ArrayList<Ship> sensedShips;
+    private transient ArrayList<Ship> sensedHostiles;
+    private transient SolarSystem sensedSystem;
+    private transient double sensedClock;
+    private transient boolean sensorsUsed = true;
+    //what the think phase decided that touches more than this ship
+    private transient ArrayList<Intent> intents;
+    private transient boolean thinking;
     //behavior and autopilot
     protected Autopilot autopilot = Autopilot.NONE;
     protected Autopilot autopilotBackup = Autopilot.NONE;
@@ -186,6 +199,8 @@ public class Ship extends Celestial {
     //timing and waiting
     private double waitTimer = 0;
     private double waitTimerLength = 0;
+    //out of system travel
+    private Trip trip;
     //physics stats
     private float thrust; //engine force
     private float torque; //turning force
@@ -207,7 +222,7 @@ public class Ship extends Celestial {
     private Conversation conversation;
     private String pilot;
     //RNG
-    Random rnd = new Random();
+    Random rnd = Rng.create();
     //audio
     private transient ArrayList<AudioNode> soundQue = new ArrayList<>();
     private transient AudioNode engineNoise;
@@ -218,7 +233,7 @@ public class Ship extends Celestial {
         //init stats
         initStats();
         initNav();
-        initFaction(faction);
+        initFaction(universe, faction);
         initCash();
     }
 
@@ -296,8 +311,9 @@ public class Ship extends Celestial {
         }
     }
 
-    private void initFaction(String name) {
-        faction = new Faction(name);
+    private void initFaction(Universe universe, String name) {
+        //shared with every other ship on this side
+        faction = universe.getFactions().get(name);
     }
 
     private void initCash() {
@@ -305,7 +321,7 @@ public class Ship extends Celestial {
             //do not do this
         } else {
             //randomize start cash
-            setCash(new Random().nextInt(10000000));
+            setCash(rnd.nextInt(10000000));
         }
     }
 
@@ -963,102 +979,67 @@ public class Ship extends Celestial {
                         /*
                          * This is stage 1, find the best deal.
                          */
-                        //get a list of friendly stations
-                        ArrayList<Station> friendly = new ArrayList<>();
-                        ArrayList<SolarSystem> zone = new ArrayList<>();
-                        for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-                            if (canJump(getUniverse().getSystems().get(a))) {
-                                ArrayList<Station> tmp = getDockableStationsInSystem(currentSystem.getUniverse().getSystems().get(a));
-                                zone.add(getUniverse().getSystems().get(a));
-                                friendly.addAll(tmp);
-                            }
-                        }
-                        if (friendly.size() > 1) {
-                            //we know what is being produced, it is homebase products
-                            ArrayList<String> produced = new ArrayList<>();
-                            {
-                                ArrayList<Item> made = homeBase.getStationSelling();
-                                for (int b = 0; b < made.size(); b++) {
-                                    String ware = made.get(b).getName();
-                                    if (!produced.contains(ware)) {
-                                        produced.add(ware);
-                                    }
-                                }
-                            }
-                            //build a list of wares that are being consumed
-                            ArrayList<String> consumed = new ArrayList<>();
-                            for (int a = 0; a < friendly.size(); a++) {
-                                ArrayList<Item> made = friendly.get(a).getStationBuying();
-                                for (int b = 0; b < made.size(); b++) {
-                                    String ware = made.get(b).getName();
-                                    if (!consumed.contains(ware)) {
-                                        consumed.add(ware);
-                                    }
-                                }
-                            }
-                            //cross reference the lists to find what's the same in both
-                            ArrayList<String> sample = new ArrayList<>();
-                            for (int a = 0; a < consumed.size(); a++) {
-                                for (int b = 0; b < produced.size(); b++) {
-                                    if (consumed.get(a).equals(produced.get(b))) {
-                                        sample.add(consumed.get(a));
-                                        break;
-                                    }
+                        //we know what is being produced, it is homebase products
+                        ArrayList<ItemType> sample = new ArrayList<>();
+                        {
+                            ArrayList<Item> made = homeBase.getStationSelling();
+                            for (int b = 0; b < made.size(); b++) {
+                                ItemType ware = made.get(b).getItemType();
+                                if (!sample.contains(ware)) {
+                                    sample.add(ware);
                                 }
                             }
-                            //make sure there's a sample
-                            if (sample.size() > 0) {
-                                Station buyLoc = null;
-                                Station sellLoc = null;
-                                Item bestWare = null;
-                                double gain = 0;
-                                for (int a = 0; a < sample.size(); a++) {
-                                    Item ware = new Item(sample.get(a));
-                                    //always pick up from homebase
-                                    Station pickUp = homeBase;
-                                    //get best sell station
-                                    Station dropOff = getBestDropOff(zone, ware);
-                                    //get prices
-                                    if (pickUp != null && dropOff != null) {
-                                        int pickUpPrice = pickUp.getPrice(ware);
-                                        int dropOffPrice = dropOff.getPrice(ware);
-                                        //find profit
-                                        int profit = dropOffPrice - pickUpPrice;
-                                        if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                            if (profit > 0) {
-                                                if (profit > gain) {
-                                                    buyLoc = pickUp;
-                                                    sellLoc = dropOff;
-                                                    bestWare = ware;
-                                                    //store prices
-                                                    gain = profit;
-                                                    buyFromPrice = pickUpPrice;
-                                                    sellToPrice = dropOffPrice;
-                                                }
-                                            } else {
-                                                //no point in trading this
+                        }
+                        //make sure there's a sample
+                        if (sample.size() > 0) {
+                            Station buyLoc = null;
+                            Station sellLoc = null;
+                            Item bestWare = null;
+                            double gain = 0;
+                            for (int a = 0; a < sample.size(); a++) {
+                                Item ware = new Item(sample.get(a));
+                                //always pick up from homebase
+                                Station pickUp = homeBase;
+                                //get best sell station
+                                Station dropOff = getBestDropOff(ware, true);
+                                //get prices
+                                if (pickUp != null && dropOff != null) {
+                                    int pickUpPrice = pickUp.getPrice(ware);
+                                    int dropOffPrice = dropOff.getPrice(ware);
+                                    //find profit
+                                    int profit = dropOffPrice - pickUpPrice;
+                                    if (pickUpPrice != -1 && dropOffPrice != -1) {
+                                        if (profit > 0) {
+                                            if (profit > gain) {
+                                                buyLoc = pickUp;
+                                                sellLoc = dropOff;
+                                                bestWare = ware;
+                                                //store prices
+                                                gain = profit;
+                                                buyFromPrice = pickUpPrice;
+                                                sellToPrice = dropOffPrice;
                                             }
+                                        } else {
+                                            //no point in trading this
                                         }
-                                    } else {
-                                        //something went wrong
                                     }
+                                } else {
+                                    //something went wrong
                                 }
-                                if (bestWare != null) {
-                                    //store start and end
-                                    buyFromStation = buyLoc;
-                                    sellToStation = sellLoc;
-                                    workingWare = bestWare;
-                                    //start trading
-                                    if (canJump(buyFromStation.getCurrentSystem())) {
-                                        if (buyFromStation.getCurrentSystem() != currentSystem) {
-                                            cmdJump(buyFromStation.getCurrentSystem());
-                                        }
-                                        cmdDock(buyFromStation);
-                                    } else {
-                                        abortTrade();
+                            }
+                            if (bestWare != null) {
+                                //store start and end
+                                buyFromStation = buyLoc;
+                                sellToStation = sellLoc;
+                                workingWare = bestWare;
+                                //start trading
+                                if (canJump(buyFromStation.getCurrentSystem())) {
+                                    if (buyFromStation.getCurrentSystem() != currentSystem) {
+                                        cmdJump(buyFromStation.getCurrentSystem());
                                     }
+                                    cmdDock(buyFromStation);
                                 } else {
-                                    dockAtFriendlyStationInSystem();
+                                    abortTrade();
                                 }
                             } else {
                                 dockAtFriendlyStationInSystem();
@@ -1085,6 +1066,11 @@ public class Ship extends Celestial {
             } else {
                 //setup wait
                 if (autopilot == Autopilot.NONE && port != null) {
+                    if (thinking) {
+                        //buying and selling changes the station, act() comes back for it
+                        intend(Intent.trade(port.getParent(), Behavior.REPRESENT_HOMEBASE));
+                        return;
+                    }
                     //restore fuel
                     fuel = maxFuel;
                     //do buying and selling
@@ -1095,7 +1081,7 @@ public class Ship extends Celestial {
                                 && (sellToStation.getPrice(workingWare) >= sellToPrice)
                                 && canJump(sellToStation.getCurrentSystem())) {
                             //how much of the ware can we carry
-                            int maxQ = (int) (cargo - getBayUsed()) / Math.max(1, (int) workingWare.getVolume());
+                            int maxQ = getCargoRoomFor(workingWare);
                             //how much can we carry if we want to follow reserve rules
                             int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                             //buy as much as we can carry
@@ -1115,8 +1101,8 @@ public class Ship extends Celestial {
                         if (curr.getPrice(workingWare) >= sellToPrice) {
                             //try to dump all our wares at this price
                             int q = getNumInCargoBay(workingWare);
-                            curr.sell(this, workingWare, q);
-                            System.out.println(getName() + " sold " + (q - getNumInCargoBay(workingWare))
+                            int numSold = curr.sell(this, workingWare, q);
+                            System.out.println(getName() + " sold " + numSold
                                     + " " + workingWare.getName() + " to " + curr.getName());
                         } else {
                             //System.out.println(getName() + " did not sell (Bad sell price)");
@@ -1174,100 +1160,65 @@ public class Ship extends Celestial {
                         /*
                          * This is stage 1, find the best deal.
                          */
-                        //get a list of friendly stations
-                        ArrayList<Station> friendly = new ArrayList<>();
-                        ArrayList<SolarSystem> zone = new ArrayList<>();
-                        for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-                            if (canJump(getUniverse().getSystems().get(a))) {
-                                ArrayList<Station> tmp = getDockableStationsInSystem(currentSystem.getUniverse().getSystems().get(a));
-                                zone.add(getUniverse().getSystems().get(a));
-                                friendly.addAll(tmp);
+                        //we know what is being consumed, since it's resources homebase needs
+                        ArrayList<ItemType> sample = new ArrayList<>();
+                        ArrayList<Item> made = homeBase.getStationBuying();
+                        for (int b = 0; b < made.size(); b++) {
+                            ItemType ware = made.get(b).getItemType();
+                            if (!sample.contains(ware)) {
+                                sample.add(ware);
                             }
                         }
-                        if (friendly.size() > 1) {
-                            //build a list of wares that are being produced
-                            ArrayList<String> produced = new ArrayList<>();
-                            for (int a = 0; a < friendly.size(); a++) {
-                                ArrayList<Item> made = friendly.get(a).getStationSelling();
-                                for (int b = 0; b < made.size(); b++) {
-                                    String ware = made.get(b).getName();
-                                    if (!produced.contains(ware)) {
-                                        produced.add(ware);
-                                    }
-                                }
-                            }
-                            //we know what is being consumed, since it's resources homebase needs
-                            ArrayList<String> consumed = new ArrayList<>();
-                            ArrayList<Item> made = homeBase.getStationBuying();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName();
-                                if (!consumed.contains(ware)) {
-                                    consumed.add(ware);
-                                }
-                            }
-                            //cross reference the lists to find what's the same in both
-                            ArrayList<String> sample = new ArrayList<>();
-                            for (int a = 0; a < consumed.size(); a++) {
-                                for (int b = 0; b < produced.size(); b++) {
-                                    if (consumed.get(a).equals(produced.get(b))) {
-                                        sample.add(consumed.get(a));
-                                        break;
-                                    }
-                                }
-                            }
-                            //make sure there's a sample
-                            if (sample.size() > 0) {
-                                Station buyLoc = null;
-                                Station sellLoc = null;
-                                Item bestWare = null;
-                                double gain = 0;
-                                for (int a = 0; a < sample.size(); a++) {
-                                    Item ware = new Item(sample.get(a));
-                                    //get the best stations
-                                    Station pickUp = getBestPickup(zone, ware);
-                                    //we always drop off at the home base
-                                    Station dropOff = homeBase;
-                                    //get prices
-                                    if (pickUp != null && dropOff != null) {
-                                        int pickUpPrice = pickUp.getPrice(ware);
-                                        int dropOffPrice = dropOff.getPrice(ware);
-                                        //find profit
-                                        int profit = dropOffPrice - pickUpPrice;
-                                        if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                            if (profit > 0) {
-                                                if (profit > gain) {
-                                                    buyLoc = pickUp;
-                                                    sellLoc = dropOff;
-                                                    bestWare = ware;
-                                                    //store prices
-                                                    gain = profit;
-                                                    buyFromPrice = pickUpPrice;
-                                                    sellToPrice = dropOffPrice;
-                                                }
-                                            } else {
-                                                //no point in trading this
+                        //make sure there's a sample
+                        if (sample.size() > 0) {
+                            Station buyLoc = null;
+                            Station sellLoc = null;
+                            Item bestWare = null;
+                            double gain = 0;
+                            for (int a = 0; a < sample.size(); a++) {
+                                Item ware = new Item(sample.get(a));
+                                //get the best stations
+                                Station pickUp = getBestPickup(ware, true);
+                                //we always drop off at the home base
+                                Station dropOff = homeBase;
+                                //get prices
+                                if (pickUp != null && dropOff != null) {
+                                    int pickUpPrice = pickUp.getPrice(ware);
+                                    int dropOffPrice = dropOff.getPrice(ware);
+                                    //find profit
+                                    int profit = dropOffPrice - pickUpPrice;
+                                    if (pickUpPrice != -1 && dropOffPrice != -1) {
+                                        if (profit > 0) {
+                                            if (profit > gain) {
+                                                buyLoc = pickUp;
+                                                sellLoc = dropOff;
+                                                bestWare = ware;
+                                                //store prices
+                                                gain = profit;
+                                                buyFromPrice = pickUpPrice;
+                                                sellToPrice = dropOffPrice;
                                             }
+                                        } else {
+                                            //no point in trading this
                                         }
-                                    } else {
-                                        //something went wrong
                                     }
+                                } else {
+                                    //something went wrong
                                 }
-                                if (bestWare != null) {
-                                    //store start and end
-                                    buyFromStation = buyLoc;
-                                    sellToStation = sellLoc;
-                                    workingWare = bestWare;
-                                    //start trading
-                                    if (canJump(buyFromStation.getCurrentSystem())) {
-                                        if (buyFromStation.getCurrentSystem() != currentSystem) {
-                                            cmdJump(buyFromStation.getCurrentSystem());
-                                        }
-                                        cmdDock(buyFromStation);
-                                    } else {
-                                        abortTrade();
+                            }
+                            if (bestWare != null) {
+                                //store start and end
+                                buyFromStation = buyLoc;
+                                sellToStation = sellLoc;
+                                workingWare = bestWare;
+                                //start trading
+                                if (canJump(buyFromStation.getCurrentSystem())) {
+                                    if (buyFromStation.getCurrentSystem() != currentSystem) {
+                                        cmdJump(buyFromStation.getCurrentSystem());
                                     }
+                                    cmdDock(buyFromStation);
                                 } else {
-                                    dockAtFriendlyStationInSystem();
+                                    abortTrade();
                                 }
                             } else {
                                 dockAtFriendlyStationInSystem();
@@ -1294,6 +1245,11 @@ public class Ship extends Celestial {
             } else {
                 //setup wait
                 if (autopilot == Autopilot.NONE && port != null) {
+                    if (thinking) {
+                        //buying and selling changes the station, act() comes back for it
+                        intend(Intent.trade(port.getParent(), Behavior.SUPPLY_HOMEBASE));
+                        return;
+                    }
                     //restore fuel
                     fuel = maxFuel;
                     //do buying and selling
@@ -1304,15 +1260,12 @@ public class Ship extends Celestial {
                                 && (sellToStation.getPrice(workingWare) >= sellToPrice)
                                 && canJump(sellToStation.getCurrentSystem())) {
                             //how much of the ware can we carry
-                            int maxQ = (int) (cargo - getBayUsed()) / Math.max(1, (int) workingWare.getVolume());
+                            int maxQ = getCargoRoomFor(workingWare);
                             //how much does the homebase need?
                             int needQ = 0;
-                            for (int v = 0; v < homeBase.getStationBuying().size(); v++) {
-                                if (homeBase.getStationBuying().get(v).getName().equals(workingWare.getName())) {
-                                    int have = homeBase.getStationBuying().get(v).getQuantity();
-                                    int store = homeBase.getStationBuying().get(v).getStore();
-                                    needQ = store - have;
-                                }
+                            Item wanted = homeBase.getMarket().getBuying(workingWare);
+                            if (wanted != null) {
+                                needQ = wanted.getStore() - wanted.getQuantity();
                             }
                             //don't get more than the station can use
                             if (maxQ > needQ) {
@@ -1337,8 +1290,8 @@ public class Ship extends Celestial {
                         if (curr.getPrice(workingWare) >= sellToPrice) {
                             //try to dump all our wares at this price
                             int q = getNumInCargoBay(workingWare);
-                            curr.sell(this, workingWare, q);
-                            System.out.println(getName() + " sold " + (q - getNumInCargoBay(workingWare))
+                            int numSold = curr.sell(this, workingWare, q);
+                            System.out.println(getName() + " sold " + numSold
                                     + " " + workingWare.getName() + " to " + curr.getName());
                         } else {
                             //System.out.println(getName() + " did not sell (Bad sell price)");
@@ -1438,9 +1391,10 @@ public class Ship extends Celestial {
         if (!docked) {
             if (autopilot == Autopilot.NONE && (fuel / maxFuel) > TRADER_REFUEL_PERCENT) {
                 /*
-                 * 1. Get a list of friendly stations to collate wares from
-                 * 2. Build a list of all wares that can be traded in jumpable sectors
-                 * 3. Find the one with the highest profit.
+                 * 1. Claim a route from the universe's route planner, limited
+                 * to friendly stations in jumpable sectors
+                 * 2. Check the route still pays at the live prices
+                 * 3. Go to the route's source.
                  * 4. Fill up on the ware.
                  * 5. Drop off the ware.
                  * repeat
@@ -1462,112 +1416,34 @@ public class Ship extends Celestial {
                     /*
                      * This is stage 1, find the best deal.
                      */
-                    //get a list of friendly stations
-                    ArrayList<Station> friendly = new ArrayList<>();
-                    ArrayList<SolarSystem> zone = new ArrayList<>();
-                    for (int a = 0; a < currentSystem.getUniverse().getSystems().size(); a++) {
-                        if (canJump(currentSystem.getUniverse().getSystems().get(a))) {
-                            ArrayList<Station> tmp = getDockableStationsInSystem(currentSystem.getUniverse().getSystems().get(a));
-                            zone.add(currentSystem.getUniverse().getSystems().get(a));
-                            friendly.addAll(tmp);
-                        }
-                    }
-                    if (friendly.size() > 1) {
-                        //build a list of wares that are being produced
-                        ArrayList<String> produced = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationSelling();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName();
-                                if (!produced.contains(ware)) {
-                                    produced.add(ware);
-                                }
-                            }
-                        }
-                        //build a list of wares that are being consumed
-                        ArrayList<String> consumed = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationBuying();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName();
-                                if (!consumed.contains(ware)) {
-                                    consumed.add(ware);
-                                }
-                            }
-                        }
-                        //cross reference the lists to find what's the same in both
-                        ArrayList<String> sample = new ArrayList<>();
-                        for (int a = 0; a < consumed.size(); a++) {
-                            for (int b = 0; b < produced.size(); b++) {
-                                if (consumed.get(a).equals(produced.get(b))) {
-                                    sample.add(consumed.get(a));
-                                    break;
-                                }
-                            }
-                        }
-                        //make sure there's a sample
-                        if (sample.size() > 0) {
-                            Station buyLoc = null;
-                            Station sellLoc = null;
-                            Item bestWare = null;
-                            double gain = 0;
-                            for (int a = 0; a < sample.size(); a++) {
-                                Item ware = new Item(sample.get(a));
-                                //get the best stations
-                                Station pickUp = getBestPickup(zone, ware);
-                                Station dropOff = getBestDropOff(zone, ware);
-                                //get prices
-                                if (pickUp != null && dropOff != null) {
-                                    int pickUpPrice = pickUp.getPrice(ware);
-                                    int dropOffPrice = dropOff.getPrice(ware);
-                                    //find profit
-                                    int profit = dropOffPrice - pickUpPrice;
-                                    if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                        if (profit > 0) {
-                                            if (profit > gain) {
-                                                buyLoc = pickUp;
-                                                sellLoc = dropOff;
-                                                bestWare = ware;
-                                                //store prices
-                                                gain = profit;
-                                                buyFromPrice = pickUpPrice;
-                                                sellToPrice = dropOffPrice;
-                                            }
-                                        } else {
-                                            //no point in trading this
-                                        }
-                                    }
-                                } else {
-                                    //something went wrong
-                                }
-                            }
-                            if (bestWare != null) {
-                                //store start and end
-                                buyFromStation = buyLoc;
-                                sellToStation = sellLoc;
-                                workingWare = bestWare;
-                                //start trading
-                                if (canJump(buyFromStation.getCurrentSystem())) {
-                                    if (buyFromStation.getCurrentSystem() != currentSystem) {
-                                        cmdJump(buyFromStation.getCurrentSystem());
-                                    }
-                                    cmdDock(buyFromStation);
-                                } else {
-                                    abortTrade();
-                                    leaveSystem();
-                                }
-                            } else {
-                                /*
-                                 * Universe traders roam the universe
-                                 */
-                                leaveSystem();
+                    //claim the best route not many others are working
+                    Route route = getUniverse().getRoutes().claim(this, tradeFilter(true));
+                    if (route != null) {
+                        Item ware = new Item(route.getWare());
+                        //the plan can lag, make sure the live prices still pay
+                        int pickUpPrice = route.getSource().getPrice(ware);
+                        int dropOffPrice = route.getSink().getPrice(ware);
+                        if (dropOffPrice - pickUpPrice > 0) {
+                            //store start and end
+                            buyFromStation = route.getSource();
+                            sellToStation = route.getSink();
+                            workingWare = ware;
+                            //store prices
+                            buyFromPrice = pickUpPrice;
+                            sellToPrice = dropOffPrice;
+                            //start trading
+                            if (buyFromStation.getCurrentSystem() != currentSystem) {
+                                cmdJump(buyFromStation.getCurrentSystem());
                             }
+                            cmdDock(buyFromStation);
                         } else {
-                            //maybe profit awaits us elsewhere
+                            abortTrade();
                             leaveSystem();
                         }
                     } else {
-                        //profit definately awaits us elsewhere
+                        /*
+                         * Universe traders roam the universe
+                         */
                         leaveSystem();
                     }
                 }
@@ -1589,6 +1465,11 @@ public class Ship extends Celestial {
         } else {
             //setup wait
             if (autopilot == Autopilot.NONE && getPort() != null) {
+                if (thinking) {
+                    //buying and selling changes the station, act() comes back for it
+                    intend(Intent.trade(getPort().getParent(), Behavior.UNIVERSE_TRADE));
+                    return;
+                }
                 //restore fuel
                 fuel = maxFuel;
                 //do buying and selling
@@ -1599,7 +1480,7 @@ public class Ship extends Celestial {
                             && (sellToStation.getPrice(workingWare) >= sellToPrice)
                             && canJump(sellToStation.getCurrentSystem())) {
                         //how much of the ware can we carry
-                        int maxQ = (int) (cargo - getBayUsed()) / Math.max(1, (int) workingWare.getVolume());
+                        int maxQ = getCargoRoomFor(workingWare);
                         //how much can we carry if we want to follow reserve rules
                         int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                         //buy as much as we can carry
@@ -1619,8 +1500,7 @@ public class Ship extends Celestial {
                     if (curr.getPrice(workingWare) >= sellToPrice) {
                         //try to dump all our wares at this price
                         int q = getNumInCargoBay(workingWare);
-                        curr.sell(this, workingWare, q);
-                        int numSold = q - getNumInCargoBay(workingWare);
+                        int numSold = curr.sell(this, workingWare, q);
                         System.out.println(getName() + " sold " + (numSold)
                                 + " " + workingWare.getName() + " to " + curr.getName());
                         if (numSold == 0) {
@@ -1633,6 +1513,8 @@ public class Ship extends Celestial {
                     }
                     //wait
                     if (getNumInCargoBay(workingWare) == 0) {
+                        //route done, let someone else have it
+                        getUniverse().getRoutes().release(this);
                         double diff = MAX_WAIT_TIME - MIN_WAIT_TIME;
                         double delt = rnd.nextDouble() * diff;
                         cmdWait(MIN_WAIT_TIME + delt);
@@ -1668,9 +1550,9 @@ public class Ship extends Celestial {
         if (!docked) {
             if (autopilot == Autopilot.NONE && (fuel / maxFuel) > TRADER_REFUEL_PERCENT) {
                 /*
-                 * 1. Get a list of friendly stations to collate wares from
-                 * 2. Build a list of all wares that can be traded in the
-                 * sector (a ware must have both a buyer and a seller)
+                 * 1. Ask the market book for the wares that are traded
+                 * 2. Find the best friendly stations in the sector for each
+                 * (a ware must have both a buyer and a seller)
                  * 3. Find the one with the highest profit.
                  * 4. Fill up on the ware.
                  * 5. Drop off the ware.
@@ -1685,89 +1567,51 @@ public class Ship extends Celestial {
                     /*
                      * This is stage 1, find the best deal.
                      */
-                    //get a list of friendly stations
-                    ArrayList<Station> friendly = getDockableStationsInSystem();
-                    if (friendly.size() > 1) {
-                        //build a list of wares that are being produced
-                        ArrayList<String> produced = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationSelling();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName();
-                                if (!produced.contains(ware)) {
-                                    produced.add(ware);
-                                }
-                            }
-                        }
-                        //build a list of wares that are being consumed
-                        ArrayList<String> consumed = new ArrayList<>();
-                        for (int a = 0; a < friendly.size(); a++) {
-                            ArrayList<Item> made = friendly.get(a).getStationBuying();
-                            for (int b = 0; b < made.size(); b++) {
-                                String ware = made.get(b).getName();
-                                if (!consumed.contains(ware)) {
-                                    consumed.add(ware);
-                                }
-                            }
-                        }
-                        //cross reference the lists to find what's the same in both
-                        ArrayList<String> sample = new ArrayList<>();
-                        for (int a = 0; a < consumed.size(); a++) {
-                            for (int b = 0; b < produced.size(); b++) {
-                                if (consumed.get(a).equals(produced.get(b))) {
-                                    sample.add(consumed.get(a));
-                                    break;
-                                }
-                            }
-                        }
-                        //make sure there's a sample
-                        if (sample.size() > 0) {
-                            Station buyLoc = null;
-                            Station sellLoc = null;
-                            Item bestWare = null;
-                            double gain = 0;
-                            for (int a = 0; a < sample.size(); a++) {
-                                Item ware = new Item(sample.get(a));
-                                //get the best stations
-                                ArrayList<SolarSystem> curr = new ArrayList<>();
-                                curr.add(currentSystem);
-                                Station pickUp = getBestPickup(curr, ware);
-                                Station dropOff = getBestDropOff(curr, ware);
-                                //get prices
-                                if (pickUp != null && dropOff != null) {
-                                    int pickUpPrice = pickUp.getPrice(ware);
-                                    int dropOffPrice = dropOff.getPrice(ware);
-                                    //find profit
-                                    int profit = dropOffPrice - pickUpPrice;
-                                    if (pickUpPrice != -1 && dropOffPrice != -1) {
-                                        if (profit > 0) {
-                                            if (profit > gain) {
-                                                buyLoc = pickUp;
-                                                sellLoc = dropOff;
-                                                bestWare = ware;
-                                                //store prices
-                                                gain = profit;
-                                                setBuyFromPrice(pickUpPrice);
-                                                setSellToPrice(dropOffPrice);
-                                            }
-                                        } else {
-                                            //no point in trading this
+                    //wares that are both bought and sold in this system
+                    ArrayList<ItemType> sample = getUniverse().getMarkets().getTradedWaresIn(currentSystem);
+                    //make sure there's a sample
+                    if (sample.size() > 0) {
+                        Station buyLoc = null;
+                        Station sellLoc = null;
+                        Item bestWare = null;
+                        double gain = 0;
+                        for (int a = 0; a < sample.size(); a++) {
+                            Item ware = new Item(sample.get(a));
+                            //get the best stations
+                            Station pickUp = getBestPickup(ware, false);
+                            Station dropOff = getBestDropOff(ware, false);
+                            //get prices
+                            if (pickUp != null && dropOff != null) {
+                                int pickUpPrice = pickUp.getPrice(ware);
+                                int dropOffPrice = dropOff.getPrice(ware);
+                                //find profit
+                                int profit = dropOffPrice - pickUpPrice;
+                                if (pickUpPrice != -1 && dropOffPrice != -1) {
+                                    if (profit > 0) {
+                                        if (profit > gain) {
+                                            buyLoc = pickUp;
+                                            sellLoc = dropOff;
+                                            bestWare = ware;
+                                            //store prices
+                                            gain = profit;
+                                            setBuyFromPrice(pickUpPrice);
+                                            setSellToPrice(dropOffPrice);
                                         }
+                                    } else {
+                                        //no point in trading this
                                     }
-                                } else {
-                                    //something went wrong
                                 }
-                            }
-                            if (bestWare != null) {
-                                //store start and end
-                                setBuyFromStation(buyLoc);
-                                setSellToStation(sellLoc);
-                                setWorkingWare(bestWare);
-                                //start trading
-                                cmdDock(getBuyFromStation());
                             } else {
-                                handleNoSectorTrades();
+                                //something went wrong
                             }
+                        }
+                        if (bestWare != null) {
+                            //store start and end
+                            setBuyFromStation(buyLoc);
+                            setSellToStation(sellLoc);
+                            setWorkingWare(bestWare);
+                            //start trading
+                            cmdDock(getBuyFromStation());
                         } else {
                             handleNoSectorTrades();
                         }
@@ -1792,6 +1636,11 @@ public class Ship extends Celestial {
             }
         } else {
             if (autopilot == Autopilot.NONE && getPort() != null) {
+                if (thinking) {
+                    //buying and selling changes the station, act() comes back for it
+                    intend(Intent.trade(getPort().getParent(), Behavior.SECTOR_TRADE));
+                    return;
+                }
                 //restore fuel
                 fuel = maxFuel;
                 //do buying and selling
@@ -1800,7 +1649,7 @@ public class Ship extends Celestial {
                     //make sure the price is still ok
                     if ((curr.getPrice(getWorkingWare()) <= getBuyFromPrice()) && (getSellToStation().getPrice(getWorkingWare()) >= getSellToPrice())) {
                         //how much of the ware can we carry
-                        int maxQ = (int) (cargo - getBayUsed()) / Math.max(1, (int) getWorkingWare().getVolume());
+                        int maxQ = getCargoRoomFor(getWorkingWare());
                         //how much can we carry if we want to follow reserve rules
                         int q = (int) ((1 - TRADER_RESERVE_PERCENT) * maxQ);
                         //buy as much as we can carry
@@ -1820,8 +1669,7 @@ public class Ship extends Celestial {
                     if (curr.getPrice(getWorkingWare()) >= getSellToPrice()) {
                         //try to dump all our wares at this price
                         int q = getNumInCargoBay(getWorkingWare());
-                        curr.sell(this, getWorkingWare(), q);
-                        int numSold = q - getNumInCargoBay(workingWare);
+                        int numSold = curr.sell(this, getWorkingWare(), q);
                         System.out.println(getName() + " sold " + (numSold)
                                 + " " + workingWare.getName() + " to " + curr.getName());
                         if (numSold == 0) {
@@ -1919,11 +1767,15 @@ public class Ship extends Celestial {
     private void oosAutopilot() {
         if (autopilot == Autopilot.NONE) {
         } else if (autopilot == Autopilot.FLY_TO_CELESTIAL) {
-            oosAutopilotFlyToCelestial();
+            if (!oosStartTrip()) {
+                oosAutopilotFlyToCelestial();
+            }
         } else if (autopilot == Autopilot.ALL_STOP) {
             oosAutopilotAllStop();
         } else if (autopilot == Autopilot.DOCK_STAGE1) {
-            oosAutopilotDockStageOne();
+            if (!oosStartTrip()) {
+                oosAutopilotDockStageOne();
+            }
         } else if (autopilot == Autopilot.DOCK_STAGE2) {
             oosAutopilotDockStageTwo();
         } else if (autopilot == Autopilot.UNDOCK) {
@@ -2270,6 +2122,103 @@ public class Ship extends Celestial {
         oosMoveToPositionWithHold(end, getFlightHold());
     }
 
+    /*
+     * Flying to something that isn't moving is just a straight line burn, so
+     * instead of stepping it every tick the whole trip is worked out once and
+     * the ship is parked on the system's arrival queue until it gets there.
+     * Returns false if the trip couldn't be planned, in which case the normal
+     * autopilot handles it.
+     */
+    private boolean oosStartTrip() {
+        if (flyToTarget == null || flyToTarget.getState() != State.ALIVE
+                || flyToTarget.getCurrentSystem() != currentSystem
+                || flyToTarget.getVelocity().lengthSquared() > 0) {
+            return false;
+        }
+        Vector3f end;
+        if (autopilot == Autopilot.FLY_TO_CELESTIAL) {
+            Vector3f loc = flyToTarget.getLocation();
+            if (loc.distance(getLocation()) < range) {
+                //already there
+                return false;
+            }
+            //stop inside the range
+            end = loc.add(getLocation().subtract(loc).normalizeLocal().multLocal(range / 2));
+        } else if (autopilot == Autopilot.DOCK_STAGE1 && getPort() != null) {
+            end = getPort().rawAlignPosition();
+            if (end.distance(getLocation()) < getPort().getSize() / 2) {
+                //already there
+                return false;
+            }
+        } else {
+            return false;
+        }
+        Trip tmp = Trip.plan(this, end, getFlightHold(), getAcceleration(),
+                Math.abs(getThrust() * burnMultiplier), fuel);
+        if (tmp == null) {
+            return false;
+        }
+        fuel -= tmp.getFuel();
+        trip = tmp;
+        currentSystem.scheduleArrival(tmp);
+        return true;
+    }
+
+    /*
+     * Takes the ship off its trip. If it arrived it is put at the end point at
+     * rest so the autopilot can finish up, otherwise it is put wherever it is
+     * along the way and gets back the fuel it didn't burn.
+     */
+    void endTrip(boolean arrived) {
+        Trip tmp = trip;
+        trip = null;
+        if (arrived) {
+            setLocation(tmp.getEnd());
+            setVelocity(new Vector3f(0, 0, 0));
+        } else {
+            setLocation(tmp.getLocation());
+            setVelocity(tmp.getVelocity());
+            fuel += tmp.getUnburnedFuel();
+        }
+    }
+
+    public Trip getTrip() {
+        return trip;
+    }
+
+    @Override
+    public Vector3f getLocation() {
+        if (trip != null) {
+            return trip.getLocation();
+        }
+        return super.getLocation();
+    }
+
+    @Override
+    public void setLocation(Vector3f loc) {
+        if (trip != null) {
+            //moved by something else, like a jump
+            endTrip(false);
+        }
+        super.setLocation(loc);
+    }
+
+    @Override
+    public Vector3f getVelocity() {
+        if (trip != null) {
+            return trip.getVelocity();
+        }
+        return super.getVelocity();
+    }
+
+    @Override
+    public void setVelocity(Vector3f velocity) {
+        if (trip != null) {
+            endTrip(false);
+        }
+        super.setVelocity(velocity);
+    }
+
     private void oosMoveToPositionWithHold(Vector3f end, float hold) {
         Vector3f b = end.clone();
         //see if we are there
@@ -2372,16 +2321,14 @@ public class Ship extends Celestial {
         updateHealth();
         //update conversation
         updateConversation();
-        //behave
-        behave();
+        //docked with nothing to do, sleep until given orders
+        if (docked && autopilot == Autopilot.NONE && behavior == Behavior.NONE) {
+            sleep(Double.POSITIVE_INFINITY);
+        }
     }
 
     private void doPlayerFaction() {
-        //sync standings
-        if (currentSystem.getUniverse() != null) {
-            faction = currentSystem.getUniverse().getPlayerShip().getFaction();
-            //messages = getUniverse().getPlayerShip().getMessages();
-        }
+        //standings are shared through the faction table, nothing to sync
         //update discovery
         ArrayList<Celestial> inRange = getCelestialsInSensorRange();
         for (int a = 0; a < inRange.size(); a++) {
@@ -2479,7 +2426,8 @@ public class Ship extends Celestial {
         if (getLastBlow().getFaction().getName().equals(Faction.PLAYER)) {
             //adjust the player's standings accordingly
             if (!faction.getName().equals("Neutral")) {
-                getCurrentSystem().getUniverse().getPlayerShip().getFaction().derivedModification(faction, Faction.SHIP_KILL_PENALTY);
+                final Universe universe = getCurrentSystem().getUniverse();
+                getCurrentSystem().changePlayer(() -> universe.getPlayerShip().getFaction().derivedModification(faction, Faction.SHIP_KILL_PENALTY));
             }
         }
     }
@@ -2502,8 +2450,6 @@ public class Ship extends Celestial {
             updateNozzles();
             syncPhysics();
             centerEngineNoise();
-            //turret control
-            updateTurrets();
         }
     }
 
@@ -2633,7 +2579,8 @@ public class Ship extends Celestial {
         }
     }
 
-    protected void updateTurrets() {
+    protected void aimTurrets() {
+        //picks targets, the shots are intents
         ArrayList<Ship> hostiles = getHostileShipsInSensorRange();
         for (int a = 0; a < hardpoints.size(); a++) {
             Hardpoint h = hardpoints.get(a);
@@ -2662,7 +2609,7 @@ public class Ship extends Celestial {
                             }
                         }
                         if (t != null) {
-                            w.activate(t);
+                            intend(Intent.fire(w, t));
                         }
                     }
                 }
@@ -2677,10 +2624,18 @@ public class Ship extends Celestial {
     protected void oosAlive() {
         super.oosAlive();
         aliveAlways();
-        oosAutopilot();
-        //update position
-        Vector3f dP = getVelocity().mult((float) tpf);
-        setLocation(getLocation().add(dP));
+        if (trip != null && !trip.isStillValid()) {
+            //changed our mind
+            endTrip(false);
+        }
+        if (trip == null) {
+            oosAutopilot();
+        }
+        if (trip == null) {
+            //update position
+            Vector3f dP = getVelocity().mult((float) tpf);
+            setLocation(getLocation().add(dP));
+        }
     }
 
     @Override
@@ -2977,6 +2932,40 @@ public class Ship extends Celestial {
         return true;
     }
 
+    public int addToCargoBay(Item item, int quantity) {
+        /*
+         * Puts up to quantity units of an item in the cargo bay at once and
+         * returns how many fit.
+         */
+        int fit = Math.min(quantity, getCargoRoomFor(item));
+        if (fit <= 0) {
+            return 0;
+        }
+        if (cargoBay.contains(item)) {
+            item.setQuantity(item.getQuantity() + fit);
+        } else {
+            item.setQuantity(fit);
+            cargoBay.add(item);
+        }
+        return fit;
+    }
+
+    public int getCargoRoomFor(Item item) {
+        /*
+         * How many more units of an item fit. Same rule as adding them one
+         * by one, a unit only goes in while the free volume is more than it.
+         */
+        double free = cargo - getBayUsed();
+        double unit = item.getItemType().getVolume();
+        if (free <= 0) {
+            return 0;
+        } else if (unit <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        double fit = Math.ceil(free / unit) - 1;
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, fit));
+    }
+
     public boolean addAllToCargoBay(ArrayList<Item> items) {
         if (items != null) {
             boolean addedRange = true;
@@ -3000,6 +2989,28 @@ public class Ship extends Celestial {
         }
     }
 
+    public int removeFromCargoBay(Item ware, int quantity) {
+        /*
+         * Takes up to quantity units of a ware out of whatever stacks hold it
+         * and returns how many came out.
+         */
+        int left = quantity;
+        for (int a = 0; a < cargoBay.size() && left > 0; a++) {
+            Item tmp = cargoBay.get(a);
+            if (tmp.isSameWare(ware)) {
+                int take = Math.min(left, tmp.getQuantity());
+                left -= take;
+                if (take >= tmp.getQuantity()) {
+                    cargoBay.remove(a);
+                    a--;
+                } else {
+                    tmp.setQuantity(tmp.getQuantity() - take);
+                }
+            }
+        }
+        return quantity - left;
+    }
+
     public void removeAllFromCargoBay() {
         for (int a = 0; a < cargoBay.size(); a++) {
             removeFromCargoBay(cargoBay.get(a));
@@ -3336,14 +3347,14 @@ public class Ship extends Celestial {
     }
 
     public int getStandingsToMe(Faction test) {
-        return (int) faction.getStanding(test.getName());
+        return (int) faction.getStanding(test);
     }
 
     public int getStandingsToMe(Ship ship) {
         if (ship.getFaction().getName().equals(Faction.PLAYER)) {
-            return (int) ship.getFaction().getStanding(getFaction().getName());
+            return (int) ship.getFaction().getStanding(getFaction());
         } else {
-            return (int) faction.getStanding(ship.getFaction().getName());
+            return (int) faction.getStanding(ship.getFaction());
         }
     }
 
@@ -3367,67 +3378,40 @@ public class Ship extends Celestial {
 
     public void setFaction(Faction faction) {
         this.faction = faction;
+        reindex();
     }
 
     /*
      * Trading Helpers
      */
-    public Station getBestDropOff(ArrayList<SolarSystem> systems, Item ware) {
-        Station ret;
-        {
-            Station bStation = null;
-            int bPrice = 0;
-            for (int b = 0; b < systems.size(); b++) {
-                ArrayList<Station> friendly = getDockableStationsInSystem(systems.get(b));
-                if (friendly.size() > 0) {
-                    for (int a = 0; a < friendly.size(); a++) {
-                        Station test = friendly.get(a);
-                        if (test.buysWare(ware)) {
-                            if (bStation == null) {
-                                bStation = test;
-                                bPrice = test.getPrice(ware);
-                            } else {
-                                int nP = test.getPrice(ware);
-                                if (nP > bPrice) {
-                                    bStation = test;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            ret = bStation;
+    public Station getBestDropOff(Item ware, boolean jump) {
+        //the reachable station paying the most for the ware
+        if (!jump) {
+            //only this system's listings need walking
+            return getUniverse().getMarkets().getBestBidIn(currentSystem, ware, tradeFilter(false));
         }
-        return ret;
+        return getUniverse().getMarkets().getBestBid(ware, tradeFilter(true));
     }
 
-    public Station getBestPickup(ArrayList<SolarSystem> systems, Item ware) {
-        Station ret;
-        {
-            Station bStation = null;
-            int bPrice = 0;
-            for (int b = 0; b < systems.size(); b++) {
-                ArrayList<Station> friendly = getDockableStationsInSystem(systems.get(b));
-                if (friendly.size() > 0) {
-                    for (int a = 0; a < friendly.size(); a++) {
-                        Station test = friendly.get(a);
-                        if (test.sellsWare(ware)) {
-                            if (bStation == null) {
-                                bStation = test;
-                                bPrice = test.getPrice(ware);
-                            } else {
-                                int nP = test.getPrice(ware);
-                                if (nP < bPrice) {
-                                    bStation = test;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            ret = bStation;
+    public Station getBestPickup(Item ware, boolean jump) {
+        //the reachable station charging the least for the ware
+        if (!jump) {
+            //only this system's listings need walking
+            return getUniverse().getMarkets().getBestAskIn(currentSystem, ware, tradeFilter(false));
         }
-        return ret;
+        return getUniverse().getMarkets().getBestAsk(ware, tradeFilter(true));
+    }
+
+    private SpatialGrid.Filter tradeFilter(boolean jump) {
+        //stations we can dock at, in jump range or in this system only
+        return (Entity test) -> {
+            Station station = (Station) test;
+            SolarSystem system = station.getCurrentSystem();
+            if (jump ? !canJump(system) : system != currentSystem) {
+                return false;
+            }
+            return station.canDock(this);
+        };
     }
 
     /*
@@ -3442,6 +3426,8 @@ public class Ship extends Celestial {
 
     public void setAutopilot(Autopilot autopilot) {
         this.autopilot = autopilot;
+        //new orders
+        wake();
     }
 
     public Autopilot getAutopilotBackup() {
@@ -3458,6 +3444,8 @@ public class Ship extends Celestial {
 
     public void setBehavior(Behavior behavior) {
         this.behavior = behavior;
+        wake();
+        reindex();
     }
 
     private void dockAtFriendlyStationInSystem() {
@@ -3485,6 +3473,7 @@ public class Ship extends Celestial {
     private void abortTrade() {
         //end trade
         autopilot = Autopilot.NONE;
+        releaseRoute();
         setBuyFromStation(null);
         setSellToStation(null);
         setWorkingWare(null);
@@ -3495,8 +3484,7 @@ public class Ship extends Celestial {
     public void cmdAbort() {
         setAutopilot(Autopilot.NONE);
         if (getPort() != null) {
-            getPort().release();
-            setPort(null);
+            releasePort();
         }
         throttle = 0;
         pitch = 0;
@@ -3507,21 +3495,34 @@ public class Ship extends Celestial {
     public void cmdAllStop() {
         setAutopilot(Autopilot.ALL_STOP);
         if (getPort() != null) {
-            getPort().release();
-            setPort(null);
+            releasePort();
         }
     }
 
     public void cmdAbortDock() {
         cmdAbort();
         if (getPort() != null) {
+            releasePort();
+        }
+    }
+
+    private void releasePort() {
+        if (thinking) {
+            //the port belongs to the station
+            intend(Intent.release(getPort()));
+        } else {
             getPort().release();
-            setPort(null);
         }
+        setPort(null);
     }
 
     public void cmdDock(Station pick) {
         if (!docked) {
+            if (thinking) {
+                //reserving a port changes the station
+                intend(Intent.dock(pick));
+                return;
+            }
             //TODO: Make this a real behavior
             setPort(pick.requestDockingPort(this));
             if (getPort() != null) {
@@ -3535,6 +3536,15 @@ public class Ship extends Celestial {
         autopilot = Autopilot.WAIT;
         waitTimerLength = duration;
         waitTimer = 0;
+        if (docked) {
+            //nothing to do until the wait is over
+            if (thinking) {
+                //sleeping sets an alarm on the system
+                intend(Intent.sleep(duration));
+            } else {
+                sleep(duration);
+            }
+        }
     }
 
     public void cmdFightTarget(Ship pick) {
@@ -3570,22 +3580,28 @@ public class Ship extends Celestial {
 
     public void cmdJump(SolarSystem pick) {
         if (canJump(pick)) {
-            Random rnd = new Random();
+            if (thinking) {
+                //moves us between systems
+                intend(Intent.jump(pick));
+                return;
+            }
             //drop jump effect
             dropJumpEffect();
             //determine fuel cost
             double fuelCost = getJumpFuelCost(pick);
             //deduct fuel
             fuel -= fuelCost;
-            //pull from old system
-            currentSystem.pullEntityFromSystem(this);
             //randomize location
             float x = rnd.nextInt(60000 * 2) - 60000;
             float y = rnd.nextInt(60000 * 2) - 60000;
             float z = rnd.nextInt(60000 * 2) - 60000;
-            setLocation(new Vector3f(x, y, z));
-            //put in new system
-            pick.putEntityInSystem(this);
+            Vector3f arrival = new Vector3f(x, y, z);
+            //wait for the merge if systems are being updated in parallel
+            if (currentSystem.deferTransfer(this, pick, arrival)) {
+                return;
+            }
+            //move to the new system
+            pick.jumpEntityInto(this, arrival);
             //drop the jump effect
             dropJumpEffect();
         }
@@ -3791,110 +3807,29 @@ public class Ship extends Celestial {
     }
 
     public void targetNearestShip() {
-        //get a list of all nearby ships
-        ArrayList<Entity> nearby = getCurrentSystem().getShipList();
-        ArrayList<Ship> ships = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            if (nearby.get(a) instanceof Ship) {
-                Ship tmp = (Ship) nearby.get(a);
-                if (tmp != this) {
-                    //make sure it is alive
-                    if (tmp.getState() == State.ALIVE) {
-                        //make sure it is in range
-                        if (tmp.getLocation().distance(getLocation()) < getSensor()) {
-                            ships.add(tmp);
-                        }
-                    }
-                }
-            }
-        }
-        //target the nearest one
-        Ship closest = null;
-        for (int a = 0; a < ships.size(); a++) {
-            if (closest == null) {
-                closest = ships.get(a);
-            } else {
-                double distClosest = closest.getLocation().distance(getLocation());
-                double distTest = ships.get(a).getLocation().distance(getLocation());
-                if (distTest < distClosest) {
-                    closest = ships.get(a);
-                }
-            }
-        }
-        //store
-        target = closest;
+        //nearest living ship in sensor range
+        target = getCurrentSystem().getGrid().getNearest(getLocation(), getSensor(), Ship.class,
+                (Entity test) -> test != this && !(test instanceof Station) && test.getState() == State.ALIVE);
     }
 
     public void targetNearestNeutralShip() {
-        target = null;
-        //get a list of all nearby ships
-        ArrayList<Ship> nearby = getShipsInSensorRange();
-        ArrayList<Ship> neutrals = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Ship tmp = (Ship) nearby.get(a);
-            if (nearby.get(a) instanceof Ship) {
-                if (tmp != this) {
-                    //make sure it is alive and isn't docked
-                    if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
-                        //check standings
-                        if (tmp.isNeutralToMe(this)) {
-                            neutrals.add(tmp);
-                        }
-                    }
-                }
-            }
-        }
-        //target the nearest one
-        Ship closest = null;
-        for (int a = 0; a < neutrals.size(); a++) {
-            if (closest == null) {
-                closest = neutrals.get(a);
-            } else {
-                double distClosest = closest.getLocation().distance(getLocation());
-                double distTest = neutrals.get(a).getLocation().distance(getLocation());
-                if (distTest < distClosest) {
-                    closest = neutrals.get(a);
-                }
-            }
-        }
-        //store
-        target = closest;
+        //nearest living neutral ship in sensor range that isn't docked
+        target = getCurrentSystem().getGrid().getNearest(getLocation(), getSensor(), Ship.class,
+                (Entity test) -> {
+                    Ship tmp = (Ship) test;
+                    return tmp != this && tmp.getState() == State.ALIVE && !tmp.isDocked()
+                            && tmp.isNeutralToMe(this);
+                });
     }
 
     public void targetNearestFriendlyShip() {
-        target = null;
-        //get a list of all nearby ships
-        ArrayList<Ship> nearby = getShipsInSensorRange();
-        ArrayList<Ship> friendlies = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Ship tmp = (Ship) nearby.get(a);
-            if (nearby.get(a) instanceof Ship) {
-                if (tmp != this) {
-                    //make sure it is alive and isn't docked
-                    if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
-                        //check standings
-                        if (tmp.isFriendlyToMe(this)) {
-                            friendlies.add(tmp);
-                        }
-                    }
-                }
-            }
-        }
-        //target the nearest one
-        Ship closest = null;
-        for (int a = 0; a < friendlies.size(); a++) {
-            if (closest == null) {
-                closest = friendlies.get(a);
-            } else {
-                double distClosest = closest.getLocation().distance(getLocation());
-                double distTest = friendlies.get(a).getLocation().distance(getLocation());
-                if (distTest < distClosest) {
-                    closest = friendlies.get(a);
-                }
-            }
-        }
-        //store
-        target = closest;
+        //nearest living friendly ship in sensor range that isn't docked
+        target = getCurrentSystem().getGrid().getNearest(getLocation(), getSensor(), Ship.class,
+                (Entity test) -> {
+                    Ship tmp = (Ship) test;
+                    return tmp != this && tmp.getState() == State.ALIVE && !tmp.isDocked()
+                            && tmp.isFriendlyToMe(this);
+                });
     }
 
     public void targetNearestHostileShip() {
@@ -3935,106 +3870,152 @@ public class Ship extends Celestial {
     }
 
     public void targetNearestHostileStation() {
-        target = null;
-        Station closest = null;
-        //get a list of all nearby hostiles
-        ArrayList<Entity> nearby = getCurrentSystem().getStationList();
-        ArrayList<Station> hostiles = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Station tmp = (Station) nearby.get(a);
-            //make sure it is in range
-            if (distanceTo(tmp) < getSensor()) {
-                //make sure it is alive
-                if (tmp.getState() == State.ALIVE) {
-                    //check standings
-                    if (tmp.isHostileToMe(this)) {
-                        hostiles.add(tmp);
-                    }
-                }
-            }
+        //nearest living hostile station in sensor range
+        target = getCurrentSystem().getGrid().getNearest(getLocation(), getSensor(), Station.class,
+                (Entity test) -> test.getState() == State.ALIVE && ((Station) test).isHostileToMe(this));
+    }
+
+    /*
+     * Sense phase. Takes a snapshot of the ships in sensor range so the update
+     * can use it without searching the system again. Ships that didn't look at
+     * their sensors last tick skip this and search on demand instead.
+     */
+    @Override
+    public void sense(float tpf) {
+        if (sensorsUsed && getState() == State.ALIVE && currentSystem != null) {
+            sensorsUsed = false;
+            sensedShips = scanShipsInSensorRange();
+            sensedHostiles = scanHostilesInSensorRange();
+            sensedSystem = currentSystem;
+            sensedClock = currentSystem.getClock();
+        } else {
+            sensedSystem = null;
         }
-        //target the nearest one
-        if (hostiles.size() > 0) {
-            closest = hostiles.get(0);
-            for (int a = 0; a < hostiles.size(); a++) {
-                if (closest == null) {
-                    closest = hostiles.get(a);
-                } else {
-                    double distClosest = distanceTo(closest);
-                    double distTest = distanceTo(hostiles.get(a));
-                    if (distTest < distClosest) {
-                        closest = hostiles.get(a);
-                    }
+    }
+
+    /*
+     * Think phase. Runs the behaviors and aims the turrets on what was sensed.
+     * Orders that only change this ship are given right away. Docking,
+     * jumping, trading and firing change other things, so they are kept as
+     * intents and carried out by act().
+     */
+    @Override
+    public void think(float tpf) {
+        if (intents == null) {
+            intents = new ArrayList<>();
+        }
+        intents.clear();
+        if (getState() == State.ALIVE && currentSystem != null) {
+            thinking = true;
+            try {
+                behave();
+                if (physicsSafe()) {
+                    aimTurrets();
                 }
+            } finally {
+                thinking = false;
             }
-        } else {
-            //nothing to target
         }
-        //store
-        target = closest;
     }
 
-    public ArrayList<Ship> getShipsInSensorRange() {
-        ArrayList<Ship> ret = new ArrayList<>();
-        {
-            //get ship list
-            ArrayList<Entity> ships = currentSystem.getShipList();
-            for (int a = 0; a < ships.size(); a++) {
-                Ship tmp = (Ship) ships.get(a);
-                if (tmp != this) {
-                    if (tmp.getLocation().distance(getLocation()) < sensor) {
-                        ret.add(tmp);
+    @Override
+    public void act(float tpf) {
+        if (intents == null || intents.isEmpty()) {
+            return;
+        }
+        ArrayList<Intent> todo = new ArrayList<>(intents);
+        intents.clear();
+        for (int a = 0; a < todo.size() && getState() == State.ALIVE; a++) {
+            Intent intent = todo.get(a);
+            if (intent.getType() == Intent.Type.FIRE) {
+                //the target may have died or left since
+                Ship t = intent.getTarget();
+                if (t.getState() == State.ALIVE && t.getCurrentSystem() == currentSystem && physicsSafe()) {
+                    intent.getWeapon().activate(t);
+                }
+            } else if (intent.getType() == Intent.Type.DOCK) {
+                cmdDock(intent.getStation());
+            } else if (intent.getType() == Intent.Type.RELEASE) {
+                //unless someone else has it by now
+                if (intent.getPort().getClient() == this) {
+                    intent.getPort().release();
+                }
+            } else if (intent.getType() == Intent.Type.JUMP) {
+                cmdJump(intent.getSystem());
+            } else if (intent.getType() == Intent.Type.TRADE) {
+                if (docked && getPort() != null && getPort().getParent() == intent.getStation()) {
+                    //run the behavior's docked step for real
+                    Behavior tmp = intent.getBehavior();
+                    if (tmp == Behavior.REPRESENT_HOMEBASE) {
+                        behaviorRepresentHomeBase();
+                    } else if (tmp == Behavior.SUPPLY_HOMEBASE) {
+                        behaviorSupplyHomeBase();
+                    } else if (tmp == Behavior.UNIVERSE_TRADE) {
+                        behaviorUniverseTrade();
+                    } else if (tmp == Behavior.SECTOR_TRADE) {
+                        behaviorSectorTrade();
                     }
                 }
-            }
-            //get station list
-            ArrayList<Entity> stations = currentSystem.getStationList();
-            for (int a = 0; a < stations.size(); a++) {
-                Station tmp = (Station) stations.get(a);
-                if (tmp.getLocation().distance(getLocation()) < sensor) {
-                    ret.add(tmp);
+            } else if (intent.getType() == Intent.Type.SLEEP) {
+                if (docked) {
+                    sleep(intent.getDuration());
                 }
             }
         }
-        return ret;
     }
 
-    public ArrayList<Celestial> getCelestialsInSensorRange() {
-        ArrayList<Celestial> ret = new ArrayList<>();
-        {
-            ArrayList<Entity> entities = getCurrentSystem().getCelestials();
-            for (int a = 0; a < entities.size(); a++) {
-                if (entities.get(a) instanceof Celestial) {
-                    Celestial tmp = (Celestial) entities.get(a);
-                    if (inSensorRange(tmp)) {
-                        ret.add(tmp);
-                    }
+    private void intend(Intent intent) {
+        intents.add(intent);
+    }
+
+    private boolean hasSensed() {
+        sensorsUsed = true;
+        return sensedSystem != null && sensedSystem == currentSystem
+                && sensedClock == currentSystem.getClock();
+    }
+
+    public ArrayList<Ship> getShipsInSensorRange() {
+        if (hasSensed()) {
+            ArrayList<Ship> ret = new ArrayList<>();
+            for (int a = 0; a < sensedShips.size(); a++) {
+                //leave out anything that left since
+                if (sensedShips.get(a).getCurrentSystem() == currentSystem) {
+                    ret.add(sensedShips.get(a));
                 }
             }
+            return ret;
         }
-        return ret;
+        return scanShipsInSensorRange();
+    }
+
+    private ArrayList<Ship> scanShipsInSensorRange() {
+        //ships and stations
+        return currentSystem.getGrid().getInRange(getLocation(), sensor, Ship.class,
+                (Entity test) -> test != this);
+    }
+
+    public ArrayList<Celestial> getCelestialsInSensorRange() {
+        return getCurrentSystem().getGrid().getInRange(getLocation(), sensor, Celestial.class, null);
     }
 
     public ArrayList<Ship> getHostileShipsInSensorRange() {
-        //get a list of all nearby ships
-        ArrayList<Ship> nearby = getShipsInSensorRange();
-        ArrayList<Ship> hostiles = new ArrayList<>();
-        for (int a = 0; a < nearby.size(); a++) {
-            Ship tmp = (Ship) nearby.get(a);
-            if (nearby.get(a) instanceof Ship) {
-                if (tmp != this) {
-                    //make sure it is alive and isn't docked
-                    if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
-                        //check standings
-                        if (tmp.isHostileToMe(this)) {
-                            hostiles.add(tmp);
-                        }
-                    }
+        if (hasSensed()) {
+            ArrayList<Ship> ret = new ArrayList<>();
+            for (int a = 0; a < sensedHostiles.size(); a++) {
+                //leave out anything that died or left since
+                Ship tmp = sensedHostiles.get(a);
+                if (tmp.getState() == State.ALIVE && tmp.getCurrentSystem() == currentSystem) {
+                    ret.add(tmp);
                 }
             }
+            return ret;
         }
+        return scanHostilesInSensorRange();
+    }
 
-        return hostiles;
+    private ArrayList<Ship> scanHostilesInSensorRange() {
+        //read from the system's faction partitions
+        return currentSystem.getHostilities().getHostilesInRange(this, getLocation(), sensor);
     }
 
     public ArrayList<Station> getDockableStationsInSystem() {
@@ -4287,12 +4268,21 @@ public class Ship extends Celestial {
         if (faction.getName().equals(Faction.PLAYER)) {
             /*stopSound(notifyMessage);
              playSound(notifyMessage);*/
-            if (this == getUniverse().getPlayerShip()) {
-                //add to que
-                messages.add(message);
+            //the sender may be on a worker, the player's list is shared
+            SolarSystem from = message.getSender() == null ? null : message.getSender().getCurrentSystem();
+            Runnable deliver = () -> {
+                if (this == getUniverse().getPlayerShip()) {
+                    //add to que
+                    messages.add(message);
+                } else {
+                    //forward
+                    getUniverse().getPlayerShip().receiveMessage(message);
+                }
+            };
+            if (from != null) {
+                from.changePlayer(deliver);
             } else {
-                //forward
-                getUniverse().getPlayerShip().receiveMessage(message);
+                deliver.run();
             }
             return true;
         } else {
@@ -4381,6 +4371,30 @@ public class Ship extends Celestial {
 
     public void setTemplate(String template) {
         this.template = template;
+        reindex();
+    }
+
+    @Override
+    public void setState(State state) {
+        super.setState(state);
+        reindex();
+        if (state != State.ALIVE) {
+            releaseRoute();
+        }
+    }
+
+    private void releaseRoute() {
+        //give up any claimed trade route
+        if (getCurrentSystem() != null) {
+            getCurrentSystem().getUniverse().getRoutes().release(this);
+        }
+    }
+
+    private void reindex() {
+        //keep the universe index filed under what this ship is now
+        if (getCurrentSystem() != null) {
+            getCurrentSystem().getUniverse().getIndex().refresh(this);
+        }
     }
 
     /*
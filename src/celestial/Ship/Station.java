@@ -35,12 +35,12 @@ import com.jme3.bullet.util.CollisionShapeFactory;
 import com.jme3.material.Material;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Random;
 import lib.Faction;
 import lib.astral.Parser;
 import lib.astral.Parser.Term;
+import universe.GameEvent.TradeExecuted;
 import universe.Universe;
 
 /**
@@ -49,14 +49,12 @@ import universe.Universe;
  */
 public class Station extends Ship {
 
-    private static final int AUTOCALCULATE_PRICE = -1;
     //market
 
     protected ArrayList<Item> stationSelling = new ArrayList<>();
     protected ArrayList<Item> stationBuying = new ArrayList<>();
-    //optional static pricing
-    private final ArrayList<ItemPrice> sellingPrice = new ArrayList<>();
-    private final ArrayList<ItemPrice> buyingPrice = new ArrayList<>();
+    //lookups and optional static pricing by ware id
+    private StationMarket market;
     //docking
     protected ArrayList<DockingPort> ports = new ArrayList<>();
     //manufacturing
@@ -141,6 +139,17 @@ public class Station extends Ship {
         updateEconomics();
     }
 
+    @Override
+    protected void dyingAlways() {
+        super.dyingAlways();
+        //docked ships need to notice they have nowhere to be docked
+        for (int a = 0; a < ports.size(); a++) {
+            if (ports.get(a).getClient() != null) {
+                ports.get(a).getClient().wake();
+            }
+        }
+    }
+
     /*
      * OOS Updates
      */
@@ -199,7 +208,8 @@ public class Station extends Ship {
         if (getLastBlow().getFaction().getName().equals(Faction.PLAYER)) {
             //adjust the player's standings accordingly
             if (!faction.getName().equals("Neutral")) {
-                getCurrentSystem().getUniverse().getPlayerShip().getFaction().derivedModification(faction, Faction.STATION_KILL_PENALTY);
+                final Universe universe = getCurrentSystem().getUniverse();
+                getCurrentSystem().changePlayer(() -> universe.getPlayerShip().getFaction().derivedModification(faction, Faction.STATION_KILL_PENALTY));
             }
         }
     }
@@ -250,7 +260,7 @@ public class Station extends Ship {
             //do not do this
             economyExempt = false;
         } else {
-            randomizeInitialGoods(new Random().nextInt());
+            randomizeInitialGoods(rnd.nextInt());
             String status = relevant.getValue("economyExempt");
             if (status != null) {
                 economyExempt = Boolean.parseBoolean(status);
@@ -272,229 +282,172 @@ public class Station extends Ship {
         return stationBuying;
     }
 
-    public void buy(Ship ship, Item item, int quantity) {
+    /*
+     * Trades are worked out in bulk. The quantity that can change hands is
+     * found once from the stock, the buyer's cash and the room on the other
+     * side, then everything moves in one step with one trade event.
+     */
+    public int buy(Ship ship, Item item, int quantity) {
         //get current offer
         int price = getPrice(item);
-        Item tmp = new Item(item.getName());
-        //repeat buy procedure
-        for (int lx = 0; lx < quantity; lx++) {
-            Item rel = null;
-            //validate the item is available
-            for (int a = 0; a < stationSelling.size(); a++) {
-                if (stationSelling.get(a).getName().equals(item.getName())) {
-                    //make sure there is something available
-                    if (stationSelling.get(a).getQuantity() > 0) {
-                        rel = stationSelling.get(a);
-                    }
-                    break;
-                }
-            }
-            if (rel != null) {
-                //validate the player can cover the charge
-                if (ship.getCash() - price >= 0) {
-                    //branch based on regular item or ship
-                    if (rel.getType().equals("ship")) {
-                        /*
-                         * This one is a little more complicated.
-                         */
-                        //make a ship
-                        Parser t = Universe.getCache().getShipCache();
-                        ArrayList<Term> list = t.getTermsOfType("Ship");
-                        Term hull = null;
-                        for (int a = 0; a < list.size(); a++) {
-                            if (list.get(a).getValue("type").equals(item.getName())) {
-                                hull = list.get(a);
-                                break;
-                            }
-                        }
-
-                        //create ship
-                        Ship newShip = new Ship(getCurrentSystem().getUniverse(), hull, Faction.PLAYER);
-                        newShip.setName("Your " + item.getName());
-                        //find an open hanger
-                        DockingPort pick = null;
-                        for (int a = 0; a < ports.size(); a++) {
-                            if (ports.get(a).isEmpty()) {
-                                //got one
-                                pick = ports.get(a);
-                                break;
-                            }
-                        }
-                        if (pick != null) {
-                            //decrement stocks
-                            rel.setQuantity(rel.getQuantity() - 1);
-                            //drop it in the current solar system
-                            newShip.setCurrentSystem(currentSystem);
-                            currentSystem.putEntityInSystem(newShip);
-                            //drop it in that port
-                            pick.setClient(newShip);
-                            newShip.setPort(pick);
-                            //allow the port to naturally pick it up when it collides
-                            newShip.setPhysicsLocation(pick.getNode().getWorldTranslation());
-                            newShip.setAutopilot(Autopilot.DOCK_STAGE2);
-                            //transfer funds
-                            ship.setCash(ship.getCash() - price);
-                            setCash(getCash() + price);
-                            //make sure it doesn't have funds
-                            newShip.setCash(0);
-                        }
-                    } else {
-                        /*
-                         * This is pretty simple
-                         */
-                        //attempt transfer of item
-                        if (ship.addToCargoBay(tmp)) {
-                            //decrement stocks
-                            rel.setQuantity(rel.getQuantity() - 1);
-                            //transfer funds
-                            ship.setCash(ship.getCash() - price);
-                            setCash(getCash() + price);
-                            //adjust standings
-                            if (ship.getFaction().getName().equals(Faction.PLAYER)) {
-                                double scaler = ship.getStandingsToMe(this) / (double) Faction.PERMA_GREEN;
-                                double delta = price * Faction.MARKET_DELTA * Math.abs(scaler);
-                                getCurrentSystem().getUniverse().getPlayerShip().getFaction().derivedModification(faction, delta);
-                            }
-                        }
+        Item offer = getMarket().getSelling(item);
+        int traded = 0;
+        if (offer != null && quantity > 0) {
+            //branch based on regular item or ship
+            if (offer.getType().equals("ship")) {
+                traded = buyShips(ship, item, offer, quantity, price);
+            } else {
+                //as much as is in stock, paid for and fits in the bay
+                int q = Math.min(quantity, offer.getQuantity());
+                q = Math.min(q, affordable(ship.getCash(), price));
+                traded = ship.addToCargoBay(new Item(item.getItemType().getId()), q);
+                if (traded > 0) {
+                    //decrement stocks
+                    getMarket().stock(offer, offer.getQuantity() - traded);
+                    //transfer funds
+                    ship.setCash(ship.getCash() - (long) price * traded);
+                    setCash(getCash() + (long) price * traded);
+                    //adjust standings
+                    if (ship.getFaction().getName().equals(Faction.PLAYER)) {
+                        double scaler = ship.getStandingsToMe(this) / (double) Faction.PERMA_GREEN;
+                        double delta = traded * price * Faction.MARKET_DELTA * Math.abs(scaler);
+                        final Universe universe = getCurrentSystem().getUniverse();
+                        getCurrentSystem().changePlayer(() -> universe.getPlayerShip().getFaction().derivedModification(faction, delta));
                     }
                 }
             }
         }
+        publishTrade(ship, item, traded, price, true);
+        return traded;
     }
 
-    public void sell(Ship ship, Item item, int quantity) {
-        //get current offer
-        int price = getPrice(item);
-        //repeat sell procedure
+    private int buyShips(Ship ship, Item item, Item offer, int quantity, int price) {
+        /*
+         * Each ship needs a free port, so these are still bought one at a
+         * time.
+         */
+        int traded = 0;
         for (int lx = 0; lx < quantity; lx++) {
-            Item rel = null;
-            //validate the item is in the cargo bay
-            for (int a = 0; a < ship.getCargoBay().size(); a++) {
-                if (ship.getCargoBay().get(a).getName().equals(item.getName())) {
-                    rel = ship.getCargoBay().get(a);
+            //make sure there is something available and it is paid for
+            if (offer.getQuantity() <= 0 || ship.getCash() - price < 0) {
+                break;
+            }
+            //make a ship
+            Parser t = Universe.getCache().getShipCache();
+            ArrayList<Term> list = t.getTermsOfType("Ship");
+            Term hull = null;
+            for (int a = 0; a < list.size(); a++) {
+                if (list.get(a).getValue("type").equals(item.getName())) {
+                    hull = list.get(a);
                     break;
                 }
             }
-            if (rel != null) {
-                //send to station
-                for (int a = 0; a < getStationBuying().size(); a++) {
-                    //make sure station can cover it
-                    if (getCash() - price >= 0) {
-                        if (rel.getName().equals(getStationBuying().get(a).getName())) {
-                            getStationBuying().get(a).setQuantity(getStationBuying().get(a).getQuantity() + 1);
-                            //remove from cargo
-                            ship.removeFromCargoBay(rel);
-                            //pay the ship
-                            ship.setCash(ship.getCash() + price);
-                            //remove funds from station wallet
-                            setCash(getCash() - price);
-                            break;
-                        }
-                    }
+
+            //create ship
+            Ship newShip = new Ship(getCurrentSystem().getUniverse(), hull, Faction.PLAYER);
+            newShip.setName("Your " + item.getName());
+            //find an open hanger
+            DockingPort pick = null;
+            for (int a = 0; a < ports.size(); a++) {
+                if (ports.get(a).isEmpty()) {
+                    //got one
+                    pick = ports.get(a);
+                    break;
                 }
             }
+            if (pick == null) {
+                //nowhere to put any more
+                break;
+            }
+            //decrement stocks
+            getMarket().stock(offer, offer.getQuantity() - 1);
+            //drop it in the current solar system
+            newShip.setCurrentSystem(currentSystem);
+            currentSystem.putEntityInSystem(newShip);
+            //drop it in that port
+            pick.setClient(newShip);
+            newShip.setPort(pick);
+            //allow the port to naturally pick it up when it collides
+            newShip.setPhysicsLocation(pick.getNode().getWorldTranslation());
+            newShip.setAutopilot(Autopilot.DOCK_STAGE2);
+            //transfer funds
+            ship.setCash(ship.getCash() - price);
+            setCash(getCash() + price);
+            //make sure it doesn't have funds
+            newShip.setCash(0);
+            traded++;
+        }
+        return traded;
+    }
+
+    public int sell(Ship ship, Item item, int quantity) {
+        //get current offer
+        int price = getPrice(item);
+        Item wanted = getMarket().getBuying(item);
+        int traded = 0;
+        if (wanted != null && quantity > 0) {
+            //as much as the station can pay for, the bay gives up the rest
+            int q = Math.min(quantity, affordable(getCash(), price));
+            traded = ship.removeFromCargoBay(item, q);
+            if (traded > 0) {
+                //send to station
+                getMarket().stock(wanted, wanted.getQuantity() + traded);
+                //pay the ship
+                ship.setCash(ship.getCash() + (long) price * traded);
+                //remove funds from station wallet
+                setCash(getCash() - (long) price * traded);
+            }
         }
+        publishTrade(ship, item, traded, price, false);
+        return traded;
     }
 
-    public boolean buysWare(Item ware) {
-        {
-            for (int a = 0; a < stationBuying.size(); a++) {
-                if (stationBuying.get(a).getName().equals(ware.getName())) {
-                    return true;
-                }
-            }
+    private static int affordable(long cash, int price) {
+        //units a wallet covers at a price
+        if (cash < 0) {
+            return 0;
+        } else if (price <= 0) {
+            return Integer.MAX_VALUE;
         }
-        return false;
+        return (int) Math.min(Integer.MAX_VALUE, cash / price);
     }
 
-    public boolean sellsWare(Item ware) {
-        {
-            for (int a = 0; a < stationSelling.size(); a++) {
-                if (stationSelling.get(a).getName().equals(ware.getName())) {
-                    return true;
-                }
-            }
+    private void publishTrade(Ship ship, Item item, int traded, int price, boolean bought) {
+        if (traded > 0 && getCurrentSystem() != null) {
+            getCurrentSystem().getUniverse().getEvents().publish(new TradeExecuted(getCurrentSystem(),
+                    this, ship, item, traded, price, bought));
         }
-        return false;
     }
 
-    public int getPrice(Item item) {
-        int max = 0;
-        int min = 0;
-        int q = 0;
-        int s = 1;
-        //get the right commodity
-        boolean found = false;
-        for (int a = 0; a < stationBuying.size(); a++) {
-            if (stationBuying.get(a).getName().equals(item.getName())) {
-                //return the static price if it is set
-                try {
-                    if (getStaticBuyPrice(item) != AUTOCALCULATE_PRICE) {
-                        return getStaticBuyPrice(item);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+    public boolean buysWare(Item ware) {
+        return getMarket().buys(ware);
+    }
 
-                //get info we need to calculate the price
-                max = stationBuying.get(a).getMaxPrice();
-                min = stationBuying.get(a).getMinPrice();
-                q = stationBuying.get(a).getQuantity();
-                s = stationBuying.get(a).getStore();
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            for (int a = 0; a < stationSelling.size(); a++) {
-                if (stationSelling.get(a).getName().equals(item.getName())) {
-                    //return the static price if it is set
-                    try {
-                        if (getStaticSellPrice(item) != AUTOCALCULATE_PRICE) {
-                            return getStaticSellPrice(item);
-                        }
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
-                    //get info we need to calculate the price
-                    max = stationSelling.get(a).getMaxPrice();
-                    min = stationSelling.get(a).getMinPrice();
-                    q = stationSelling.get(a).getQuantity();
-                    s = stationSelling.get(a).getStore();
-                    found = true;
-                    break;
-                }
-            }
-        }
+    public boolean sellsWare(Item ware) {
+        return getMarket().sells(ware);
+    }
 
-        //return 0 if nothing was found
-        if (!found) {
-            return 0;
-        }
+    public int getPrice(Item item) {
+        return getMarket().getPrice(item);
+    }
 
-        //calculate price using linear elasticity
-        int d = max - min;
-        float per = (float) q / (float) s;
-        int x = (int) (d * (1 - per));
-        int price = min + x;
-        if (price < min) {
-            price = min;
-        } else if (price > max) {
-            price = max;
+    public StationMarket getMarket() {
+        if (market == null) {
+            market = new StationMarket(this, stationBuying, stationSelling);
         }
-        return price;
+        return market;
     }
 
     protected void randomizeInitialGoods(int seed) {
         Random rnd = new Random(seed);
         if (stationSelling.size() > 0) {
             for (int a = 0; a < stationSelling.size(); a++) {
-                stationSelling.get(a).setQuantity(rnd.nextInt(stationSelling.get(a).getStore()));
+                getMarket().stock(stationSelling.get(a), rnd.nextInt(stationSelling.get(a).getStore()));
             }
         }
         if (stationBuying.size() > 0) {
             for (int a = 0; a < stationBuying.size(); a++) {
-                stationBuying.get(a).setQuantity(rnd.nextInt(stationBuying.get(a).getStore()));
+                getMarket().stock(stationBuying.get(a), rnd.nextInt(stationBuying.get(a).getStore()));
             }
         }
     }
@@ -513,14 +466,8 @@ public class Station extends Ship {
             }
         }
 
-        //sets up initial prices
-        for (int a = 0; a < stationSelling.size(); a++) {
-            sellingPrice.add(new ItemPrice(stationSelling.get(a), AUTOCALCULATE_PRICE));
-        }
-
-        for (int a = 0; a < stationBuying.size(); a++) {
-            buyingPrice.add(new ItemPrice(stationBuying.get(a), AUTOCALCULATE_PRICE));
-        }
+        //index the market now the lists are known
+        market = new StationMarket(this, stationBuying, stationSelling);
     }
 
     public ArrayList<Job> getJobs() {
@@ -556,10 +503,10 @@ public class Station extends Ship {
     public void clearWares() {
         setCash(0);
         for (int a = 0; a < stationSelling.size(); a++) {
-            stationSelling.get(a).setQuantity(0);
+            getMarket().stock(stationSelling.get(a), 0);
         }
         for (int a = 0; a < stationBuying.size(); a++) {
-            stationBuying.get(a).setQuantity(0);
+            getMarket().stock(stationBuying.get(a), 0);
         }
         economyExempt = false;
     }
@@ -606,89 +553,30 @@ public class Station extends Ship {
      */
 
     public int getStaticBuyPrice(Item ware) throws Exception {
-        for (int a = 0; a < buyingPrice.size(); a++) {
-            if (buyingPrice.get(a).getItem().getName().equals(ware.getName())) {
-                return buyingPrice.get(a).getPrice();
-            }
+        Integer price = getMarket().getStaticBuyPrice(ware);
+        if (price == null) {
+            throw new Exception("Station does not buy item " + ware);
         }
-
-        throw new Exception("Station does not buy item " + ware);
+        return price;
     }
 
     public void setStaticBuyPrice(Item ware, int price) throws Exception {
-        if (price != AUTOCALCULATE_PRICE) {
-            //lock price in range
-            if (price < ware.getMinPrice()) {
-                price = ware.getMinPrice();
-            }
-
-            if (price > ware.getMaxPrice()) {
-                price = ware.getMaxPrice();
-            }
-        }
-
-        for (int a = 0; a < buyingPrice.size(); a++) {
-            if (buyingPrice.get(a).getItem().getName().equals(ware.getName())) {
-                buyingPrice.get(a).setPrice(price);
-                return;
-            }
+        if (!getMarket().setStaticBuyPrice(ware, price)) {
+            throw new Exception("Station does not buy item " + ware);
         }
-
-        throw new Exception("Station does not buy item " + ware);
     }
 
     public int getStaticSellPrice(Item ware) throws Exception {
-        for (int a = 0; a < sellingPrice.size(); a++) {
-            if (sellingPrice.get(a).getItem().getName().equals(ware.getName())) {
-                return sellingPrice.get(a).getPrice();
-            }
+        Integer price = getMarket().getStaticSellPrice(ware);
+        if (price == null) {
+            throw new Exception("Station does not buy sell " + ware);
         }
-
-        throw new Exception("Station does not buy sell " + ware);
+        return price;
     }
 
     public void setStaticSellPrice(Item ware, int price) throws Exception {
-        if (price != AUTOCALCULATE_PRICE) {
-            //lock price in range
-            if (price < ware.getMinPrice()) {
-                price = ware.getMinPrice();
-            }
-
-            if (price > ware.getMaxPrice()) {
-                price = ware.getMaxPrice();
-            }
-        }
-
-        for (int a = 0; a < sellingPrice.size(); a++) {
-            if (sellingPrice.get(a).getItem().getName().equals(ware.getName())) {
-                sellingPrice.get(a).setPrice(price);
-                return;
-            }
-        }
-
-        throw new Exception("Station does not buy sell " + ware);
-    }
-
-    private class ItemPrice implements Serializable {
-
-        private final Item item;
-        private int price;
-
-        public ItemPrice(Item item, int price) {
-            this.item = item;
-            this.price = price;
-        }
-
-        public Item getItem() {
-            return item;
-        }
-
-        public int getPrice() {
-            return price;
-        }
-
-        public void setPrice(int price) {
-            this.price = price;
+        if (!getMarket().setStaticSellPrice(ware, price)) {
+            throw new Exception("Station does not buy sell " + ware);
         }
     }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * A station's market laid out by ware id. For each ware the station trades
+ * it knows which row of the buying or selling list holds it, the stats the
+ * price is worked out from and any static price the owner set, so asking
+ * whether a ware is traded or what it costs doesn't search anything.
+ *
+ * Quantities stay on the Items in the lists. Anything that changes how much
+ * of a ware the station holds goes through stock(), so the universe's market
+ * book hears about the new price. The lists only grow while the station is
+ * being set up, and the index is redone if it notices they changed size.
+ */
+package celestial.Ship;
+
+import cargo.Item;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import universe.MarketBook;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class StationMarket implements Serializable {
+
+    public static final int AUTOCALCULATE_PRICE = -1;
+    private static final int NONE = -1;
+    private final Station host;
+    private final ArrayList<Item> buying;
+    private final ArrayList<Item> selling;
+    private int indexedBuying = -1;
+    private int indexedSelling = -1;
+    //rows in the lists by ware id, NONE if not traded
+    private int[] buyRow = new int[0];
+    private int[] sellRow = new int[0];
+    //price inputs by ware id
+    private int[] minPrice = new int[0];
+    private int[] maxPrice = new int[0];
+    private int[] store = new int[0];
+    //static prices by ware id, AUTOCALCULATE_PRICE when not set
+    private int[] buyPrice = new int[0];
+    private int[] sellPrice = new int[0];
+    //book this station is listed in, if any
+    private transient MarketBook book;
+
+    public StationMarket(Station host, ArrayList<Item> buying, ArrayList<Item> selling) {
+        this.host = host;
+        this.buying = buying;
+        this.selling = selling;
+        index();
+    }
+
+    private void index() {
+        int size = Universe.getCache().getWares().size();
+        int[] oldBuyPrice = buyPrice;
+        int[] oldSellPrice = sellPrice;
+        buyRow = new int[size];
+        sellRow = new int[size];
+        minPrice = new int[size];
+        maxPrice = new int[size];
+        store = new int[size];
+        buyPrice = new int[size];
+        sellPrice = new int[size];
+        Arrays.fill(buyRow, NONE);
+        Arrays.fill(sellRow, NONE);
+        Arrays.fill(buyPrice, AUTOCALCULATE_PRICE);
+        Arrays.fill(sellPrice, AUTOCALCULATE_PRICE);
+        //keep prices that were already set
+        System.arraycopy(oldBuyPrice, 0, buyPrice, 0, Math.min(size, oldBuyPrice.length));
+        System.arraycopy(oldSellPrice, 0, sellPrice, 0, Math.min(size, oldSellPrice.length));
+        //the first row of a ware wins, like the searches did
+        for (int a = selling.size() - 1; a >= 0; a--) {
+            int id = file(selling.get(a));
+            sellRow[id] = a;
+        }
+        for (int a = buying.size() - 1; a >= 0; a--) {
+            int id = file(buying.get(a));
+            buyRow[id] = a;
+        }
+        indexedBuying = buying.size();
+        indexedSelling = selling.size();
+        if (book != null) {
+            book.relist(host);
+        }
+    }
+
+    private int file(Item item) {
+        int id = item.getItemType().getId();
+        minPrice[id] = item.getMinPrice();
+        maxPrice[id] = item.getMaxPrice();
+        store[id] = item.getStore();
+        return id;
+    }
+
+    private int idOf(Item item) {
+        if (indexedBuying != buying.size() || indexedSelling != selling.size()) {
+            index();
+        }
+        int id = item.getItemType().getId();
+        if (id >= buyRow.length) {
+            //a ware that turned up after the index was made
+            index();
+            if (id >= buyRow.length) {
+                return NONE;
+            }
+        }
+        return id;
+    }
+
+    /*
+     * Lookups
+     */
+    public boolean buys(Item ware) {
+        int id = idOf(ware);
+        return id != NONE && buyRow[id] != NONE;
+    }
+
+    public boolean sells(Item ware) {
+        int id = idOf(ware);
+        return id != NONE && sellRow[id] != NONE;
+    }
+
+    public Item getBuying(Item ware) {
+        int id = idOf(ware);
+        if (id == NONE || buyRow[id] == NONE) {
+            return null;
+        }
+        return buying.get(buyRow[id]);
+    }
+
+    public Item getSelling(Item ware) {
+        int id = idOf(ware);
+        if (id == NONE || sellRow[id] == NONE) {
+            return null;
+        }
+        return selling.get(sellRow[id]);
+    }
+
+    /*
+     * Prices
+     */
+    public int getPrice(Item ware) {
+        int id = idOf(ware);
+        if (id == NONE) {
+            return 0;
+        }
+        return getPrice(id);
+    }
+
+    public int getPrice(int id) {
+        if (id < 0 || id >= buyRow.length) {
+            return 0;
+        }
+        int q;
+        if (buyRow[id] != NONE) {
+            if (buyPrice[id] != AUTOCALCULATE_PRICE) {
+                return buyPrice[id];
+            }
+            q = buying.get(buyRow[id]).getQuantity();
+        } else if (sellRow[id] != NONE) {
+            if (sellPrice[id] != AUTOCALCULATE_PRICE) {
+                return sellPrice[id];
+            }
+            q = selling.get(sellRow[id]).getQuantity();
+        } else {
+            //return 0 if nothing was found
+            return 0;
+        }
+        //calculate price using linear elasticity
+        int min = minPrice[id];
+        int max = maxPrice[id];
+        int d = max - min;
+        float per = (float) q / (float) store[id];
+        int x = (int) (d * (1 - per));
+        int price = min + x;
+        if (price < min) {
+            price = min;
+        } else if (price > max) {
+            price = max;
+        }
+        return price;
+    }
+
+    /*
+     * Static prices. The getters return null and the setters false when the
+     * station doesn't trade the ware that way.
+     */
+    public Integer getStaticBuyPrice(Item ware) {
+        int id = idOf(ware);
+        if (id == NONE || buyRow[id] == NONE) {
+            return null;
+        }
+        return buyPrice[id];
+    }
+
+    public Integer getStaticSellPrice(Item ware) {
+        int id = idOf(ware);
+        if (id == NONE || sellRow[id] == NONE) {
+            return null;
+        }
+        return sellPrice[id];
+    }
+
+    public boolean setStaticBuyPrice(Item ware, int price) {
+        int id = idOf(ware);
+        if (id == NONE || buyRow[id] == NONE) {
+            return false;
+        }
+        buyPrice[id] = clamp(id, price);
+        changed(id);
+        return true;
+    }
+
+    public boolean setStaticSellPrice(Item ware, int price) {
+        int id = idOf(ware);
+        if (id == NONE || sellRow[id] == NONE) {
+            return false;
+        }
+        sellPrice[id] = clamp(id, price);
+        changed(id);
+        return true;
+    }
+
+    /*
+     * Stock
+     */
+    public void stock(Item row, int quantity) {
+        //sets how much of a ware one of the lists holds
+        row.setQuantity(quantity);
+        changed(row.getItemType().getId());
+    }
+
+    public boolean isBuying(int id) {
+        return id >= 0 && id < buyRow.length && buyRow[id] != NONE;
+    }
+
+    public boolean isSelling(int id) {
+        return id >= 0 && id < sellRow.length && sellRow[id] != NONE;
+    }
+
+    public void setBook(MarketBook book) {
+        this.book = book;
+    }
+
+    private void changed(int id) {
+        if (book != null) {
+            book.update(host, id);
+        }
+    }
+
+    private int clamp(int id, int price) {
+        if (price != AUTOCALCULATE_PRICE) {
+            //lock price in range
+            if (price < minPrice[id]) {
+                price = minPrice[id];
+            }
+            if (price > maxPrice[id]) {
+                price = maxPrice[id];
+            }
+        }
+        return price;
+    }
+}
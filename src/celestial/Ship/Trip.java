@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * A straight line trip an out of system ship has committed to. The whole burn
+ * is worked out once when the trip starts (speed up, coast, slow down) so the
+ * ship can be left alone until it arrives instead of being stepped every tick.
+ * Position and velocity are only calculated when something asks for them.
+ */
+package celestial.Ship;
+
+import celestial.Celestial;
+import celestial.Ship.Ship.Autopilot;
+import com.jme3.math.Vector3f;
+import java.io.Serializable;
+import universe.SolarSystem;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Trip implements Comparable<Trip>, Serializable {
+
+    private final Ship ship;
+    private final SolarSystem system;
+    //what the ship was doing when it committed
+    private final Autopilot autopilot;
+    private final Celestial target;
+    //path
+    private final Vector3f start;
+    private final Vector3f end;
+    private final Vector3f dir;
+    private final float length;
+    //profile
+    private final double depart;
+    private final double arrival;
+    private final float accel;
+    private final float startSpeed;
+    private final float peakSpeed;
+    private final float rampTime; //getting from start speed to peak
+    private final float rampDistance;
+    private final float coastTime;
+    private final float brakeTime;
+    //fuel used per second of burning
+    private final float burnRate;
+
+    private Trip(Ship ship, SolarSystem system, Vector3f start, Vector3f end, float startSpeed,
+            float peakSpeed, float accel, float burnRate) {
+        this.ship = ship;
+        this.system = system;
+        this.autopilot = ship.getAutopilot();
+        this.target = ship.getFlyToTarget();
+        this.start = start;
+        this.end = end;
+        this.length = end.distance(start);
+        this.dir = end.subtract(start).normalizeLocal();
+        this.depart = system.getClock();
+        this.startSpeed = startSpeed;
+        this.peakSpeed = peakSpeed;
+        this.accel = accel;
+        this.burnRate = burnRate;
+        //work out the phases
+        rampTime = Math.abs(peakSpeed - startSpeed) / accel;
+        rampDistance = (startSpeed + peakSpeed) / 2f * rampTime;
+        brakeTime = peakSpeed / accel;
+        float brakeDistance = peakSpeed * peakSpeed / (2 * accel);
+        float coastDistance = Math.max(0, length - rampDistance - brakeDistance);
+        coastTime = peakSpeed > 0 ? coastDistance / peakSpeed : 0;
+        arrival = depart + rampTime + coastTime + brakeTime;
+    }
+
+    /*
+     * Plans a trip from where the ship is now to a point it should come to a
+     * stop at. Returns null if the ship can't make it in a straight line, either
+     * because it is already moving too fast to stop in time or because it
+     * doesn't have the fuel for the burn. Those cases are left to the tick by
+     * tick autopilot.
+     */
+    public static Trip plan(Ship ship, Vector3f end, float maxSpeed, float accel, float burnRate, float fuel) {
+        SolarSystem system = ship.getCurrentSystem();
+        if (system == null || accel <= 0 || Float.isNaN(maxSpeed) || maxSpeed <= 0) {
+            return null;
+        }
+        Vector3f start = ship.getLocation();
+        float length = end.distance(start);
+        if (length == 0) {
+            return null;
+        }
+        //only the speed towards the end point carries over
+        Vector3f dir = end.subtract(start).normalizeLocal();
+        float startSpeed = Math.max(0, ship.getVelocity().dot(dir));
+        if (startSpeed * startSpeed / (2 * accel) > length) {
+            //would overshoot
+            return null;
+        }
+        //fastest we can go and still stop at the end
+        float peak = (float) Math.sqrt((2 * accel * length + startSpeed * startSpeed) / 2);
+        if (peak > maxSpeed) {
+            peak = maxSpeed;
+        }
+        Trip tmp = new Trip(ship, system, start, end, startSpeed, peak, accel, burnRate);
+        if (tmp.getFuel() > fuel) {
+            return null;
+        }
+        return tmp;
+    }
+
+    private float distanceAt(float t) {
+        if (t <= 0) {
+            return 0;
+        } else if (t < rampTime) {
+            float a = peakSpeed >= startSpeed ? accel : -accel;
+            return startSpeed * t + 0.5f * a * t * t;
+        } else if (t < rampTime + coastTime) {
+            return rampDistance + peakSpeed * (t - rampTime);
+        } else if (t < rampTime + coastTime + brakeTime) {
+            float u = t - rampTime - coastTime;
+            return rampDistance + peakSpeed * coastTime + peakSpeed * u - 0.5f * accel * u * u;
+        } else {
+            return length;
+        }
+    }
+
+    private float speedAt(float t) {
+        if (t <= 0) {
+            return startSpeed;
+        } else if (t < rampTime) {
+            float a = peakSpeed >= startSpeed ? accel : -accel;
+            return startSpeed + a * t;
+        } else if (t < rampTime + coastTime) {
+            return peakSpeed;
+        } else if (t < rampTime + coastTime + brakeTime) {
+            return peakSpeed - accel * (t - rampTime - coastTime);
+        } else {
+            return 0;
+        }
+    }
+
+    private float burnTimeAt(float t) {
+        //the engines only fire while ramping and braking
+        float burn = Math.min(Math.max(t, 0), rampTime);
+        if (t > rampTime + coastTime) {
+            burn += Math.min(t - rampTime - coastTime, brakeTime);
+        }
+        return burn;
+    }
+
+    private float elapsed() {
+        return (float) (system.getClock() - depart);
+    }
+
+    public Vector3f getLocation() {
+        return start.add(dir.mult(Math.min(distanceAt(elapsed()), length)));
+    }
+
+    public Vector3f getVelocity() {
+        return dir.mult(speedAt(elapsed()));
+    }
+
+    public Vector3f getEnd() {
+        return end.clone();
+    }
+
+    public double getArrival() {
+        return arrival;
+    }
+
+    /*
+     * Total fuel for the burn, taken from the ship up front.
+     */
+    public float getFuel() {
+        return burnRate * (rampTime + brakeTime);
+    }
+
+    /*
+     * Fuel that hasn't been burned yet, given back if the trip is cut short.
+     */
+    public float getUnburnedFuel() {
+        return burnRate * (rampTime + brakeTime - burnTimeAt(elapsed()));
+    }
+
+    /*
+     * Checks whether the ship still wants to make this trip.
+     */
+    public boolean isStillValid() {
+        return ship.getAutopilot() == autopilot
+                && ship.getFlyToTarget() == target
+                && target != null
+                && target.getState() == Celestial.State.ALIVE
+                && target.getCurrentSystem() == system;
+    }
+
+    /*
+     * Called by the solar system once the clock has passed the arrival time,
+     * or when the system has to have real positions again. Trips that were
+     * already canceled are ignored.
+     */
+    public void finish() {
+        if (ship.getTrip() == this) {
+            ship.endTrip(system.getClock() >= arrival);
+        }
+    }
+
+    @Override
+    public int compareTo(Trip o) {
+        return Double.compare(arrival, o.arrival);
+    }
+}
@@ -32,6 +32,7 @@ import com.jme3.asset.AssetManager;
 import com.jme3.audio.AudioNode;
 import com.jme3.audio.Listener;
 import com.jme3.bullet.BulletAppState;
+import com.jme3.bullet.PhysicsSpace;
 import com.jme3.input.InputManager;
 import com.jme3.input.KeyInput;
 import com.jme3.input.MouseInput;
@@ -55,6 +56,7 @@ import com.jme3.system.AppSettings;
 import entity.Entity;
 import entity.Entity.State;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -66,6 +68,8 @@ import lib.astral.AstralIO;
 import lib.astral.AstralIO.Everything;
 import lib.astral.Parser;
 import lib.astral.Parser.Term;
+import org.bushe.swing.event.EventSubscriber;
+import universe.GameEvent.SoundQueued;
 import universe.SolarSystem;
 import universe.Universe;
 
@@ -90,6 +94,31 @@ public class Core {
     private Universe universe;
 
     God god;
+    private final SystemUpdater systemUpdater = new SystemUpdater();
+    private final RenderInterpolator interpolator = new RenderInterpolator();
+    //time compression
+    private static final int MAX_PHYSICS_SUBSTEPS = 64;
+    private static final float SIMULATION_SHARE = 0.5f;
+    private float[] compressionLevels = {1, 2, 5, 10, 20};
+    private int compressionLevel = 0;
+    private float effectiveCompression = 1;
+    private long lastSimulationTime = 0;
+    //fixed step simulation
+    private int maxSteps = 4;
+    private float accumulator = 0;
+    //new game warm up
+    private float warmUpHours = 1;
+    private float warmUpTpf = 0.5f;
+    private WarmUp warmUp;
+    private Term newGameTerm;
+    //deterministic record and replay
+    private float fixedTick = DEFAULT_TICK;
+    private boolean recordInput = false;
+    private InputLog inputLog;
+    private boolean replaying = false;
+    private long frame = 0;
+    private long simulationTotal = 0;
+    private long simulationPeak = 0;
 
     //nodes
     Node rootNode;
@@ -106,9 +135,17 @@ public class Core {
     InputManager input;
     Listener listener;
     private float tpf;
+    //ships waiting to have their sound queues played
+    private final ArrayList<Ship> audible = new ArrayList<>();
+    private final EventSubscriber<SoundQueued> soundListener = (SoundQueued event) -> {
+        if (!audible.contains(event.getShip())) {
+            audible.add(event.getShip());
+        }
+    };
 
     //render safety
     boolean hudRendering = false;
+    private Thread hudThread;
     boolean hasFocus = true;
 
     //music
@@ -166,6 +203,8 @@ public class Core {
         this.rootNode = rootNode;
         this.guiNode = guiNode;
         this.bulletAppState = bulletAppState;
+        //physics is stepped with the simulation in doSpaceUpdate()
+        bulletAppState.setEnabled(false);
         this.assets = assets;
         this.planetAppState = planetAppState;
 
@@ -174,6 +213,8 @@ public class Core {
         this.listener = listener;
         //load controls
         loadControls();
+        //load simulation settings
+        loadSimulation();
         //initialize
         init();
     }
@@ -332,6 +373,146 @@ public class Core {
         }
     }
 
+    private void loadSimulation() {
+        /*
+         * Optional tuning for the out of system simulation. Older payload
+         * files will not have this mapper, in which case the defaults stand.
+         */
+        try {
+            Parser p = new Parser(AstralIO.getPayloadFile(), false);
+            ArrayList<Term> maps = p.getTermsOfType("Mapper");
+            for (int a = 0; a < maps.size(); a++) {
+                Term map = maps.get(a);
+                if (map.getValue("name").equals("Simulation")) {
+                    String parallelString = map.getValue("parallel_oos");
+                    if (parallelString != null) {
+                        systemUpdater.setParallel(Boolean.parseBoolean(parallelString.trim()));
+                    }
+                    //tiers by jump distance from the player
+                    String distanceString = map.getValue("tier_distance");
+                    String intervalString = map.getValue("tier_interval");
+                    if (distanceString != null && intervalString != null) {
+                        systemUpdater.setTiers(parseIntList(distanceString), parseIntList(intervalString));
+                    }
+                    String budgetString = map.getValue("oos_budget");
+                    if (budgetString != null) {
+                        systemUpdater.setBudget(Float.parseFloat(budgetString.trim()));
+                    }
+                    String stepString = map.getValue("oos_max_step");
+                    if (stepString != null) {
+                        systemUpdater.setMaxStep(Float.parseFloat(stepString.trim()));
+                    }
+                    //new game warm up
+                    String warmUpString = map.getValue("warmup_hours");
+                    if (warmUpString != null) {
+                        warmUpHours = Float.parseFloat(warmUpString.trim());
+                    }
+                    String warmUpTpfString = map.getValue("warmup_tpf");
+                    if (warmUpTpfString != null) {
+                        warmUpTpf = Float.parseFloat(warmUpTpfString.trim());
+                    }
+                    //fixed step simulation
+                    String maxStepsString = map.getValue("max_steps");
+                    if (maxStepsString != null) {
+                        maxSteps = Math.max(1, Integer.parseInt(maxStepsString.trim()));
+                    }
+                    //deterministic mode, a seed makes every run the same
+                    String seedString = map.getValue("seed");
+                    if (seedString != null) {
+                        Rng.setMasterSeed(Long.parseLong(seedString.trim()));
+                    }
+                    String tickString = map.getValue("fixed_tpf");
+                    if (tickString != null) {
+                        fixedTick = Float.parseFloat(tickString.trim());
+                    }
+                    String recordString = map.getValue("record_input");
+                    if (recordString != null) {
+                        recordInput = Boolean.parseBoolean(recordString.trim());
+                    }
+                    //time compression
+                    String levelString = map.getValue("compression_levels");
+                    if (levelString != null) {
+                        int[] levels = parseIntList(levelString);
+                        compressionLevels = new float[levels.length];
+                        for (int b = 0; b < levels.length; b++) {
+                            compressionLevels[b] = Math.max(1, levels[b]);
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Failed to load simulation settings, using defaults.");
+            e.printStackTrace();
+        }
+        System.out.println("Parallel out of system simulation: " + systemUpdater.isParallel());
+        if (Rng.isDeterministic()) {
+            System.out.println("Deterministic mode, seed " + Rng.getMasterSeed() + ", tick " + fixedTick);
+            if (recordInput) {
+                try {
+                    inputLog = InputLog.record(AstralIO.getSaveDir() + "input.log", Rng.getMasterSeed(), fixedTick);
+                } catch (IOException e) {
+                    System.out.println("Failed to start recording input.");
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /*
+     * Replays a recorded input log. The log carries its own seed and tick,
+     * which replace whatever the payload asked for.
+     */
+    public void startReplay(String path) {
+        try {
+            if (inputLog != null) {
+                inputLog.close();
+            }
+            inputLog = InputLog.replay(path);
+            Rng.setMasterSeed(inputLog.getSeed());
+            fixedTick = inputLog.getTick();
+            replaying = true;
+            frame = 0;
+            System.out.println("Replaying " + path + ", seed " + inputLog.getSeed() + ", tick " + fixedTick);
+        } catch (IOException e) {
+            System.out.println("Failed to open input log " + path);
+            e.printStackTrace();
+            inputLog = null;
+        }
+    }
+
+    public boolean isReplayFinished() {
+        return replaying && inputLog.isFinished();
+    }
+
+    public boolean isDeterministic() {
+        return Rng.isDeterministic();
+    }
+
+    public float getFixedTick() {
+        return fixedTick;
+    }
+
+    public void shutdown() {
+        if (inputLog != null) {
+            inputLog.close();
+            inputLog = null;
+        }
+        if (frame > 0) {
+            System.out.println("Simulated " + frame + " frames, "
+                    + simulationTotal / frame / 1000 + " us average, "
+                    + simulationPeak / 1000 + " us worst");
+        }
+    }
+
+    private int[] parseIntList(String list) {
+        String[] arr = list.trim().split("/");
+        int[] ret = new int[arr.length];
+        for (int a = 0; a < arr.length; a++) {
+            ret[a] = Integer.parseInt(arr[a].trim());
+        }
+        return ret;
+    }
+
     private void init() {
         initKeys();
         initMouse();
@@ -370,12 +551,12 @@ public class Core {
             }
         }
 
+        //same seed, same universe
+        Rng.restart();
         //generate the world
+        resetCompression();
         resetScene();
         setUniverse(new Universe(assets));
-        //determine start system
-        String sysName = game.getValue("system");
-        SolarSystem start = getUniverse().getSystemWithName(sysName);
         //determine start ship
         Parser ships = new Parser("SHIP.txt");
         String shipName = game.getValue("ship");
@@ -388,13 +569,7 @@ public class Core {
                 break;
             }
         }
-        //put ship in start location
-        float x = Float.parseFloat(game.getValue("x"));
-        float y = Float.parseFloat(game.getValue("y"));
-        float z = Float.parseFloat(game.getValue("z"));
         long cash = Long.parseLong(game.getValue("cash"));
-        getPlayerShip().setLocation(new Vector3f(x, y, z));
-        getPlayerShip().setCurrentSystem(start);
         getPlayerShip().setCash(cash);
         //store initial cargo
         String cargo = game.getValue("cargo");
@@ -402,17 +577,72 @@ public class Core {
         //store initial equipment
         String install = game.getValue("install");
         getPlayerShip().addInitialEquipment(install);
+        //start god
+        initGod();
+        if (warmUpHours > 0) {
+            /*
+             * Let the universe run for a while before the player shows up.
+             * The player ship exists but isn't in a system yet, so
+             * everything is simulated out of system.
+             */
+            newGameTerm = game;
+            warmUp = new WarmUp(getUniverse(), god, warmUpHours, warmUpTpf);
+            if (Rng.isDeterministic()) {
+                //a background warm up could be cut short at any point
+                warmUp.run();
+            } else {
+                warmUp.start();
+            }
+            hud.reset();
+            setState(GameState.MAIN_MENU);
+        } else {
+            startNewGame(game);
+        }
+    }
+
+    private void startNewGame(Term game) {
+        //determine start system
+        String sysName = game.getValue("system");
+        SolarSystem start = getUniverse().getSystemWithName(sysName);
+        //put ship in start location
+        float x = Float.parseFloat(game.getValue("x"));
+        float y = Float.parseFloat(game.getValue("y"));
+        float z = Float.parseFloat(game.getValue("z"));
+        getPlayerShip().setLocation(new Vector3f(x, y, z));
+        getPlayerShip().setCurrentSystem(start);
         //setup start system
         addSystem(start);
         start.putEntityInSystem(getPlayerShip());
         //inform hud of new universe
         hud.reset();
         hud.setUniverse(getUniverse());
-        //start god
-        initGod();
         //start game
         setState(GameState.IN_SPACE);
+    }
+
+    private void checkWarmUp() {
+        if (warmUp != null && warmUp.isDone()) {
+            warmUp = null;
+            startNewGame(newGameTerm);
+            newGameTerm = null;
+        }
+    }
+
+    public boolean isWarmingUp() {
+        return warmUp != null;
+    }
+
+    public float getWarmUpProgress() {
+        if (warmUp != null) {
+            return warmUp.getProgress();
+        }
+        return 0;
+    }
 
+    public void cancelWarmUp() {
+        if (warmUp != null) {
+            warmUp.cancel();
+        }
     }
 
     private void initMouse() {
@@ -444,7 +674,7 @@ public class Core {
     }
 
     private void initJoyStick() {
-        input.addRawInputListener(new JoystickEventListener());
+        input.addRawInputListener(joystickListener);
     }
 
     private void initKeys() {
@@ -546,22 +776,70 @@ public class Core {
     }
 
     private final AnalogListener analogListener = (String string, float f, float f1) -> {
+        if (!replaying) {
+            Vector2f origin = input.getCursorPosition();
+            if (inputLog != null) {
+                inputLog.writeAnalog(frame, string, f, origin.x, origin.y);
+            }
+            handleAnalog(string, origin);
+        }
+    };
+
+    private void handleAnalog(String string, Vector2f origin) {
         String[] split = string.split("_");
-        Vector2f origin = input.getCursorPosition();
         if (split[0].equals("MOUSE")) {
             hud.handleMouseMoved(state, string,
                     new Vector3f(origin.x, origin.y, 0));
         }
+    }
+
+    private final KeyActionListener actionListener = new KeyActionListener();
+    private final JoystickEventListener joystickListener = new JoystickEventListener();
+
+    /*
+     * Feeds a recorded input log back through the same handlers live input
+     * goes through.
+     */
+    private final InputLog.Player replayPlayer = new InputLog.Player() {
+        @Override
+        public void onAction(String name, boolean pressed, float x, float y) {
+            actionListener.handleAction(name, pressed, new Vector2f(x, y));
+        }
+
+        @Override
+        public void onAnalog(String name, float value, float x, float y) {
+            handleAnalog(name, new Vector2f(x, y));
+        }
+
+        @Override
+        public void onJoyAxis(int axis, float value) {
+            joystickListener.handleJoyAxis(axis, value);
+        }
+
+        @Override
+        public void onJoyButton(int button, boolean pressed) {
+            joystickListener.handleJoyButton(button, pressed);
+        }
     };
 
-    private final ActionListener actionListener = new ActionListener() {
+    protected class KeyActionListener implements ActionListener {
+
         @Override
         public void onAction(String name, boolean keyPressed, float tpf) {
+            if (!replaying) {
+                Vector2f origin = input.getCursorPosition();
+                if (inputLog != null) {
+                    inputLog.writeAction(frame, name, keyPressed, origin.x, origin.y);
+                }
+                handleAction(name, keyPressed, origin);
+            }
+        }
+
+        public void handleAction(String name, boolean keyPressed, Vector2f origin) {
             try {
                 if (name.equals("KEY_LSHIFT") || name.equals("KEY_RSHIFT")) {
                     shiftDown = keyPressed;
                 }
-                Vector2f origin = input.getCursorPosition();
                 String[] split = name.split("_");
                 switch (split[0]) {
                     case "KEY":
@@ -630,6 +908,13 @@ public class Core {
                     //toggle main menu window
                     hud.toggleMenuHomeWindow();
                 }
+                //time compression
+                if (name.equals("KEY_F2")) {
+                    setCompressionLevel(compressionLevel - 1);
+                }
+                if (name.equals("KEY_F3")) {
+                    setCompressionLevel(compressionLevel + 1);
+                }
             }
             if (!getPlayerShip().isDocked()) {
                 //docking
@@ -769,37 +1054,56 @@ public class Core {
                 }
             }
         }
-    };
+    }
 
     protected class JoystickEventListener implements RawInputListener {
 
         @Override
         public void onJoyAxisEvent(JoyAxisEvent evt) {
+            if (!replaying) {
+                if (inputLog != null) {
+                    inputLog.writeJoyAxis(frame, evt.getAxis().getAxisId(), evt.getValue());
+                }
+                handleJoyAxis(evt.getAxis().getAxisId(), evt.getValue());
+            }
+        }
+
+        @Override
+        public void onJoyButtonEvent(JoyButtonEvent evt) {
+            if (!replaying) {
+                if (inputLog != null) {
+                    inputLog.writeJoyButton(frame, evt.getButton().getButtonId(), evt.isPressed());
+                }
+                handleJoyButton(evt.getButton().getButtonId(), evt.isPressed());
+            }
+        }
+
+        public void handleJoyAxis(int axis, float value) {
             if (getState() == GameState.IN_SPACE) {
                 if (!getPlayerShip().isDocked()) {
-                    if (Math.abs(evt.getAxis().getAxisId()) == ControlMap.JOYSTICK_PITCH_AXIS) {
-                        if (Math.abs(evt.getValue()) > ControlMap.JOYSTICK_DEADZONE_ROTATION) {
-                            getPlayerShip().setYaw(-evt.getValue());
+                    if (Math.abs(axis) == ControlMap.JOYSTICK_PITCH_AXIS) {
+                        if (Math.abs(value) > ControlMap.JOYSTICK_DEADZONE_ROTATION) {
+                            getPlayerShip().setYaw(-value);
                         } else {
                             getPlayerShip().setYaw(0);
                         }
-                    } else if (evt.getAxis().getAxisId() == ControlMap.JOYSTICK_YAW_AXIS) {
-                        if (Math.abs(evt.getValue()) > ControlMap.JOYSTICK_DEADZONE_ROTATION) {
-                            getPlayerShip().setPitch(evt.getValue());
+                    } else if (axis == ControlMap.JOYSTICK_YAW_AXIS) {
+                        if (Math.abs(value) > ControlMap.JOYSTICK_DEADZONE_ROTATION) {
+                            getPlayerShip().setPitch(value);
                         } else {
                             getPlayerShip().setPitch(0);
                         }
-                    } else if (evt.getAxis().getAxisId() == ControlMap.JOYSTICK_ROLL_AXIS) {
-                        if (Math.abs(evt.getValue()) > ControlMap.JOYSTICK_DEADZONE_ROTATION) {
-                            getPlayerShip().setRoll(-evt.getValue());
+                    } else if (axis == ControlMap.JOYSTICK_ROLL_AXIS) {
+                        if (Math.abs(value) > ControlMap.JOYSTICK_DEADZONE_ROTATION) {
+                            getPlayerShip().setRoll(-value);
                         } else {
                             getPlayerShip().setRoll(0);
                         }
                     } /*
                      * POV / HAT used for thrust
-                     */ else if (evt.getAxis().getAxisId() == ControlMap.JOYSTICK_THROTTLE_AXIS) {
-                        if (Math.abs(evt.getValue()) > ControlMap.JOYSTICK_DEADZONE_THROTTLE) { //deadzone but it really should be mapped to a HAT axis
-                            getPlayerShip().setThrottle(evt.getValue());
+                     */ else if (axis == ControlMap.JOYSTICK_THROTTLE_AXIS) {
+                        if (Math.abs(value) > ControlMap.JOYSTICK_DEADZONE_THROTTLE) { //deadzone but it really should be mapped to a HAT axis
+                            getPlayerShip().setThrottle(value);
                         } else {
                             getPlayerShip().setThrottle(0);
                         }
@@ -808,13 +1112,12 @@ public class Core {
             }
         }
 
-        @Override
-        public void onJoyButtonEvent(JoyButtonEvent evt) {
+        public void handleJoyButton(int button, boolean pressed) {
             if (getState() == GameState.IN_SPACE) {
                 if (!getPlayerShip().isDocked()) {
-                    if (evt.getButton().getButtonId() == ControlMap.JOYSTICK_FIRE_BUTTON) {
-                        getPlayerShip().setFiring(evt.isPressed());
-                    } else if (evt.getButton().getButtonId() == ControlMap.JOYSTICK_SEC_BUTTON) {
+                    if (button == ControlMap.JOYSTICK_FIRE_BUTTON) {
+                        getPlayerShip().setFiring(pressed);
+                    } else if (button == ControlMap.JOYSTICK_SEC_BUTTON) {
                         getPlayerShip().toggleMissiles();
                     }
                 }
@@ -883,6 +1186,10 @@ public class Core {
      * Taking over some important jobs from the Main class.
      */
     public void periodicUpdate(float tpf) {
+        if (replaying) {
+            //input recorded for this frame goes in before the update, as it did live
+            inputLog.replayFrame(frame, replayPlayer);
+        }
         //System.out.println("tpf: "+tpf+" , "+"tick: "+(DEFAULT_TICK/TICK_DIVIDER)+" , "+" magic: "+((DEFAULT_TICK/TICK_DIVIDER) + tpf) / 2.0f);
         /*
          * In-game updating
@@ -898,6 +1205,7 @@ public class Core {
         }
         //store tpf
         this.tpf = tpf;
+        frame++;
     }
 
     private void doQuoteUpdate(float tpf) {
@@ -926,41 +1234,81 @@ public class Core {
     }
 
     private void doMenuUpdate(float tpf) {
+        checkWarmUp();
         updateMusic();
     }
 
     private void doSpaceUpdate(float tpf) {
         if (!handlePlayerDeath()) {
             boolean godSafe = true;
-            //update systems
-            for (int a = 0; a < getUniverse().getSystems().size(); a++) {
-                if (getUniverse().getSystems().get(a) != getPlayerShip().getCurrentSystem()) {
-                    getUniverse().getSystems().get(a).oosPeriodicUpdate(tpf);
-                } else {
-                    //make sure there is no transition to be done
-                    if (getPlayerShip().getCurrentSystem().hasGraphics()) {
-                        //update
-                        getPlayerShip().getCurrentSystem().periodicUpdate(tpf);
-                    } else {
-                        //transition to the new system
-                        resetScene();
-                        getPlayerShip().deconstruct();
-                        addSystem(getPlayerShip().getCurrentSystem());
-                        planetAppState.getAstralCamera().setTarget(getPlayerShip());
-                        //make sure the new system is flagged for graphics
-                        getPlayerShip().getCurrentSystem().forceGraphics();
-                        godSafe = false;
+            long simulationStart = System.nanoTime();
+            /*
+             * The simulation runs in fixed steps of DEFAULT_TICK real time no
+             * matter how long the frame took, so a slow frame means more
+             * steps instead of one big one that makes ships overshoot. If
+             * too many steps are owed the rest is dropped, the game slows
+             * down instead of spiraling.
+             *
+             * Physics in the player's system takes exactly the same steps,
+             * right after the forces for each one are applied, because
+             * Bullet clears forces every time it is stepped. Spatials are
+             * drawn between the last two steps by the time left in the
+             * accumulator, and put back before anything steps again.
+             */
+            interpolator.restore();
+            float compression = updateCompression(tpf);
+            accumulator += tpf;
+            int steps = Math.min((int) (accumulator / DEFAULT_TICK), maxSteps);
+            accumulator -= steps * DEFAULT_TICK;
+            if (accumulator >= DEFAULT_TICK) {
+                //too far behind to catch up
+                accumulator = accumulator % DEFAULT_TICK;
+            }
+            //game time that passes each step and this frame
+            float stepTpf = DEFAULT_TICK * compression;
+            float gameTpf = steps * stepTpf;
+            //update systems the player is not in
+            if (steps > 0) {
+                systemUpdater.oosPeriodicUpdate(getUniverse(), getPlayerShip().getCurrentSystem(), gameTpf);
+            }
+            //make sure there is no transition to be done
+            if (getPlayerShip().getCurrentSystem().hasGraphics()) {
+                //update
+                SolarSystem current = getPlayerShip().getCurrentSystem();
+                PhysicsSpace space = bulletAppState.getPhysicsSpace();
+                for (int a = 0; a < steps; a++) {
+                    current.periodicUpdate(stepTpf);
+                    space.update(stepTpf);
+                    space.distributeEvents();
+                    interpolator.capture(space);
+                    if (getPlayerShip().getCurrentSystem() != current) {
+                        //jumped out, the transition happens next frame
+                        break;
                     }
                 }
+                //smooth what gets drawn this frame
+                interpolator.blend(accumulator / DEFAULT_TICK);
+            } else {
+                //transition to the new system
+                resetScene();
+                getPlayerShip().deconstruct();
+                addSystem(getPlayerShip().getCurrentSystem());
+                planetAppState.getAstralCamera().setTarget(getPlayerShip());
+                //make sure the new system is flagged for graphics
+                getPlayerShip().getCurrentSystem().forceGraphics();
+                godSafe = false;
             }
             //update god
-            if (godSafe) {
-                god.periodicUpdate();
+            if (godSafe && steps > 0) {
+                god.simulatedUpdate(gameTpf);
             }
             //update player missions
             for (int a = 0; a < universe.getPlayerMissions().size(); a++) {
-                universe.getPlayerMissions().get(a).periodicUpdate(tpf);
+                universe.getPlayerMissions().get(a).periodicUpdate(gameTpf);
             }
+            lastSimulationTime = System.nanoTime() - simulationStart;
+            simulationTotal += lastSimulationTime;
+            simulationPeak = Math.max(simulationPeak, lastSimulationTime);
             //see if we need to reset the camera
             AstralCamera camera = planetAppState.getAstralCamera();
             if (camera != null) {
@@ -976,6 +1324,45 @@ public class Core {
         }
     }
 
+    private float updateCompression(float tpf) {
+        /*
+         * Works out how much faster than real time the game can run this
+         * frame. Physics in the player's system is limited to a fixed number
+         * of sub steps per frame, and if the simulation took too much of
+         * the last frame the multiplier backs off until it fits again.
+         */
+        float requested = getTimeCompression();
+        float physicsCap = MAX_PHYSICS_SUBSTEPS * bulletAppState.getPhysicsSpace().getAccuracy() / tpf;
+        float target = Math.max(1, Math.min(requested, physicsCap));
+        if (Rng.isDeterministic()) {
+            //how long frames take can't be allowed to steer the simulation
+            effectiveCompression = target;
+        } else if (lastSimulationTime / 1000000000.0f > tpf * SIMULATION_SHARE) {
+            //can't keep up
+            effectiveCompression = Math.max(1, effectiveCompression * 0.9f);
+        } else {
+            //recover slowly
+            effectiveCompression = effectiveCompression * 1.05f;
+        }
+        effectiveCompression = Math.min(effectiveCompression, target);
+        return effectiveCompression;
+    }
+
+    public float getTimeCompression() {
+        return compressionLevels[compressionLevel];
+    }
+
+    public float getEffectiveCompression() {
+        return effectiveCompression;
+    }
+
+    public void setCompressionLevel(int level) {
+        if (level >= 0 && level < compressionLevels.length) {
+            compressionLevel = level;
+            System.out.println("Time compression set to " + getTimeCompression() + "x");
+        }
+    }
+
     private boolean handlePlayerDeath() {
         if (getPlayerShip() == null
                 || getPlayerShip().getState() == State.DEAD) {
@@ -990,10 +1377,18 @@ public class Core {
     }
 
     private void doHUDRendering() {
+        if (Rng.isDeterministic() && hudThread != null) {
+            //the hud updates every frame, however long it takes to draw
+            try {
+                hudThread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
         if (hudRendering) {
             //wait
         } else {
-            if (hasFocus) {
+            if (hasFocus || Rng.isDeterministic()) {
                 //collect from the previous render thread
                 hud.collect();
                 //update
@@ -1015,6 +1410,7 @@ public class Core {
                         hudRendering = false;
                     }
                 };
+                hudThread = t;
                 t.start();
             } else {
                 //don't do any gui rendering without focus and do not collect!
@@ -1025,21 +1421,24 @@ public class Core {
     private void updateSpaceAudio() {
         //center audio listener on player
         listener.setLocation(getPlayerShip().getLocation());
-        //play sound effects for ships
+        //play sound effects for ships that queued any
         SolarSystem playerSystem = getPlayerShip().getCurrentSystem();
-        ArrayList<Entity> celestials = playerSystem.getCelestials();
-        for (int a = 0; a < celestials.size(); a++) {
-            if (celestials.get(a) instanceof Ship) {
-                Ship tmp = (Ship) celestials.get(a);
+        for (int a = 0; a < audible.size(); a++) {
+            Ship tmp = audible.get(a);
+            if (tmp.getCurrentSystem() != playerSystem) {
+                //left or died
+                tmp.getSoundQue().clear();
+            } else {
                 if (tmp.distanceTo(getPlayerShip()) < Universe.SOUND_RANGE) {
                     if (tmp.getSoundQue() != null) {
                         for (int b = 0; b < tmp.getSoundQue().size(); b++) {
                             //I'm not permitting looping sounds to be played by ships using the que
                             tmp.getSoundQue().get(b).setLooping(false);
-                            //play the sound and pop it off
+                            //play the sound
                             tmp.getSoundQue().get(b).play();
-                            tmp.getSoundQue().remove(b);
                         }
+                        //and pop them all off, this ship won't be visited again until it queues more
+                        tmp.getSoundQue().clear();
                     } else {
                         //this ship has not initialized its sound que
                     }
@@ -1049,6 +1448,7 @@ public class Core {
                 }
             }
         }
+        audible.clear();
     }
 
     private Ship getPlayerShip() {
@@ -1105,6 +1505,14 @@ public class Core {
             getUniverse().setPlayerShip(null);
             setUniverse(null);
         }
+        resetCompression();
+    }
+
+    private void resetCompression() {
+        //back to real time
+        compressionLevel = 0;
+        effectiveCompression = 1;
+        accumulator = 0;
     }
 
     private void resetScene() {
@@ -1118,10 +1526,12 @@ public class Core {
         rootNode.getLocalLightList().clear();
         rootNode.getWorldLightList().clear();
         //clear physics
+        interpolator.clear();
         bulletAppState.getPhysicsSpace().destroy();
         bulletAppState.getPhysicsSpace().create();
         bulletAppState.getPhysicsSpace().setGravity(Vector3f.ZERO);
         bulletAppState.getPhysicsSpace().setAccuracy(DEFAULT_TICK / TICK_DIVIDER);
+        bulletAppState.getPhysicsSpace().setMaxSubSteps(MAX_PHYSICS_SUBSTEPS);
         initPhysicsListeners();
         addHUD();
         System.gc();
@@ -1225,6 +1635,13 @@ public class Core {
     }
 
     public void setUniverse(Universe universe) {
+        if (this.universe != null) {
+            this.universe.getEvents().unsubscribe(SoundQueued.class, soundListener);
+        }
+        audible.clear();
         this.universe = universe;
+        if (universe != null) {
+            universe.getEvents().subscribe(SoundQueued.class, soundListener);
+        }
     }
 }
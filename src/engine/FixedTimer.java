@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * A timer that ignores the wall clock and advances by the same amount every
+ * frame. Used in deterministic mode so the physics and the simulation see
+ * identical frame times no matter how fast the machine renders.
+ */
+package engine;
+
+import com.jme3.system.Timer;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class FixedTimer extends Timer {
+
+    private static final long RESOLUTION = 1000000000L;
+    private final float tick;
+    private long frames = 0;
+
+    public FixedTimer(float tick) {
+        this.tick = tick;
+    }
+
+    @Override
+    public long getTime() {
+        return (long) (frames * (double) tick * RESOLUTION);
+    }
+
+    @Override
+    public long getResolution() {
+        return RESOLUTION;
+    }
+
+    @Override
+    public float getFrameRate() {
+        return 1.0f / tick;
+    }
+
+    @Override
+    public float getTimePerFrame() {
+        return tick;
+    }
+
+    @Override
+    public void update() {
+        frames++;
+    }
+
+    @Override
+    public void reset() {
+        frames = 0;
+    }
+}
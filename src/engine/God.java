@@ -29,7 +29,6 @@
 package engine;
 
 import celestial.Celestial;
-import celestial.Planet;
 import celestial.Ship.Ship;
 import celestial.Ship.Ship.Behavior;
 import celestial.Ship.Station;
@@ -45,6 +44,7 @@ import lib.SuperFaction;
 import lib.astral.Parser;
 import lib.astral.Parser.Term;
 import universe.SolarSystem;
+import universe.SpawnSites;
 import universe.Universe;
 
 /**
@@ -55,14 +55,16 @@ public class God {
 
     private final Universe universe;
     private final ArrayList<SuperFaction> factions = new ArrayList<>();
-    private final Random rnd = new Random();
+    private final Random rnd = Rng.create();
     boolean firstRun = true;
     //sample
     private final char[] basicSample = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K',
         'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '1', '2',
         '3', '4', '5', '6', '7', '8', '9', '0'};
     //timing
+    public static final double CYCLE_TIME = 960;
     private long lastFrame;
+    private double simulated = 0;
 
     public God(Universe universe) {
         this.universe = universe;
@@ -85,19 +87,36 @@ public class God {
         //calculate time per frame
         double tpf = Math.abs(dt / 1000000000.0);
         //only run it every 16 minutes because it's a performance hog!
-        if (tpf > 960 || firstRun) {
+        if (tpf > CYCLE_TIME || firstRun) {
             firstRun = false;
             //store time
             lastFrame = System.nanoTime();
             //update
-            checkStations();
-            checkPatrols();
-            checkTraders();
-            checkMerchants();
-            System.out.println("God cycled.");
+            cycle();
         }
     }
 
+    public void simulatedUpdate(double tpf) {
+        /*
+         * Same as periodicUpdate() but counts simulated time instead of
+         * wall clock time, for when the two don't match up.
+         */
+        simulated += tpf;
+        if (simulated > CYCLE_TIME || firstRun) {
+            firstRun = false;
+            simulated = 0;
+            cycle();
+        }
+    }
+
+    private void cycle() {
+        checkStations();
+        checkPatrols();
+        checkTraders();
+        checkMerchants();
+        System.out.println("God cycled.");
+    }
+
     /*
      * Hooks
      */
@@ -127,37 +146,6 @@ public class God {
         for (int a = 0; a < factions.size(); a++) {
             doStations(factions.get(a));
         }
-        //make sure none are ontop of each other
-        for (int a = 0; a < universe.getSystems().size(); a++) {
-            SolarSystem curr = universe.getSystems().get(a);
-            ArrayList<Entity> stations = curr.getStationList();
-            for (int y = 0; y < stations.size(); y++) {
-                Station prim = (Station) stations.get(y);
-                for (int x = 0; x < stations.size(); x++) {
-                    Station sub = (Station) stations.get(x);
-                    //make sure they aren't the same
-                    if (stations.get(y) != stations.get(x)) {
-                        /*//check for collission
-                         if (prim.collideWith(sub)) {
-                         //push the sub station away
-                         sub.getLocation().setX(rnd.nextInt(64000) - 32000);
-                         sub.getLocation().setZ(rnd.nextInt(64000) - 32000);
-                         //report
-                         System.out.println("Station " + sub + " was moved.");
-                         }*/
-                        //todo: better testing
-                        double d = prim.getLocation().distance(sub.getLocation());
-                        if (d < 10) {
-                            //push the sub station away
-                            sub.getLocation().setX(rnd.nextInt(64000) - 32000);
-                            sub.getLocation().setZ(rnd.nextInt(64000) - 32000);
-                            //report
-                            System.out.println("Station " + sub + " was moved.");
-                        }
-                    }
-                }
-            }
-        }
     }
 
     /*
@@ -243,8 +231,15 @@ public class God {
                         ArrayList<Entity> planets = pick.getCelestials();
                         host = (Celestial) planets.get(rnd.nextInt(planets.size()));
                     }
-                    //make a point
-                    Vector3f pnt = pointNearCelestial(host);
+                    //find a free spot
+                    Vector3f pnt = pick.getSpawnSites().findStationSite(host, rnd);
+                    if (pnt == null) {
+                        //try again next cycle
+                        System.out.println("No room for " + faction.getStations().get(a).getString()
+                                + " near " + host.getName());
+                        count[a]++;
+                        continue;
+                    }
                     //pick rotation
                     float tiltX = (rnd.nextFloat() - 0.5f) * FastMath.TWO_PI;
                     float tiltY = (rnd.nextFloat() - 0.5f) * FastMath.TWO_PI;
@@ -512,29 +507,7 @@ public class God {
     }
 
     private Vector3f pointNearCelestial(Celestial host) {
-        float x;
-        float y;
-        float z;
-        if (host instanceof Planet) {
-            //pick a point outside of the planet
-            Planet tmp = (Planet) host;
-            float r = tmp.getRadius() * 2;
-            float dx = (rnd.nextInt(10000) + r) * Math.signum(rnd.nextFloat() - 0.5f);
-            float dy = (rnd.nextInt(2000) + r) * Math.signum(rnd.nextFloat() - 0.5f);
-            float dz = (rnd.nextInt(10000) + r) * Math.signum(rnd.nextFloat() - 0.5f);
-            //store
-            x = host.getLocation().getX() + dx;
-            y = host.getLocation().getY() + dy;
-            z = host.getLocation().getZ() + dz;
-        } else {
-            //pick a point near the celestial
-            x = host.getLocation().getX() + rnd.nextInt(10000) - 5000;
-            y = host.getLocation().getY() + rnd.nextInt(2000) - 1000;
-            z = host.getLocation().getZ() + rnd.nextInt(10000) - 5000;
-        }
-        //make a point
-        Vector3f pnt = new Vector3f(x, y, z);
-        return pnt;
+        return SpawnSites.pointNear(host, rnd, 1);
     }
 
     /*
@@ -562,41 +535,11 @@ public class God {
     }
 
     public int countShipsByLoadout(Faction faction, SolarSystem system, String loadout) {
-        int count = 0;
-        {
-            //get ship list
-            ArrayList<Entity> ships = system.getShipList();
-            for (int a = 0; a < ships.size(); a++) {
-                Ship tmp = (Ship) ships.get(a);
-                if (tmp.getState() == Ship.State.ALIVE) {
-                    if (tmp.getFaction().getName().equals(faction.getName())) {
-                        if (tmp.getTemplate().equals(loadout)) {
-                            count++;
-                        }
-                    }
-                } else if (tmp.getState() == Ship.State.DEAD) {
-                    System.out.println(tmp.getName() + " dead but not cleaned up");
-                }
-            }
-        }
-        return count;
+        return universe.getIndex().countShipsByLoadout(faction.getName(), system, loadout);
     }
 
     public int countShipsByRole(Faction faction, SolarSystem system, Behavior behavior) {
-        int count = 0;
-        {
-            //get ship list
-            ArrayList<Entity> ships = system.getShipList();
-            for (int a = 0; a < ships.size(); a++) {
-                Ship tmp = (Ship) ships.get(a);
-                if (tmp.getFaction().getName().equals(faction.getName())) {
-                    if (tmp.getBehavior() == behavior) {
-                        count++;
-                    }
-                }
-            }
-        }
-        return count;
+        return universe.getIndex().countShipsByRole(faction.getName(), system, behavior);
     }
 
     private Station makeStation(String type, String name, String faction) {
@@ -712,6 +655,11 @@ public class God {
 
     public void spawnStation(Faction faction, SolarSystem system, Vector3f loc,
             Vector3f tilt, Binling loadout) {
+        if (!system.getSpawnSites().isClearForStation(loc)) {
+            System.out.println("Refused to spawn " + loadout.getString() + " on top of another station in "
+                    + system.getName());
+            return;
+        }
         String name = loadout.getString() + " " + randomIDTag(5, basicSample);
         //get a basic ship to work with
         Station tmp = makeStation(loadout.getString(), name, faction.getName());
@@ -25,6 +25,7 @@
  */
 package engine;
 
+import celestial.Ship.Ship;
 import com.jme3.asset.AssetManager;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
@@ -43,12 +44,16 @@ import gdi.QuoteWindow;
 import gdi.SightMarker;
 import gdi.StandingWindow;
 import gdi.StarMapWindow;
+import gdi.TimeWindow;
 import gdi.TradeWindow;
 import gdi.VelocityMarker;
 import gdi.component.AstralWindow;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Arrays;
+import org.bushe.swing.event.EventSubscriber;
+import universe.GameEvent.EntityDied;
+import universe.GameEvent.ShipJumped;
 import universe.SolarSystem;
 import universe.Universe;
 
@@ -68,6 +73,7 @@ public class HUD {
     ArrayList<AstralWindow> windows = new ArrayList<>();
     HealthWindow health;
     FuelWindow fuel;
+    TimeWindow time;
     OverviewWindow overview;
     EquipmentWindow equipment;
     CargoWindow cargoWindow;
@@ -80,6 +86,19 @@ public class HUD {
     CommWindow commWindow;
     //IFF Manager
     IFFManager iffManager = new IFFManager();
+    //world snapshots shared with the render thread
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+    //markers are dropped when their target dies or leaves
+    private final EventSubscriber<EntityDied> deathListener = (EntityDied event) -> {
+        iffManager.dismiss(event.getEntity());
+    };
+    private final EventSubscriber<ShipJumped> jumpListener = (ShipJumped event) -> {
+        if (event.getShip() == universe.getPlayerShip()) {
+            iffManager.dismissAll();
+        } else {
+            iffManager.dismiss(event.getShip());
+        }
+    };
     private boolean resetWindowFlag;
     //display
     private final int width;
@@ -143,6 +162,11 @@ public class HUD {
         fuel.setY(30);
         fuel.setVisible(true);
         windows.add(fuel);
+        //time compression window
+        time = new TimeWindow(assets);
+        time.setX((width / 2) - health.getWidth() / 2);
+        time.setY(45);
+        windows.add(time);
         //overview window
         overview = new OverviewWindow(assets);
         overview.setX(width - 315);
@@ -258,6 +282,8 @@ public class HUD {
         }
         //store camera
         this.camera = engine.getCamera();
+        //publish the world as the render thread will see it
+        WorldSnapshot snapshot = snapshots.publish(getUniverse());
 
         //update iffs
         iffManager.periodicUpdate(tpf);
@@ -271,12 +297,13 @@ public class HUD {
         //special update on simple windows
         health.updateHealth(getUniverse().getPlayerShip());
         fuel.updateFuel(getUniverse().getPlayerShip());
-        overview.updateOverview(getUniverse().getPlayerShip());
-        equipment.update(getUniverse().getPlayerShip());
+        time.updateTime(engine.getTimeCompression(), engine.getEffectiveCompression());
+        overview.updateOverview(getUniverse().getPlayerShip(), snapshot);
+        equipment.update(getUniverse().getPlayerShip(), snapshot);
         cargoWindow.update(getUniverse().getPlayerShip());
         propertyWindow.update(getUniverse().getPlayerShip());
         tradeWindow.update(getUniverse().getPlayerShip());
-        starMapWindow.updateMap(getUniverse());
+        starMapWindow.updateMap(getUniverse(), snapshot);
         standingWindow.update(getUniverse().getPlayerShip());
         menuHomeWindow.update(tpf);
         commWindow.update(getUniverse().getPlayerShip());
@@ -411,8 +438,26 @@ public class HUD {
         return universe;
     }
 
+    /*
+     * The most recently published snapshot. It is not written again until
+     * the publish after the next one, so worker threads that
+     * only need positions and standings can read it without touching the
+     * live simulation.
+     */
+    public WorldSnapshot getSnapshot() {
+        return snapshots.getFront();
+    }
+
     public void setUniverse(Universe universe) {
+        if (this.universe != null) {
+            this.universe.getEvents().unsubscribe(EntityDied.class, deathListener);
+            this.universe.getEvents().unsubscribe(ShipJumped.class, jumpListener);
+        }
         this.universe = universe;
+        if (universe != null) {
+            universe.getEvents().subscribe(EntityDied.class, deathListener);
+            universe.getEvents().subscribe(ShipJumped.class, jumpListener);
+        }
     }
 
     public void hideCentralWindows() {
@@ -493,6 +538,20 @@ public class HUD {
         public IFFManager() {
         }
 
+        public void dismiss(Entity target) {
+            for (int a = 0; a < markers.size(); a++) {
+                if (markers.get(a).getTarget() == target) {
+                    markers.get(a).dismiss();
+                }
+            }
+        }
+
+        public void dismissAll() {
+            for (int a = 0; a < markers.size(); a++) {
+                markers.get(a).dismiss();
+            }
+        }
+
         public void periodicUpdate(float tpf) {
             if (sightMarker == null) {
                 sightMarker = new SightMarker(assets, universe.getPlayerShip(), camera, 25, 25);
@@ -505,40 +564,31 @@ public class HUD {
             }
             //update sight marker
             sightMarker.update(universe.getPlayerShip(), camera);
+            sightMarker.setSnapshot(snapshots.getFront());
             sightMarker.periodicUpdate();
             //update velocity marker
             velocityMarker.update(universe.getPlayerShip(), camera);
+            velocityMarker.setSnapshot(snapshots.getFront());
             velocityMarker.periodicUpdate();
             /*
              * Determine if any new ship markers need to be added
              */
             //get the player's system
             SolarSystem system = universe.getPlayerShip().getCurrentSystem();
-            //get a list of ships in that system
-            ArrayList<Entity> ships = new ArrayList(system.getShipList());
-            ArrayList<Entity> stations = new ArrayList(system.getStationList());
-            ArrayList<Entity> combinedList = new ArrayList<>();
-            combinedList.addAll(ships);
-            combinedList.addAll(stations);
+            //get a list of ships and stations in sensor range
+            ArrayList<Ship> combinedList = system.getGrid().getInRange(universe.getPlayerShip().getLocation(),
+                    universe.getPlayerShip().getSensor(), Ship.class, null);
             //remove anything from this list we already have markers for
             for (int a = 0; a < markers.size(); a++) {
                 combinedList.remove(markers.get(a).getTarget());
             }
-            //remove anything not in sensor range
-            for (int a = 0; a < combinedList.size(); a++) {
-                float dist = combinedList.get(a).getLocation().distance(universe.getPlayerShip().getLocation());
-                if (dist <= universe.getPlayerShip().getSensor()) {
-                    //safe
-                } else {
-                    combinedList.remove(combinedList.get(a));
-                }
-            }
             //is there anything new to add?
             if (combinedList.size() > 0) {
                 //add it
                 for (int a = 0; a < combinedList.size(); a++) {
-                    //make sure it isn't the player ship
-                    if (combinedList.get(a) != universe.getPlayerShip()) {
+                    //make sure it isn't the player ship, dead things are never marked
+                    if (combinedList.get(a) != universe.getPlayerShip()
+                            && combinedList.get(a).getState() == Entity.State.ALIVE) {
                         float dist = combinedList.get(a).getLocation().distance(universe.getPlayerShip().getLocation());
                         if (dist < universe.getPlayerShip().getSensor()) {
                             HudMarker m = new HudMarker(assets, camera, universe.getPlayerShip(), combinedList.get(a), 50, 50);
@@ -556,6 +606,7 @@ public class HUD {
              */
             for (int a = 0; a < markers.size(); a++) {
                 if (markers.get(a).isRelevant()) {
+                    markers.get(a).setSnapshot(snapshots.getFront());
                     markers.get(a).periodicUpdate();
                 } else {
                     markers.get(a).remove(guiNode);
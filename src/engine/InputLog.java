@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * A compact binary log of player input, keyed by simulation frame. Recording
+ * a deterministic run and replaying its log with the same seed and tick
+ * drives the game through exactly the same frames, which makes tick times
+ * comparable between builds.
+ *
+ * Layout: a header (magic, version, master seed, tick) followed by records.
+ * Each record is a frame number, a kind byte and the kind's fields. Input
+ * names are written once and then referred to by number.
+ */
+package engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class InputLog {
+
+    private static final int MAGIC = 0x4F534C47;
+    private static final int VERSION = 1;
+    //record kinds
+    private static final byte ACTION = 0;
+    private static final byte ANALOG = 1;
+    private static final byte JOY_AXIS = 2;
+    private static final byte JOY_BUTTON = 3;
+    private static final byte END = 4;
+    //marks a name that is being written for the first time
+    private static final short NEW_NAME = -1;
+
+    private final long seed;
+    private final float tick;
+    private final ArrayList<String> names = new ArrayList<>();
+    private DataOutputStream out;
+    private DataInputStream in;
+    //next record waiting to be replayed
+    private long nextFrame = -1;
+    private boolean finished = false;
+
+    /*
+     * Receives replayed input
+     */
+    public interface Player {
+
+        public void onAction(String name, boolean pressed, float x, float y);
+
+        public void onAnalog(String name, float value, float x, float y);
+
+        public void onJoyAxis(int axis, float value);
+
+        public void onJoyButton(int button, boolean pressed);
+    }
+
+    private InputLog(long seed, float tick) {
+        this.seed = seed;
+        this.tick = tick;
+    }
+
+    public static InputLog record(String path, long seed, float tick) throws IOException {
+        InputLog log = new InputLog(seed, tick);
+        log.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+        log.out.writeInt(MAGIC);
+        log.out.writeInt(VERSION);
+        log.out.writeLong(seed);
+        log.out.writeFloat(tick);
+        return log;
+    }
+
+    public static InputLog replay(String path) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            in.close();
+            throw new IOException(path + " is not an input log this version can read");
+        }
+        InputLog log = new InputLog(in.readLong(), in.readFloat());
+        log.in = in;
+        log.readFrame();
+        return log;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public float getTick() {
+        return tick;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /*
+     * Recording
+     */
+    public void writeAction(long frame, String name, boolean pressed, float x, float y) {
+        try {
+            writeHead(frame, ACTION);
+            writeName(name);
+            out.writeBoolean(pressed);
+            out.writeFloat(x);
+            out.writeFloat(y);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void writeAnalog(long frame, String name, float value, float x, float y) {
+        try {
+            writeHead(frame, ANALOG);
+            writeName(name);
+            out.writeFloat(value);
+            out.writeFloat(x);
+            out.writeFloat(y);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void writeJoyAxis(long frame, int axis, float value) {
+        try {
+            writeHead(frame, JOY_AXIS);
+            out.writeShort(axis);
+            out.writeFloat(value);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public void writeJoyButton(long frame, int button, boolean pressed) {
+        try {
+            writeHead(frame, JOY_BUTTON);
+            out.writeShort(button);
+            out.writeBoolean(pressed);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void writeHead(long frame, byte kind) throws IOException {
+        out.writeInt((int) frame);
+        out.writeByte(kind);
+    }
+
+    private void writeName(String name) throws IOException {
+        int id = names.indexOf(name);
+        if (id == -1) {
+            names.add(name);
+            out.writeShort(NEW_NAME);
+            out.writeUTF(name);
+        } else {
+            out.writeShort(id);
+        }
+    }
+
+    public void close() {
+        try {
+            if (out != null) {
+                out.writeInt(-1);
+                out.writeByte(END);
+                out.close();
+                out = null;
+            }
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Replaying. Hands every record for this frame to the player.
+     */
+    public void replayFrame(long frame, Player player) {
+        try {
+            while (!finished && nextFrame == frame) {
+                byte kind = in.readByte();
+                switch (kind) {
+                    case ACTION: {
+                        String name = readName();
+                        boolean pressed = in.readBoolean();
+                        float x = in.readFloat();
+                        float y = in.readFloat();
+                        player.onAction(name, pressed, x, y);
+                        break;
+                    }
+                    case ANALOG: {
+                        String name = readName();
+                        float value = in.readFloat();
+                        float x = in.readFloat();
+                        float y = in.readFloat();
+                        player.onAnalog(name, value, x, y);
+                        break;
+                    }
+                    case JOY_AXIS: {
+                        int axis = in.readShort();
+                        player.onJoyAxis(axis, in.readFloat());
+                        break;
+                    }
+                    case JOY_BUTTON: {
+                        int button = in.readShort();
+                        player.onJoyButton(button, in.readBoolean());
+                        break;
+                    }
+                    default:
+                        finished = true;
+                        break;
+                }
+                readFrame();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            finished = true;
+        }
+    }
+
+    private void readFrame() throws IOException {
+        try {
+            nextFrame = in.readInt();
+            if (nextFrame < 0) {
+                finished = true;
+            }
+        } catch (EOFException e) {
+            //recording was cut off, replay what there is
+            finished = true;
+        }
+    }
+
+    private String readName() throws IOException {
+        short id = in.readShort();
+        if (id == NEW_NAME) {
+            names.add(in.readUTF());
+            return names.get(names.size() - 1);
+        }
+        return names.get(id);
+    }
+}
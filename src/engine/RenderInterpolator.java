@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Smooths rendering between fixed simulation steps. After every step the
+ * physics transform of each moving body is recorded, keeping the one from
+ * the step before as well. Before the scene is drawn each spatial is placed
+ * part way between the two, by how much of the next step has already built
+ * up in the accumulator. The simulation reads spatials too, for steering and
+ * hardpoints, so they are put back on the real transforms before it steps.
+ */
+package engine;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import java.util.IdentityHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class RenderInterpolator {
+
+    //transforms from the last two steps, per body
+    private IdentityHashMap<PhysicsRigidBody, State> states = new IdentityHashMap<>();
+    private IdentityHashMap<PhysicsRigidBody, State> spare = new IdentityHashMap<>();
+    //true while spatials are between steps
+    private boolean blended = false;
+
+    /*
+     * Records where every moving body is after a step. Bodies that weren't
+     * seen last step start with both transforms the same.
+     */
+    public void capture(PhysicsSpace space) {
+        spare.clear();
+        for (PhysicsRigidBody body : space.getRigidBodyList()) {
+            if (!isMoving(body)) {
+                continue;
+            }
+            State tmp = states.get(body);
+            if (tmp == null) {
+                tmp = new State();
+                body.getPhysicsLocation(tmp.location);
+                body.getPhysicsRotation(tmp.rotation);
+            }
+            tmp.lastLocation.set(tmp.location);
+            tmp.lastRotation.set(tmp.rotation);
+            body.getPhysicsLocation(tmp.location);
+            body.getPhysicsRotation(tmp.rotation);
+            spare.put(body, tmp);
+        }
+        //bodies that left the space are dropped
+        IdentityHashMap<PhysicsRigidBody, State> swap = states;
+        states = spare;
+        spare = swap;
+    }
+
+    /*
+     * Places spatials between the last two steps, alpha is the fraction of
+     * a step that has built up since the last one.
+     */
+    public void blend(float alpha) {
+        float t = Math.max(0, Math.min(1, alpha));
+        for (State tmp : states.values()) {
+            tmp.blendLocation.interpolate(tmp.lastLocation, tmp.location, t);
+            tmp.blendRotation.slerp(tmp.lastRotation, tmp.rotation, t);
+        }
+        for (PhysicsRigidBody body : states.keySet()) {
+            Spatial spatial = getSpatial(body);
+            if (spatial != null) {
+                //take the step's transform now so the control doesn't undo the blend
+                body.getMotionState().applyTransform(spatial);
+                State tmp = states.get(body);
+                spatial.setLocalTranslation(tmp.blendLocation);
+                spatial.setLocalRotation(tmp.blendRotation);
+            }
+        }
+        blended = true;
+    }
+
+    /*
+     * Puts spatials back on the transforms of the last step.
+     */
+    public void restore() {
+        if (!blended) {
+            return;
+        }
+        for (PhysicsRigidBody body : states.keySet()) {
+            Spatial spatial = getSpatial(body);
+            if (spatial != null) {
+                State tmp = states.get(body);
+                spatial.setLocalTranslation(tmp.location);
+                spatial.setLocalRotation(tmp.rotation);
+            }
+        }
+        blended = false;
+    }
+
+    public void clear() {
+        states.clear();
+        spare.clear();
+        blended = false;
+    }
+
+    private static boolean isMoving(PhysicsRigidBody body) {
+        //static and kinematic bodies go where they are put
+        return body.getMass() > 0 && !body.isKinematic() && getSpatial(body) != null;
+    }
+
+    private static Spatial getSpatial(PhysicsRigidBody body) {
+        //controls keep the spatial they are attached to as the user object
+        Object user = body.getUserObject();
+        return user instanceof Spatial ? (Spatial) user : null;
+    }
+
+    private static class State {
+
+        private final Vector3f lastLocation = new Vector3f();
+        private final Quaternion lastRotation = new Quaternion();
+        private final Vector3f location = new Vector3f();
+        private final Quaternion rotation = new Quaternion();
+        //scratch for blend()
+        private final Vector3f blendLocation = new Vector3f();
+        private final Quaternion blendRotation = new Quaternion();
+    }
+}
@@ -26,6 +26,7 @@
  */
 package engine;
 
+import cargo.WareRegistry;
 import java.util.ArrayList;
 import lib.astral.Parser;
 import lib.astral.Parser.Term;
@@ -55,6 +56,8 @@ public class ResourceCache {
     private Parser quoteCache = new Parser("QUOTES.txt");
 
     private Term cargoContainerTerm;
+    //ware types by id and name, built from the item cache on first use
+    private WareRegistry wares;
 
     public ResourceCache() {
         try {
@@ -88,6 +91,13 @@ public class ResourceCache {
         return itemCache;
     }
 
+    public synchronized WareRegistry getWares() {
+        if (wares == null) {
+            wares = new WareRegistry(itemCache);
+        }
+        return wares;
+    }
+
     public Parser getWeaponCache() {
         return weaponCache;
     }
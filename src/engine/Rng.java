@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Hands out the random number generators used by the simulation. Normally
+ * each one is seeded from the clock like a plain Random. In deterministic
+ * mode everything is derived from one master seed: each generator asked for
+ * gets the next stream in sequence, so as long as things are created in the
+ * same order two runs see exactly the same numbers.
+ */
+package engine;
+
+import java.util.Random;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Rng {
+
+    private static boolean deterministic = false;
+    private static long masterSeed = 0;
+    private static long streams = 0;
+
+    public static synchronized void setMasterSeed(long seed) {
+        deterministic = true;
+        masterSeed = seed;
+        streams = 0;
+    }
+
+    public static synchronized void restart() {
+        //start handing out streams from the beginning again, for a new game
+        streams = 0;
+    }
+
+    public static synchronized boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public static synchronized long getMasterSeed() {
+        return masterSeed;
+    }
+
+    public static synchronized Random create() {
+        if (deterministic) {
+            return new Random(mix(masterSeed + 0x9E3779B97F4A7C15L * ++streams));
+        } else {
+            return new Random();
+        }
+    }
+
+    private static long mix(long z) {
+        //spreads nearby seeds apart so neighboring streams don't correlate
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Two world snapshots, one being read by the HUD and one being filled by the
+ * main thread. Publishing swaps them, so readers always see a complete frame.
+ */
+package engine;
+
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class SnapshotBuffer {
+
+    private WorldSnapshot front = new WorldSnapshot();
+    private WorldSnapshot back = new WorldSnapshot();
+    private long frame = 0;
+
+    /*
+     * Fills the back buffer and swaps it to the front. Called on the main
+     * thread after the world update, while nothing is rendering.
+     */
+    public synchronized WorldSnapshot publish(Universe universe) {
+        back.fill(universe, frame++);
+        WorldSnapshot tmp = front;
+        front = back;
+        back = tmp;
+        return front;
+    }
+
+    public synchronized WorldSnapshot getFront() {
+        return front;
+    }
+}
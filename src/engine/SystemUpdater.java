@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Drives the out of system simulation. Solar systems the player is not in
+ * do not interact with each other during a tick, so they can be updated
+ * side by side on a work stealing pool. Anything that would move an entity
+ * between systems, or change the player's standings or messages, is buffered
+ * by the systems themselves and applied in system order once every worker
+ * has finished. Systems can still read each other's state mid update, so a
+ * parallel run isn't repeatable and deterministic runs stay serial.
+ *
+ * Systems are also sorted into tiers by how many jumps they are from the
+ * player. Far tiers are only ticked every few frames with the time they
+ * missed, and no more systems are ticked in a frame than fit in the time
+ * budget. Systems that didn't fit keep their time and go first next frame.
+ */
+package engine;
+
+import celestial.Jumphole;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import universe.SolarSystem;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class SystemUpdater {
+
+    //leave a core free for the render thread
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private final ForkJoinPool pool = new ForkJoinPool(WORKERS);
+    private boolean parallel = true;
+    //tiers
+    private int[] tierDistance = {1, 3, 6};
+    private int[] tierInterval = {1, 2, 4, 8};
+    private long budget = 5000000; //nanoseconds per frame
+    private float maxStep = 0.5f;
+    //per system scheduling state, in the same order as the universe's systems
+    private final ArrayList<Slot> slots = new ArrayList<>();
+    private Universe lastUniverse;
+    private SolarSystem lastCenter;
+    private int cursor = 0;
+    //timing of the last tick, in nanoseconds
+    private long lastUpdateTime = 0;
+    private long lastMergeTime = 0;
+    //reused between ticks
+    private final ArrayList<Slot> serial = new ArrayList<>();
+    private final ArrayList<Slot> concurrent = new ArrayList<>();
+
+    public void oosPeriodicUpdate(Universe universe, SolarSystem exclude, float tpf) {
+        long start = System.nanoTime();
+        checkSlots(universe, exclude);
+        pickSystems(exclude, tpf);
+        //update anything that can't be done in parallel
+        for (int a = 0; a < serial.size(); a++) {
+            serial.get(a).update();
+        }
+        //update everything else on the pool
+        if (concurrent.size() > 0) {
+            universe.setParallelPhase(true);
+            try {
+                pool.invoke(new UpdateTask(0, concurrent.size()));
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                universe.setParallelPhase(false);
+            }
+        }
+        long merge = System.nanoTime();
+        //merge deferred transfers and player changes in a fixed order
+        for (int a = 0; a < concurrent.size(); a++) {
+            concurrent.get(a).system.applyTransfers();
+            concurrent.get(a).system.applyPlayerChanges();
+        }
+        //deliver anything that happened on the workers
+        universe.getEvents().flush();
+        lastUpdateTime = merge - start;
+        lastMergeTime = System.nanoTime() - merge;
+    }
+
+    private void pickSystems(SolarSystem exclude, float tpf) {
+        serial.clear();
+        concurrent.clear();
+        long serialCost = 0;
+        long concurrentCost = 0;
+        int next = -1;
+        for (int a = 0; a < slots.size(); a++) {
+            //round robin so systems skipped by the budget are first in line
+            int index = (cursor + a) % slots.size();
+            Slot slot = slots.get(index);
+            if (slot.system == exclude) {
+                //the player's system is updated every frame elsewhere
+                slot.pendingTpf = 0;
+                slot.framesWaiting = 0;
+                continue;
+            }
+            slot.pendingTpf += tpf;
+            slot.framesWaiting++;
+            /*
+             * A system that still has graphics was just left by the player
+             * and will dispose of its scene objects this tick, which has to
+             * happen on the render thread. It can't wait.
+             */
+            if (slot.system.hasGraphics()) {
+                serial.add(slot);
+                serialCost += slot.cost;
+            } else if (slot.framesWaiting >= getInterval(slot.distance)) {
+                if (next != -1) {
+                    //already over budget
+                } else if (serialCost + concurrentCost / WORKERS > budget
+                        && serial.size() + concurrent.size() > 0
+                        && !Rng.isDeterministic()) {
+                    //this is where we pick up next frame
+                    next = index;
+                } else if (parallel && !Rng.isDeterministic()) {
+                    //deterministic runs stay serial, systems read each other mid update
+                    concurrent.add(slot);
+                    concurrentCost += slot.cost;
+                } else {
+                    serial.add(slot);
+                    serialCost += slot.cost;
+                }
+            }
+        }
+        if (next != -1) {
+            cursor = next;
+        }
+    }
+
+    private int getInterval(int distance) {
+        for (int a = 0; a < tierDistance.length; a++) {
+            if (distance <= tierDistance[a]) {
+                return tierInterval[a];
+            }
+        }
+        return tierInterval[tierInterval.length - 1];
+    }
+
+    private void checkSlots(Universe universe, SolarSystem center) {
+        ArrayList<SolarSystem> systems = universe.getSystems();
+        if (universe != lastUniverse || systems.size() != slots.size()) {
+            //new or loaded game
+            slots.clear();
+            for (int a = 0; a < systems.size(); a++) {
+                slots.add(new Slot(systems.get(a)));
+            }
+            lastUniverse = universe;
+            lastCenter = null;
+            cursor = 0;
+        }
+        if (center != lastCenter) {
+            //the player moved, so the tiers did too
+            updateDistances(systems, center);
+            lastCenter = center;
+        }
+    }
+
+    private void updateDistances(ArrayList<SolarSystem> systems, SolarSystem center) {
+        /*
+         * Breadth first search over the jumphole links starting at the
+         * player's system.
+         */
+        for (int a = 0; a < slots.size(); a++) {
+            slots.get(a).distance = UNREACHABLE;
+        }
+        int start = systems.indexOf(center);
+        if (start == -1) {
+            return;
+        }
+        ArrayList<Slot> frontier = new ArrayList<>();
+        slots.get(start).distance = 0;
+        frontier.add(slots.get(start));
+        for (int a = 0; a < frontier.size(); a++) {
+            Slot curr = frontier.get(a);
+            ArrayList<Entity> holes = curr.system.getJumpholeList();
+            for (int b = 0; b < holes.size(); b++) {
+                String out = ((Jumphole) holes.get(b)).getOut();
+                if (out == null) {
+                    continue;
+                }
+                String outSys = out.split("/")[0];
+                for (int c = 0; c < slots.size(); c++) {
+                    Slot test = slots.get(c);
+                    if (test.distance == UNREACHABLE && test.system.getName().equals(outSys)) {
+                        test.distance = curr.distance + 1;
+                        frontier.add(test);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void setTiers(int[] tierDistance, int[] tierInterval) {
+        //there is one more interval than distance, for everything past the last tier
+        if (tierInterval.length == tierDistance.length + 1) {
+            this.tierDistance = tierDistance;
+            this.tierInterval = tierInterval;
+        } else {
+            System.out.println("Tier intervals must have one more entry than tier distances, keeping defaults.");
+        }
+    }
+
+    public void setBudget(float milliseconds) {
+        budget = (long) (milliseconds * 1000000);
+    }
+
+    public void setMaxStep(float maxStep) {
+        this.maxStep = maxStep;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public void disableTiers() {
+        //every system, every tick, no matter how long it takes
+        tierDistance = new int[0];
+        tierInterval = new int[]{1};
+        budget = Long.MAX_VALUE;
+    }
+
+    public long getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    public long getLastMergeTime() {
+        return lastMergeTime;
+    }
+
+    private class Slot {
+
+        private final SolarSystem system;
+        private int distance = UNREACHABLE;
+        private float pendingTpf = 0;
+        private int framesWaiting = 0;
+        //rolling estimate of the time one update takes, in nanoseconds
+        private long cost = 0;
+
+        public Slot(SolarSystem system) {
+            this.system = system;
+        }
+
+        public void update() {
+            long start = System.nanoTime();
+            //break up long waits so autopilots don't overshoot, anything queued to leave sits them out
+            float remaining = pendingTpf;
+            while (remaining > 0) {
+                float step = Math.min(remaining, maxStep);
+                system.oosPeriodicUpdate(step);
+                remaining -= step;
+            }
+            pendingTpf = 0;
+            framesWaiting = 0;
+            cost = (cost * 3 + (System.nanoTime() - start)) / 4;
+        }
+    }
+
+    private class UpdateTask extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+
+        public UpdateTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                concurrent.get(start).update();
+            } else {
+                //split so idle workers can steal the other half
+                int mid = (start + end) / 2;
+                invokeAll(new UpdateTask(start, mid), new UpdateTask(mid, end));
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * A hierarchical timer wheel for things that want to be woken up at some point
+ * in simulated time. Scheduling and canceling are constant time and advancing
+ * only touches the slots that come due, so thousands of sleeping entities cost
+ * next to nothing until their alarms go off. Far off alarms sit on the coarser
+ * wheels and are cascaded down as their time gets closer.
+ */
+package engine;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class TimerWheel<T> implements Serializable {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    //seconds per tick of the finest wheel
+    private final double resolution;
+    //wheels and alarms past the end of the last one
+    private final ArrayList<ArrayList<ArrayList<Timer<T>>>> wheels = new ArrayList<>();
+    private final ArrayList<Timer<T>> overflow = new ArrayList<>();
+    private long now = 0;
+    private int count = 0;
+
+    public TimerWheel(double resolution) {
+        this.resolution = resolution;
+        for (int a = 0; a < LEVELS; a++) {
+            ArrayList<ArrayList<Timer<T>>> wheel = new ArrayList<>();
+            for (int b = 0; b < SLOTS; b++) {
+                wheel.add(new ArrayList<>());
+            }
+            wheels.add(wheel);
+        }
+    }
+
+    /*
+     * Sets an alarm for the given simulated time. The returned timer can be
+     * used to cancel it.
+     */
+    public Timer<T> schedule(T item, double time) {
+        long deadline = (long) Math.ceil(time / resolution);
+        Timer<T> tmp = new Timer<>(item, Math.max(deadline, now + 1));
+        insert(tmp);
+        count++;
+        return tmp;
+    }
+
+    /*
+     * Moves the wheel up to the given simulated time and adds everything that
+     * came due to the list. Canceled alarms are dropped along the way.
+     */
+    public void advance(double time, ArrayList<T> due) {
+        long target = (long) Math.floor(time / resolution);
+        if (count == 0) {
+            //nothing to do
+            now = Math.max(now, target);
+            return;
+        }
+        while (now < target) {
+            now++;
+            //cascade coarser wheels whose slot just came up, coarsest first
+            if ((now & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+                cascade(overflow);
+            }
+            int top = 0;
+            while (top < LEVELS - 1 && (now & ((1L << (BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            for (int l = top; l > 0; l--) {
+                cascade(wheels.get(l).get((int) ((now >> (BITS * l)) & MASK)));
+            }
+            //collect the alarms for this tick
+            ArrayList<Timer<T>> slot = wheels.get(0).get((int) (now & MASK));
+            for (int a = 0; a < slot.size(); a++) {
+                Timer<T> tmp = slot.get(a);
+                count--;
+                if (!tmp.canceled) {
+                    tmp.canceled = true;
+                    due.add(tmp.item);
+                }
+            }
+            slot.clear();
+            if (count == 0) {
+                now = target;
+            }
+        }
+    }
+
+    /*
+     * Drops every alarm without firing it.
+     */
+    public void clear() {
+        for (int a = 0; a < wheels.size(); a++) {
+            for (int b = 0; b < SLOTS; b++) {
+                wheels.get(a).get(b).clear();
+            }
+        }
+        overflow.clear();
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private void cascade(ArrayList<Timer<T>> slot) {
+        ArrayList<Timer<T>> tmp = new ArrayList<>(slot);
+        slot.clear();
+        for (int a = 0; a < tmp.size(); a++) {
+            if (tmp.get(a).canceled) {
+                count--;
+            } else {
+                insert(tmp.get(a));
+            }
+        }
+    }
+
+    private void insert(Timer<T> timer) {
+        long delta = timer.deadline - now;
+        for (int l = 0; l < LEVELS; l++) {
+            if (delta < (1L << (BITS * (l + 1)))) {
+                wheels.get(l).get((int) ((timer.deadline >> (BITS * l)) & MASK)).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    public static class Timer<T> implements Serializable {
+
+        private final T item;
+        private final long deadline;
+        private boolean canceled = false;
+
+        private Timer(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        public void cancel() {
+            canceled = true;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Simulates a freshly generated universe for a while before the player is put
+ * in it, so stations have had time to trade and produce and traders are
+ * already spread out. Runs on its own thread using every core so the menu
+ * stays responsive and can show progress, and can be cut short at any time.
+ */
+package engine;
+
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class WarmUp implements Runnable {
+
+    private final Universe universe;
+    private final God god;
+    private final double duration;
+    private final float tpf;
+    private volatile double simulated = 0;
+    private volatile boolean canceled = false;
+    private volatile boolean done = false;
+
+    public WarmUp(Universe universe, God god, double hours, float tpf) {
+        this.universe = universe;
+        this.god = god;
+        this.duration = hours * 3600;
+        this.tpf = tpf;
+    }
+
+    public void start() {
+        Thread thread = new Thread(this, "Warm Up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        SystemUpdater updater = new SystemUpdater();
+        updater.disableTiers();
+        long start = System.nanoTime();
+        try {
+            while (simulated < duration && !canceled) {
+                //the player is not in any system yet
+                updater.oosPeriodicUpdate(universe, null, tpf);
+                god.simulatedUpdate(tpf);
+                simulated += tpf;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            updater.shutdown();
+            System.out.println("Warm up simulated " + (int) (simulated / 60) + " minutes in "
+                    + (System.nanoTime() - start) / 1000000 + " ms" + (canceled ? " (canceled)" : ""));
+            done = true;
+        }
+    }
+
+    public float getProgress() {
+        if (duration <= 0) {
+            return 1;
+        }
+        return (float) Math.min(1, simulated / duration);
+    }
+
+    public void cancel() {
+        canceled = true;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
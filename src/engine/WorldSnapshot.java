@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * A copy of what the HUD needs to know about the world, taken on the main
+ * thread once the update is done. The HUD render thread (and anything else
+ * off the main thread) reads this instead of the live entities, which keep
+ * changing while it draws. Records are reused from frame to frame so filling
+ * a snapshot doesn't allocate once it has grown to fit the system.
+ */
+package engine;
+
+import celestial.Celestial;
+import celestial.Jumphole;
+import celestial.Planet;
+import celestial.Ship.Ship;
+import celestial.Ship.Station;
+import com.jme3.math.Vector3f;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import lib.Faction;
+import universe.SolarSystem;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class WorldSnapshot {
+
+    public enum Kind {
+
+        PLANET,
+        STATION,
+        SHIP,
+        OTHER
+    }
+    //frame this was taken on
+    private long frame = -1;
+    //the ship the player is flying
+    private Ship viewer;
+    private final Vector3f viewerLocation = new Vector3f();
+    private final Vector3f viewerVelocity = new Vector3f();
+    private final Vector3f viewerAxis = new Vector3f();
+    private boolean hasAxis = false;
+    private float sensor;
+    private double nearWeaponRange;
+    private Ship target;
+    private final Vector3f targetLocation = new Vector3f();
+    //contents of the player's system
+    private final ArrayList<Record> records = new ArrayList<>();
+    private int recordCount = 0;
+    //the filled records by entity, redone with them
+    private final IdentityHashMap<Entity, Record> byEntity = new IdentityHashMap<>();
+    //discovered space for the star map
+    private final ArrayList<SystemRecord> systems = new ArrayList<>();
+    private int systemCount = 0;
+    //standings toward the viewer by faction id, redone when standings change
+    private static final int UNCACHED = Integer.MIN_VALUE;
+    private int[] standings = new int[0];
+    private long standingsVersion = -1;
+    private Faction standingsViewer;
+
+    /*
+     * Copies the world into this snapshot, reusing the records from last time.
+     * Must be called on the main thread.
+     */
+    void fill(Universe universe, long frame) {
+        this.frame = frame;
+        recordCount = 0;
+        systemCount = 0;
+        byEntity.clear();
+        viewer = universe.getPlayerShip();
+        if (viewer == null || viewer.getCurrentSystem() == null) {
+            viewer = null;
+            target = null;
+            return;
+        }
+        //viewer
+        viewerLocation.set(viewer.getPhysicsLocation());
+        Vector3f vel = viewer.getLinearVelocity();
+        viewerVelocity.set(vel == null ? Vector3f.ZERO : vel);
+        Vector3f axis = viewer.getRotationAxis();
+        hasAxis = axis != null;
+        if (hasAxis) {
+            viewerAxis.set(axis);
+        }
+        long version = universe.getFactions().getVersion();
+        if (version != standingsVersion || viewer.getFaction() != standingsViewer) {
+            Arrays.fill(standings, UNCACHED);
+            standingsVersion = version;
+            standingsViewer = viewer.getFaction();
+        }
+        sensor = viewer.getSensor();
+        nearWeaponRange = viewer.getNearWeaponRange();
+        target = viewer.getTarget();
+        if (target != null) {
+            targetLocation.set(target.getPhysicsLocation());
+        }
+        //the player's system
+        ArrayList<Entity> entities = viewer.getCurrentSystem().getCelestials();
+        for (int a = 0; a < entities.size(); a++) {
+            Entity entity = entities.get(a);
+            Record tmp = nextRecord();
+            tmp.entity = entity;
+            byEntity.put(entity, tmp);
+            tmp.name = entity.getName();
+            tmp.location.set(entity.getPhysicsLocation());
+            tmp.radius = 0;
+            tmp.standing = 0;
+            tmp.playerFaction = false;
+            tmp.shieldPercent = 0;
+            tmp.hullPercent = 0;
+            if (entity instanceof Planet) {
+                tmp.kind = Kind.PLANET;
+                tmp.radius = ((Planet) entity).getRadius();
+            } else if (entity instanceof Ship) {
+                Ship ship = (Ship) entity;
+                tmp.kind = entity instanceof Station ? Kind.STATION : Kind.SHIP;
+                tmp.standing = standingTo(ship);
+                tmp.playerFaction = ship.getFaction().getName().equals(Faction.PLAYER);
+                tmp.shieldPercent = ship.getShield() / ship.getMaxShield();
+                tmp.hullPercent = ship.getHull() / ship.getMaxHull();
+            } else {
+                tmp.kind = Kind.OTHER;
+            }
+            tmp.discovered = isDiscovered(entity, tmp);
+        }
+        //discovered space
+        ArrayList<SolarSystem> discovered = universe.getDiscoveredSpace();
+        for (int a = 0; a < discovered.size(); a++) {
+            SolarSystem system = discovered.get(a);
+            SystemRecord tmp = nextSystem();
+            tmp.name = system.getName();
+            tmp.location.set(system.getLocation());
+            tmp.playerOwned = system.getOwner().equals("Player");
+            tmp.playerHere = system == viewer.getCurrentSystem();
+            tmp.linkCount = 0;
+            ArrayList<Entity> holes = system.getJumpholeList();
+            for (int b = 0; b < holes.size(); b++) {
+                Jumphole hole = (Jumphole) holes.get(b);
+                if (hole.getOutGate() == null) {
+                    System.out.println("Forcing " + hole.getName() + " to link with partner");
+                    hole.createLink(hole.getOut());
+                }
+                if (hole.getOutGate() != null && hole.getOutGate().getCurrentSystem() != null) {
+                    tmp.addLink(hole.getOutGate().getCurrentSystem().getLocation());
+                }
+            }
+        }
+    }
+
+    private int standingTo(Ship ship) {
+        int id = ship.getFaction().getId();
+        if (id < 0) {
+            return viewer.getStandingsToMe(ship);
+        }
+        if (id >= standings.length) {
+            int old = standings.length;
+            standings = Arrays.copyOf(standings, id + 1);
+            Arrays.fill(standings, old, standings.length, UNCACHED);
+        }
+        if (standings[id] == UNCACHED) {
+            standings[id] = viewer.getStandingsToMe(ship);
+        }
+        return standings[id];
+    }
+
+    private boolean isDiscovered(Entity entity, Record record) {
+        if (!(entity instanceof Celestial)) {
+            return false;
+        }
+        Celestial celestial = (Celestial) entity;
+        //check the discovery flag
+        if (celestial.isDiscoveredByPlayer()) {
+            return true;
+        }
+        //check special cases
+        if (record.kind == Kind.STATION) {
+            if (record.standing > Faction.HOSTILE_STANDING) {
+                //neutral and friendly stations are visible
+                celestial.discover();
+                return true;
+            }
+        } else if (record.kind == Kind.SHIP) {
+            if (record.playerFaction) {
+                celestial.discover();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Record nextRecord() {
+        if (recordCount == records.size()) {
+            records.add(new Record());
+        }
+        return records.get(recordCount++);
+    }
+
+    private SystemRecord nextSystem() {
+        if (systemCount == systems.size()) {
+            systems.add(new SystemRecord());
+        }
+        return systems.get(systemCount++);
+    }
+
+    /*
+     * Finds the record for an entity, or null if it isn't in the snapshot.
+     */
+    public Record find(Entity entity) {
+        return byEntity.get(entity);
+    }
+
+    public long getFrame() {
+        return frame;
+    }
+
+    public boolean hasViewer() {
+        return viewer != null;
+    }
+
+    public Ship getViewer() {
+        return viewer;
+    }
+
+    public Vector3f getViewerLocation() {
+        return viewerLocation;
+    }
+
+    public Vector3f getViewerVelocity() {
+        return viewerVelocity;
+    }
+
+    public Vector3f getViewerAxis() {
+        return hasAxis ? viewerAxis : null;
+    }
+
+    public float getSensor() {
+        return sensor;
+    }
+
+    public double getNearWeaponRange() {
+        return nearWeaponRange;
+    }
+
+    public Ship getTarget() {
+        return target;
+    }
+
+    public Vector3f getTargetLocation() {
+        return targetLocation;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public Record getRecord(int index) {
+        return records.get(index);
+    }
+
+    public int getSystemCount() {
+        return systemCount;
+    }
+
+    public SystemRecord getSystem(int index) {
+        return systems.get(index);
+    }
+
+    public static class Record {
+
+        private Entity entity;
+        private Kind kind;
+        private String name;
+        private final Vector3f location = new Vector3f();
+        private float radius;
+        private float standing;
+        private boolean discovered;
+        private boolean playerFaction;
+        private float shieldPercent;
+        private float hullPercent;
+
+        public Entity getEntity() {
+            return entity;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Vector3f getLocation() {
+            return location;
+        }
+
+        public float getRadius() {
+            return radius;
+        }
+
+        public float getStanding() {
+            return standing;
+        }
+
+        public boolean isDiscovered() {
+            return discovered;
+        }
+
+        public boolean isPlayerFaction() {
+            return playerFaction;
+        }
+
+        public float getShieldPercent() {
+            return shieldPercent;
+        }
+
+        public float getHullPercent() {
+            return hullPercent;
+        }
+    }
+
+    public static class SystemRecord {
+
+        private String name;
+        private final Vector3f location = new Vector3f();
+        private boolean playerOwned;
+        private boolean playerHere;
+        //x and z of each system this one links to
+        private float[] links = new float[8];
+        private int linkCount;
+
+        private void addLink(Vector3f loc) {
+            if (linkCount * 2 == links.length) {
+                float[] tmp = new float[links.length * 2];
+                System.arraycopy(links, 0, tmp, 0, links.length);
+                links = tmp;
+            }
+            links[linkCount * 2] = loc.x;
+            links[linkCount * 2 + 1] = loc.z;
+            linkCount++;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Vector3f getLocation() {
+            return location;
+        }
+
+        public boolean isPlayerOwned() {
+            return playerOwned;
+        }
+
+        public boolean isPlayerHere() {
+            return playerHere;
+        }
+
+        public int getLinkCount() {
+            return linkCount;
+        }
+
+        public float getLinkX(int index) {
+            return links[index * 2];
+        }
+
+        public float getLinkZ(int index) {
+            return links[index * 2 + 1];
+        }
+    }
+}
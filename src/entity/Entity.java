@@ -51,6 +51,26 @@ public interface Entity {
     public void periodicUpdate(float tpf);
 
     public void oosPeriodicUpdate(float tpf);
+    /*
+     * Reads the world before anything in the system is updated. This is called
+     * on every entity in a system first, possibly in parallel, so it must not
+     * change anything except the entity's own view of the world.
+     */
+
+    public void sense(float tpf);
+    /*
+     * Decides what to do about what was sensed. Called on every entity after
+     * sensing, possibly in parallel too, so it may only change the entity
+     * itself. Anything that would change something else is kept as an intent.
+     */
+
+    public void think(float tpf);
+    /*
+     * Carries out the intents from think(). Called one entity at a time, right
+     * before the entity's update.
+     */
+
+    public void act(float tpf);
     /*
      * Constructs and deconstructs the object. Must be called AFTER the
      * constructor has been called for cleanliness.
@@ -90,6 +90,21 @@ public class PhysicsEntity implements Entity, Serializable {
         //called only when the player is not in the same system
     }
 
+    @Override
+    public void sense(float tpf) {
+        //nothing to sense
+    }
+
+    @Override
+    public void think(float tpf) {
+        //nothing to decide
+    }
+
+    @Override
+    public void act(float tpf) {
+        //nothing to do
+    }
+
     @Override
     public void construct(AssetManager assets) {
         //create the mesh and material
@@ -162,6 +177,17 @@ public class PhysicsEntity implements Entity, Serializable {
         }
     }
 
+    /*
+     * Copies the location out of the physics space. The physics moves things
+     * in the player's system, so the solar system calls this once a frame to
+     * keep getLocation() current without moving any bodies.
+     */
+    public void syncLocation() {
+        if (physics != null) {
+            location = physics.getPhysicsLocation(location);
+        }
+    }
+
     @Override
     public Quaternion getRotation() {
         return rotation.clone();
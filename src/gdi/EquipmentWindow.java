@@ -31,6 +31,7 @@ import celestial.Ship.Station;
 import com.jme3.asset.AssetManager;
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
+import engine.WorldSnapshot;
 import entity.Entity;
 import gdi.component.AstralBar;
 import gdi.component.AstralComponent;
@@ -62,13 +63,15 @@ public class EquipmentWindow extends AstralWindow {
     AstralBar targetHull = new AstralBar(1, 1);
     Font targetFont = new Font("Monospaced", Font.PLAIN, 10);
     private Ship ship;
+    private WorldSnapshot snapshot;
 
     public EquipmentWindow(AssetManager assets) {
         super(assets, 300, 300, false);
         generate();
     }
 
-    public void update(Ship ship) {
+    public void update(Ship ship, WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
         if (ship != null) {
             this.ship = ship;
             //clear list
@@ -239,12 +242,14 @@ public class EquipmentWindow extends AstralWindow {
         @Override
         public void render(Graphics f) {
             BufferedImage frame = Utility.CreateCompatibleImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-            if (ship != null) {
+            //read from the snapshot, the world keeps changing while we draw
+            WorldSnapshot view = snapshot;
+            if (view != null && view.hasViewer()) {
                 //get graphics
                 Graphics2D gfx = (Graphics2D) frame.getGraphics();
                 //draw stuff
-                if (ship.getTarget() != null) {
-                    fillRadar(gfx);
+                if (view.getTarget() != null) {
+                    fillRadar(gfx, view);
                 }
                 //draw circle
                 gfx.setColor(Color.BLUE);
@@ -256,15 +261,15 @@ public class EquipmentWindow extends AstralWindow {
             f.drawImage(frame, getX(), getY(), getWidth(), getHeight(), null);
         }
 
-        private void fillRadar(Graphics2D gfx) {
+        private void fillRadar(Graphics2D gfx, WorldSnapshot view) {
             //get sensor strength
-            double range = ship.getSensor();
+            double range = view.getSensor();
             //get coordinates
-            double ex = ship.getTarget().getPhysicsLocation().getX();
-            double ey = ship.getTarget().getPhysicsLocation().getZ();
+            double ex = view.getTargetLocation().getX();
+            double ey = view.getTargetLocation().getZ();
             //adjust for player loc
-            ex -= ship.getPhysicsLocation().getX();
-            ey -= ship.getPhysicsLocation().getZ();
+            ex -= view.getViewerLocation().getX();
+            ey -= view.getViewerLocation().getZ();
             //calculate distance
             double dist = magnitude(ex, ey);
             if (dist <= range) {
@@ -277,7 +282,7 @@ public class EquipmentWindow extends AstralWindow {
                  * Draw the ship and its vector lines
                  */
                 drawShipOnRadar(gfx, ex, ey);
-                drawVectorLines(gfx, ex, ey);
+                drawVectorLines(gfx, view, ex, ey);
             }
         }
 
@@ -287,7 +292,7 @@ public class EquipmentWindow extends AstralWindow {
             gfx.setFont(radarFont);
         }
 
-        protected void drawVectorLines(Graphics2D gfx, double ex, double ey) {
+        protected void drawVectorLines(Graphics2D gfx, WorldSnapshot view, double ex, double ey) {
             try {
                 /*
                  * Shows the vectors of the target ship, useful in an intercept or
@@ -297,7 +302,7 @@ public class EquipmentWindow extends AstralWindow {
                 Hardpoint tmp = (Hardpoint) weaponList.getItemAtIndex(weaponList.getIndex());
                 if (tmp != null) {
                     double range = tmp.getMounted().getRange();
-                    range /= ship.getSensor();
+                    range /= view.getSensor();
                     gfx.setColor(Color.RED);
                     int w = (int) (getWidth() * range);
                     int h = (int) (getHeight() * range);
@@ -305,11 +310,13 @@ public class EquipmentWindow extends AstralWindow {
                 }
                 //horizontal line of sight of your craft
                 gfx.setColor(Color.CYAN);
-                Vector3f pointer = ship.getRotationAxis();
-                double dTheta = Math.atan2(pointer.z, pointer.x) - FastMath.PI;
-                double dpx = Math.cos(dTheta) * getWidth() / 2;
-                double dpy = Math.sin(dTheta) * getHeight() / 2;
-                gfx.drawLine(getWidth() / 2, (getHeight() / 2), (int) dpx + (getWidth() / 2), (int) dpy + (getHeight() / 2));
+                Vector3f pointer = view.getViewerAxis();
+                if (pointer != null) {
+                    double dTheta = Math.atan2(pointer.z, pointer.x) - FastMath.PI;
+                    double dpx = Math.cos(dTheta) * getWidth() / 2;
+                    double dpy = Math.sin(dTheta) * getHeight() / 2;
+                    gfx.drawLine(getWidth() / 2, (getHeight() / 2), (int) dpx + (getWidth() / 2), (int) dpy + (getHeight() / 2));
+                }
                 //line between your craft and the target
                 gfx.setColor(Color.PINK);
                 gfx.drawLine(getWidth() / 2, getHeight() / 2, (int) ex + (getWidth() / 2), (int) ey + (getHeight() / 2));
@@ -33,6 +33,8 @@ import com.jme3.asset.AssetManager;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import engine.AstralCamera;
+import engine.WorldSnapshot;
+import engine.WorldSnapshot.Record;
 import entity.Entity;
 import entity.Entity.State;
 import gdi.component.AstralComponent;
@@ -56,6 +58,9 @@ public class HudMarker extends AstralWindow {
     private final Ship playerShip;
     private final AstralCamera camera;
     private boolean relevant = true;
+    //what the render thread draws from
+    private WorldSnapshot snapshot;
+    private Record record;
 
     public HudMarker(AssetManager assets, AstralCamera cam, Ship playerShip, Entity target, int width, int height) {
         super(assets, width, height, true);
@@ -95,10 +100,7 @@ public class HudMarker extends AstralWindow {
          */
         //make sure we have a target
         if (target != null) {
-            //make sure the entity is alive
-            if (target.getState() != State.ALIVE) {
-                relevant = false;
-            }
+            //deaths and jumps are handled by dismiss()
             //if it is a celestial there are more tests to do
             Ship test = playerShip;
             if (target instanceof Ship) {
@@ -151,6 +153,15 @@ public class HudMarker extends AstralWindow {
         return target;
     }
 
+    public void dismiss() {
+        relevant = false;
+    }
+
+    public void setSnapshot(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+        record = snapshot.find(target);
+    }
+
     public void setTarget(Entity target) {
         this.target = target;
     }
@@ -169,16 +180,17 @@ public class HudMarker extends AstralWindow {
                     gfx.fillRect(0, 0, width, height);
                     gfx.setComposite(AlphaComposite.Src);
                     //render marker
-                    if (target instanceof Celestial) {
+                    WorldSnapshot view = snapshot;
+                    Record rec = record;
+                    if (target instanceof Celestial && rec != null) {
                         if (target instanceof Ship) {
                             //draw marker
                             gfx.setStroke(new BasicStroke(3));
-                            Ship tmp = (Ship) target;
-                            Ship player = playerShip;
-                            float standing = player.getStandingsToMe(tmp);
-                            if (tmp == player.getTarget()) {
+                            float standing = rec.getStanding();
+                            boolean targeted = target == view.getTarget();
+                            if (targeted) {
                                 gfx.setColor(Color.YELLOW);
-                            } else if (tmp.getFaction().getName().equals(Faction.PLAYER)) {
+                            } else if (rec.isPlayerFaction()) {
                                 gfx.setColor(Color.MAGENTA);
                             } else if (standing <= Faction.HOSTILE_STANDING) {
                                 gfx.setColor(Color.RED);
@@ -189,10 +201,10 @@ public class HudMarker extends AstralWindow {
                             }
                             gfx.drawOval(5, 5, width - 10, height - 10);
                             //draw health bars
-                            if (tmp == player.getTarget()) {
+                            if (targeted) {
                                 //I only want health bars for player's target
-                                float shieldPercent = tmp.getShield() / tmp.getMaxShield();
-                                float hullPercent = tmp.getHull() / tmp.getMaxHull();
+                                float shieldPercent = rec.getShieldPercent();
+                                float hullPercent = rec.getHullPercent();
                                 //draw hull
                                 gfx.setColor(Color.RED);
                                 gfx.fillRect(0, 0, (int) (width * hullPercent), 3);
@@ -54,6 +54,7 @@ public class MenuHomeWindow extends AstralWindow {
 
     AstralLabel logoLabel = new AstralLabel();
     AstralLabel versionLabel = new AstralLabel();
+    AstralLabel warmUpLabel = new AstralLabel();
     AstralList mainList = new AstralList(this);
     AstralList gameList = new AstralList(this);
     AstralList saveList = new AstralList(this);
@@ -113,17 +114,27 @@ public class MenuHomeWindow extends AstralWindow {
         saveList.setHeight(400);
         saveList.setFont(new Font("Monospaced", Font.PLAIN, 16));
         saveList.setVisible(false);
+        //setup warm up label
+        warmUpLabel.setText("");
+        warmUpLabel.setFont(new Font("Monospaced", Font.PLAIN, 16));
+        warmUpLabel.setX(getWidth() / 2 - 200);
+        warmUpLabel.setY(getHeight() / 2 - 50);
+        warmUpLabel.setWidth(400);
+        warmUpLabel.setHeight(100);
+        warmUpLabel.setVisible(false);
         //add components
         addComponent(logoLabel);
         addComponent(versionLabel);
         addComponent(mainList);
         addComponent(gameList);
         addComponent(saveList);
+        addComponent(warmUpLabel);
         //make visible
         setVisible(true);
     }
 
     public void update(float tpf) {
+        updateWarmUp();
         if (getState() != InternalState.NORMAL) {
             if (getStateCounter() > 2) {
                 if (getState() == InternalState.PRENEW) {
@@ -139,6 +150,22 @@ public class MenuHomeWindow extends AstralWindow {
         }
     }
 
+    private void updateWarmUp() {
+        if (engine.isWarmingUp()) {
+            //show progress instead of the menu
+            mainList.setVisible(false);
+            gameList.setVisible(false);
+            saveList.setVisible(false);
+            warmUpLabel.setText("Simulating the universe... "
+                    + (int) (engine.getWarmUpProgress() * 100) + "%\n\nClick to skip");
+            warmUpLabel.setVisible(true);
+        } else if (warmUpLabel.isVisible()) {
+            warmUpLabel.setVisible(false);
+            mainList.setVisible(true);
+            populateMainMenuList();
+        }
+    }
+
     private void resetState() {
         //reset state
         setState(InternalState.NORMAL);
@@ -157,6 +184,11 @@ public class MenuHomeWindow extends AstralWindow {
     @Override
     public void handleMouseReleasedEvent(String me, Vector3f mouseLoc) {
         super.handleMouseReleasedEvent(me, mouseLoc);
+        if (engine.isWarmingUp()) {
+            //skip the rest of the warm up
+            engine.cancelWarmUp();
+            return;
+        }
         String command = "";
         if (mainList.isVisible()) {
             command = (String) mainList.getItemAtIndex(mainList.getIndex());
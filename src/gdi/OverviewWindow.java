@@ -21,14 +21,13 @@
  */
 package gdi;
 
-import celestial.Celestial;
-import celestial.Planet;
 import celestial.Ship.Ship;
-import celestial.Ship.Station;
 import com.jme3.asset.AssetManager;
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
-import entity.Entity;
+import engine.WorldSnapshot;
+import engine.WorldSnapshot.Kind;
+import engine.WorldSnapshot.Record;
 import gdi.component.AstralComponent;
 import gdi.component.AstralLabel;
 import gdi.component.AstralWindow;
@@ -38,7 +37,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import lib.Faction;
 
 /**
@@ -56,6 +54,7 @@ public class OverviewWindow extends AstralWindow {
     AstralLabel engineLabel = new AstralLabel(200, 25);
     OverviewCanvas radar = new OverviewCanvas();
     private Ship sensorShip;
+    private WorldSnapshot snapshot;
     private double area = 1;
     protected boolean showShipNames = true;
     protected boolean showStationNames = true;
@@ -80,8 +79,9 @@ public class OverviewWindow extends AstralWindow {
         }
     }
 
-    public void updateOverview(Ship sensorShip) {
+    public void updateOverview(Ship sensorShip, WorldSnapshot snapshot) {
         this.sensorShip = sensorShip;
+        this.snapshot = snapshot;
         shipLabel.setVisible(showShipNames);
         stationLabel.setVisible(showStationNames);
         velLabel.setText("REL SPEED: " + roundTwoDecimal(sensorShip.getLinearVelocity().length()) + "u/s");
@@ -101,10 +101,10 @@ public class OverviewWindow extends AstralWindow {
         @Override
         public void render(Graphics f) {
             BufferedImage frame = Utility.CreateCompatibleImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-            if (sensorShip != null) {
+            if (snapshot != null && snapshot.hasViewer()) {
                 try {
                     //update sensor range display
-                    rangeLabel.setText("VIEW: " + sensorShip.getSensor() * area);
+                    rangeLabel.setText("VIEW: " + snapshot.getSensor() * area);
                     modeLabel.setText(area + "x");
                     //get graphics
                     Graphics2D gfx = (Graphics2D) frame.getGraphics();
@@ -121,49 +121,50 @@ public class OverviewWindow extends AstralWindow {
         }
 
         private void fillRadar(Graphics2D gfx) throws Exception {
-            //get entity list
-            ArrayList<Entity> entities = sensorShip.getCurrentSystem().getCelestials();
-            drawVectorLines(gfx);
-            for (int a = 0; a < entities.size(); a++) {
+            //read from the snapshot, the world keeps changing while we draw
+            WorldSnapshot view = snapshot;
+            Vector3f sLoc = view.getViewerLocation();
+            drawVectorLines(gfx, view);
+            for (int a = 0; a < view.getRecordCount(); a++) {
+                Record rec = view.getRecord(a);
                 //get view scaler
-                double view = sensorShip.getSensor() * area;
+                double range = view.getSensor() * area;
                 //get coordinates
-                Vector3f loc = entities.get(a).getPhysicsLocation();
+                Vector3f loc = rec.getLocation();
                 double ex = loc.x;
                 double ey = loc.y;
                 double ez = loc.z;
                 //adjust for player loc
-                ex -= sensorShip.getPhysicsLocation().getX();
-                ey -= sensorShip.getPhysicsLocation().getY();
-                ez -= sensorShip.getPhysicsLocation().getZ();
+                ex -= sLoc.getX();
+                ey -= sLoc.getY();
+                ez -= sLoc.getZ();
                 //calculate distance
                 double dist = magnitude(ex, ey, ez);
-                if (dist <= sensorShip.getSensor() || entities.get(a) instanceof Planet
-                        || isEntityDiscovered(entities.get(a))) {
+                if (dist <= view.getSensor() || rec.getKind() == Kind.PLANET
+                        || rec.isDiscovered()) {
                     //adjust for size
-                    ex /= view;
-                    ez /= view;
+                    ex /= range;
+                    ez /= range;
                     ex *= getWidth() / 2;
                     ez *= getHeight() / 2;
                     /*
                      * Does the final drawing based on what exactly the object is
                      */
-                    if (entities.get(a) instanceof Planet) {
-                        doPlanet(entities, a, view, gfx, ex, ez);
-                    } else if (entities.get(a) == sensorShip) {
+                    if (rec.getKind() == Kind.PLANET) {
+                        doPlanet(rec, range, gfx, ex, ez);
+                    } else if (rec.getEntity() == view.getViewer()) {
                         doSensorShip(gfx, ex, ez);
-                    } else if (entities.get(a) instanceof Station) {
-                        doStation(gfx, ex, ez, entities, a);
-                    } else if (entities.get(a) instanceof Ship) {
-                        doShip(gfx, ex, ez, entities, a);
+                    } else if (rec.getKind() == Kind.STATION) {
+                        doStation(gfx, ex, ez, rec);
+                    } else if (rec.getKind() == Kind.SHIP) {
+                        doShip(gfx, ex, ez, rec);
                     }
                 }
             }
         }
 
-        protected void doPlanet(ArrayList<Entity> entities, int a, double range, Graphics2D gfx, double ex, double ey) {
+        protected void doPlanet(Record pl, double range, Graphics2D gfx, double ex, double ey) {
             //get radius
-            Planet pl = (Planet) entities.get(a);
             double diam = pl.getRadius() * 2;
             diam /= (range);
             diam *= getWidth() / 2;
@@ -173,7 +174,7 @@ public class OverviewWindow extends AstralWindow {
             gfx.drawOval((int) ex + (getWidth() / 2) - (int) (diam / 2), (int) ey + (getHeight() / 2) - (int) (diam / 2), (int) diam, (int) diam);
             gfx.setColor(Color.pink);
             gfx.setFont(radarFont);
-            if (isDiscovered(pl)) {
+            if (pl.isDiscovered()) {
                 gfx.drawString(pl.getName(), (int) (ex + diam / 2) + (getWidth() / 2) - 1, (int) (ey + diam / 2) + (getHeight() / 2) - 1);
             } else {
                 gfx.drawString("NO AIM", (int) (ex + diam / 2) + (getWidth() / 2) - 1, (int) (ey + diam / 2) + (getHeight() / 2) - 1);
@@ -185,74 +186,35 @@ public class OverviewWindow extends AstralWindow {
             gfx.drawRect((int) ex + (getWidth() / 2) - 2, (int) ey + (getHeight() / 2) - 2, 4, 4);
         }
 
-        protected void doShip(Graphics2D gfx, double ex, double ey, ArrayList<Entity> entities, int a) {
-            drawShipOnRadar(gfx, ex, ey, entities, a);
+        protected void doShip(Graphics2D gfx, double ex, double ey, Record rec) {
+            drawShipOnRadar(gfx, ex, ey, rec);
         }
 
-        protected void doStation(Graphics2D gfx, double ex, double ey, ArrayList<Entity> entities, int a) {
-            drawStationOnRadar(gfx, ex, ey, entities, a);
+        protected void doStation(Graphics2D gfx, double ex, double ey, Record rec) {
+            drawStationOnRadar(gfx, ex, ey, rec);
         }
 
-        private boolean isEntityDiscovered(Entity entity) {
-            if (entity instanceof Celestial) {
-                return isDiscovered((Celestial) entity);
-            }
-
-            return false;
-        }
-
-        private boolean isDiscovered(Celestial celestial) {
-            //check the discovery flag
-            if (celestial.isDiscoveredByPlayer()) {
-                return true;
-            }
-            //check special cases
-            if (celestial instanceof Ship) {
-                if (celestial instanceof Station) {
-                    Station test = (Station) celestial;
-                    if (!test.isHostileToMe(sensorShip)) {
-                        //neutral and friendly stations are visible
-                        celestial.discover();
-                        return true;
-                    }
-                } else {
-                    Ship tmp = (Ship) celestial;
-                    if (tmp.getFaction().getName().equals(Faction.PLAYER)) {
-                        celestial.discover();
-                        return true;
-                    } else {
-                        //ships that are not player are not discoverable
-                        return false;
-                    }
-                }
+        protected void drawShipOnRadar(Graphics2D gfx, double ex, double ey, Record rec) {
+            setStandingColor(gfx, rec.getStanding());
+            gfx.drawRect((int) ex + (getWidth() / 2) - 1, (int) ey + (getHeight() / 2) - 1, 2, 2);
+            gfx.setFont(radarFont);
+            if (showShipNames) {
+                gfx.setFont(radarFont);
+                gfx.drawString(rec.getName(), (int) ex + (getWidth() / 2) - 4, (int) ey + (getHeight() / 2) - 4);
             }
-
-            return false;
         }
 
-        protected void drawShipOnRadar(Graphics2D gfx, double ex, double ey, ArrayList<Entity> entities, int a) {
-            Ship tmp = (Ship) entities.get(a);
-            float standings = sensorShip.getStandingsToMe(tmp);
-            if (standings <= Faction.HOSTILE_STANDING) {
-                gfx.setColor(Color.RED);
-            } else if (standings >= Faction.FRIENDLY_STANDING && standings < Faction.PERMA_GREEN) {
-                gfx.setColor(Color.GREEN);
-            } else if (standings == Faction.PERMA_GREEN) {
-                gfx.setColor(Color.MAGENTA);
-            } else {
-                gfx.setColor(Color.WHITE);
-            }
+        protected void drawStationOnRadar(Graphics2D gfx, double ex, double ey, Record rec) {
+            setStandingColor(gfx, rec.getStanding());
             gfx.drawRect((int) ex + (getWidth() / 2) - 1, (int) ey + (getHeight() / 2) - 1, 2, 2);
             gfx.setFont(radarFont);
-            if (showShipNames) {
+            if (showStationNames) {
                 gfx.setFont(radarFont);
-                gfx.drawString(entities.get(a).getName(), (int) ex + (getWidth() / 2) - 4, (int) ey + (getHeight() / 2) - 4);
+                gfx.drawString(rec.getName(), (int) ex + (getWidth() / 2) - 4, (int) ey + (getHeight() / 2) - 4);
             }
         }
 
-        protected void drawStationOnRadar(Graphics2D gfx, double ex, double ey, ArrayList<Entity> entities, int a) {
-            Station tmp = (Station) entities.get(a);
-            float standings = sensorShip.getStandingsToMe(tmp);
+        private void setStandingColor(Graphics2D gfx, float standings) {
             if (standings <= Faction.HOSTILE_STANDING) {
                 gfx.setColor(Color.RED);
             } else if (standings >= Faction.FRIENDLY_STANDING && standings < Faction.PERMA_GREEN) {
@@ -262,23 +224,17 @@ public class OverviewWindow extends AstralWindow {
             } else {
                 gfx.setColor(Color.WHITE);
             }
-            gfx.drawRect((int) ex + (getWidth() / 2) - 1, (int) ey + (getHeight() / 2) - 1, 2, 2);
-            gfx.setFont(radarFont);
-            if (showStationNames) {
-                gfx.setFont(radarFont);
-                gfx.drawString(entities.get(a).getName(), (int) ex + (getWidth() / 2) - 4, (int) ey + (getHeight() / 2) - 4);
-            }
         }
 
-        protected void drawVectorLines(Graphics2D gfx) {
-            drawYawVector(gfx);
-            drawDirectionVector(gfx);
+        protected void drawVectorLines(Graphics2D gfx, WorldSnapshot view) {
+            drawYawVector(gfx, view);
+            drawDirectionVector(gfx, view);
         }
 
-        private void drawYawVector(Graphics2D gfx) {
+        private void drawYawVector(Graphics2D gfx, WorldSnapshot view) {
             //draw yaw vector
             gfx.setColor(Color.CYAN);
-            Vector3f pointer = sensorShip.getRotationAxis();
+            Vector3f pointer = view.getViewerAxis();
             if (pointer != null) {
                 double dTheta = Math.atan2(pointer.z, pointer.x) - FastMath.PI;
                 double dpx = Math.cos(dTheta) * getWidth() / 2;
@@ -287,11 +243,11 @@ public class OverviewWindow extends AstralWindow {
             }
         }
 
-        private void drawDirectionVector(Graphics2D gfx) {
+        private void drawDirectionVector(Graphics2D gfx, WorldSnapshot view) {
             try {
                 //draw velocity vector
                 gfx.setColor(Color.yellow);
-                Vector3f vel = sensorShip.getLinearVelocity();
+                Vector3f vel = view.getViewerVelocity();
                 double vTheta = Math.atan2(vel.z, vel.x);
                 double vpx = Math.cos(vTheta) * getWidth() / 2;
                 double vpy = Math.sin(vTheta) * getHeight() / 2;
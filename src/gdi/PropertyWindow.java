@@ -44,7 +44,9 @@ import gdi.component.AstralWindow;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import lib.Faction;
 import universe.SolarSystem;
+import universe.UniverseIndex;
 
 public class PropertyWindow extends AstralWindow {
 
@@ -453,21 +455,10 @@ public class PropertyWindow extends AstralWindow {
         optionList.clearList();
         ArrayList<Ship> logicalPropertyList = new ArrayList<>();
         if (ship != null) {
-            //get global list
-            ArrayList<Entity> prop = ship.getCurrentSystem().getUniverse().getPlayerProperty();
-            //make sub lists
-            ArrayList<Ship> pShips = new ArrayList<>();
-            ArrayList<Ship> pStats = new ArrayList<>();
-            for (int a = 0; a < prop.size(); a++) {
-                //add to correct sub list
-                //if (!(prop.get(a) instanceof Explosion)) {
-                if (prop.get(a) instanceof Station) {
-                    pStats.add((Station) prop.get(a));
-                } else if (prop.get(a) instanceof Ship) {
-                    pShips.add((Ship) prop.get(a));
-                }
-                //}
-            }
+            //get sub lists from the index
+            UniverseIndex uIndex = ship.getCurrentSystem().getUniverse().getIndex();
+            ArrayList<Ship> pShips = new ArrayList<>(uIndex.getShips(Faction.PLAYER, null));
+            ArrayList<Ship> pStats = new ArrayList<>(uIndex.getStations(Faction.PLAYER, null));
             //add to logical list
             /*
              * Ships go first.
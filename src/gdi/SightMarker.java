@@ -31,6 +31,7 @@ import celestial.Ship.Ship;
 import com.jme3.asset.AssetManager;
 import com.jme3.math.Vector3f;
 import engine.AstralCamera;
+import engine.WorldSnapshot;
 import gdi.component.AstralComponent;
 import gdi.component.AstralWindow;
 import java.awt.AlphaComposite;
@@ -49,6 +50,7 @@ public class SightMarker extends AstralWindow {
     private Ship host;
     private SightCanvas canvas;
     private AstralCamera camera;
+    private WorldSnapshot snapshot;
 
     public SightMarker(AssetManager assets, Ship host, AstralCamera camera, int width, int height) {
         super(assets, width, height, true);
@@ -116,6 +118,10 @@ public class SightMarker extends AstralWindow {
         this.camera = camera;
     }
 
+    public void setSnapshot(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
     private class SightCanvas extends AstralComponent {
 
         @Override
@@ -130,12 +136,13 @@ public class SightMarker extends AstralWindow {
                     gfx.fillRect(0, 0, width, height);
                     gfx.setComposite(AlphaComposite.Src);
                     //render marker
-                    if (host.getTarget() != null) {
+                    WorldSnapshot view = snapshot;
+                    if (view != null && view.getTarget() != null) {
                         //draw marker
                         gfx.setStroke(new BasicStroke(2));
                         //pick by range
-                        float range = (float) host.getNearWeaponRange();
-                        float distance = host.getLocation().distance(host.getTarget().getLocation());
+                        float range = (float) view.getNearWeaponRange();
+                        float distance = view.getViewerLocation().distance(view.getTargetLocation());
                         if (range < distance) {
                             gfx.setColor(Color.orange);
                         } else {
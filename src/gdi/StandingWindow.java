@@ -245,7 +245,8 @@ public class StandingWindow extends AstralWindow {
                 viewing = ship.getCurrentSystem().getUniverse().getPlayerShip()
                         .getFaction();
             } else {
-                viewing = new Faction(tmp.getString());
+                viewing = ship.getCurrentSystem().getUniverse().getFactions()
+                        .get(tmp.getString());
             }
         }
     }
@@ -25,9 +25,9 @@
  */
 package gdi;
 
-import celestial.Jumphole;
 import com.jme3.asset.AssetManager;
-import entity.Entity;
+import engine.WorldSnapshot;
+import engine.WorldSnapshot.SystemRecord;
 import gdi.component.AstralComponent;
 import gdi.component.AstralLabel;
 import gdi.component.AstralWindow;
@@ -37,8 +37,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import universe.SolarSystem;
 import universe.Universe;
 
 /**
@@ -52,6 +50,7 @@ public class StarMapWindow extends AstralWindow {
     AstralLabel rangeLabel = new AstralLabel();
     Font radarFont = new Font("Monospaced", Font.BOLD, 11);
     private Universe universe;
+    private WorldSnapshot snapshot;
     private double zoom = 0.25;
     private final Point2D.Double offset = new Point2D.Double(0, 0);
 
@@ -96,8 +95,9 @@ public class StarMapWindow extends AstralWindow {
         addComponent(modeLabel);
     }
 
-    public void updateMap(Universe universe) {
+    public void updateMap(Universe universe, WorldSnapshot snapshot) {
         this.universe = universe;
+        this.snapshot = snapshot;
     }
 
     private class MapCanvas extends AstralComponent {
@@ -119,12 +119,12 @@ public class StarMapWindow extends AstralWindow {
         }
 
         private void fillMap(Graphics2D gfx, Graphics2D tfx) {
-            if (universe != null) {
-                //get a list of solar systems the player has visited
-                //ArrayList<SolarSystem> systems = universe.getSystems(); //will show everything
-                ArrayList<SolarSystem> systems = universe.getDiscoveredSpace(); //will show discovered space
-                //iterate through and draw an icon for each one
-                for (int a = 0; a < systems.size(); a++) {
+            //read from the snapshot, the world keeps changing while we draw
+            WorldSnapshot view = snapshot;
+            if (view != null) {
+                //iterate through discovered space and draw an icon for each one
+                for (int a = 0; a < view.getSystemCount(); a++) {
+                    SystemRecord sys = view.getSystem(a);
                     //compute offset
                     int ox = getWidth() / 2;
                     int oz = getHeight() / 2;
@@ -133,43 +133,30 @@ public class StarMapWindow extends AstralWindow {
                     //select font
                     tfx.setFont(radarFont);
                     //get position
-                    double sx = systems.get(a).getLocation().getX();
-                    double sz = systems.get(a).getLocation().getZ();
+                    double sx = sys.getLocation().getX();
+                    double sz = sys.getLocation().getZ();
                     //zoom
                     sx *= zoom;
                     sz *= zoom;
                     //compute final render position
                     double rx = sx + ox;
                     double rz = sz + oz;
-                    {
-                        //search system for jump holes
-                        ArrayList<Entity> cel = systems.get(a).getJumpholeList();
-                        for (int v = 0; v < cel.size(); v++) {
-                            if (cel.get(v) instanceof Jumphole) {
-                                Jumphole tmp = (Jumphole) cel.get(v);
-                                try {
-                                    //get exit system
-                                    SolarSystem exit = tmp.getOutGate().getCurrentSystem();
-                                    //figure out where it is on our map
-                                    double tx = (exit.getLocation().getX() * zoom) + ox;
-                                    double tz = (exit.getLocation().getZ() * zoom) + oz;
-                                    //draw a line
-                                    gfx.setColor(Color.LIGHT_GRAY);
-                                    gfx.drawLine((int) rx, (int) rz, (int) tx, (int) tz);
-                                } catch (Exception e) {
-                                    System.out.println("Forcing " + tmp.getName() + " to link with partner");
-                                    tmp.createLink(tmp.getOut());
-                                }
-                            }
-                        }
+                    //draw jump hole links
+                    for (int v = 0; v < sys.getLinkCount(); v++) {
+                        //figure out where the exit is on our map
+                        double tx = (sys.getLinkX(v) * zoom) + ox;
+                        double tz = (sys.getLinkZ(v) * zoom) + oz;
+                        //draw a line
+                        gfx.setColor(Color.LIGHT_GRAY);
+                        gfx.drawLine((int) rx, (int) rz, (int) tx, (int) tz);
                     }
                     //map
-                    if (systems.get(a) == universe.getPlayerShip().getCurrentSystem()) {
+                    if (sys.isPlayerHere()) {
                         tfx.setColor(whiteForeground);
                         tfx.fillRect((int) rx - 2, (int) rz - 2, 4, 4);
                         tfx.setColor(Color.GREEN);
                     } else {
-                        if (systems.get(a).getOwner().equals("Player")) {
+                        if (sys.isPlayerOwned()) {
                             tfx.setColor(Color.MAGENTA);
                         } else {
                             tfx.setColor(Color.GRAY);
@@ -177,7 +164,7 @@ public class StarMapWindow extends AstralWindow {
                         tfx.fillRect((int) rx - 2, (int) rz - 2, 4, 4);
                         tfx.setColor(Color.WHITE);
                     }
-                    tfx.drawString(systems.get(a).getName(), (int) rx - 2, (int) rz - 2);
+                    tfx.drawString(sys.getName(), (int) rx - 2, (int) rz - 2);
                 }
             }
         }
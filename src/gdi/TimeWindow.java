@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Shows how fast time is passing when time compression is on.
+ */
+package gdi;
+
+import com.jme3.asset.AssetManager;
+import gdi.component.AstralLabel;
+import gdi.component.AstralWindow;
+import java.awt.Color;
+
+/**
+ *
+ * @author nwiehoff
+ */
+public class TimeWindow extends AstralWindow {
+
+    AstralLabel timeLabel = new AstralLabel(300, 15);
+
+    public TimeWindow(AssetManager assets) {
+        super(assets, 300, 15, false);
+        create();
+    }
+
+    private void create() {
+        //color
+        backColor = new Color(25, 25, 25, 200);
+        setVisible(false);
+        //create time label
+        timeLabel.setName("timelabel");
+        timeLabel.setText("");
+        timeLabel.setX(0);
+        timeLabel.setY(0);
+        timeLabel.setVisible(true);
+        //pack
+        addComponent(timeLabel);
+    }
+
+    public void updateTime(float requested, float effective) {
+        if (requested > 1) {
+            String text = "TIME: " + (int) requested + "x";
+            //let the player know if the machine can't keep up
+            if (effective < requested) {
+                text += " (" + (Math.round(effective * 10) / 10.0f) + "x)";
+                timeLabel.setFontColor(Color.ORANGE);
+            } else {
+                timeLabel.setFontColor(Color.WHITE);
+            }
+            timeLabel.setText(text);
+            setVisible(true);
+        } else {
+            setVisible(false);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import celestial.Ship.Ship;
 import com.jme3.asset.AssetManager;
 import com.jme3.math.Vector3f;
 import engine.AstralCamera;
+import engine.WorldSnapshot;
 import gdi.component.AstralComponent;
 import gdi.component.AstralWindow;
 import java.awt.AlphaComposite;
@@ -49,6 +50,7 @@ public class VelocityMarker extends AstralWindow {
     private Ship host;
     private VelocityCanvas canvas;
     private AstralCamera camera;
+    private WorldSnapshot snapshot;
 
     private final int screenWidth;
     private final int screenHeight;
@@ -143,6 +145,10 @@ public class VelocityMarker extends AstralWindow {
         this.camera = camera;
     }
 
+    public void setSnapshot(WorldSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
     private class VelocityCanvas extends AstralComponent {
 
         @Override
@@ -157,7 +163,8 @@ public class VelocityMarker extends AstralWindow {
                     gfx.fillRect(0, 0, width, height);
                     gfx.setComposite(AlphaComposite.Src);
                     //render marker
-                    if (host.getTarget() != null) {
+                    WorldSnapshot view = snapshot;
+                    if (view != null && view.getTarget() != null) {
                         //draw marker
                         gfx.setStroke(new BasicStroke(2));
                         gfx.setColor(Color.cyan);
@@ -27,6 +27,7 @@
 package lib;
 
 import celestial.Ship.Ship;
+import engine.Rng;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Random;
@@ -46,7 +47,7 @@ public class Conversation implements Serializable {
     private AstralMessage currentNode;
     private final Ship owner;
     //random
-    Random rnd = new Random();
+    Random rnd = Rng.create();
     //mission
     private Mission tmpMission;
 
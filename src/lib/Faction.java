@@ -70,6 +70,9 @@ public class Faction implements Serializable {
     private final ArrayList<String> campaignList = new ArrayList<>();
     //player faction
     public static final String PLAYER = "Player";
+    //shared standings, once this faction belongs to a universe
+    private FactionTable table;
+    private int id = FactionTable.UNKNOWN;
 
     public Faction(String name) {
         this.name = name;
@@ -77,6 +80,17 @@ public class Faction implements Serializable {
         initComms();
     }
 
+    void bind(FactionTable table, int id) {
+        //standings now live in the table
+        this.table = table;
+        this.id = id;
+        standings.clear();
+    }
+
+    public int getId() {
+        return id;
+    }
+
     private void initComms() {
         Parser tmp = Universe.getCache().getFactionCache();
         ArrayList<Term> comms = tmp.getTermsOfType("Comm");
@@ -232,6 +246,20 @@ public class Faction implements Serializable {
     }
 
     public void derivedModification(Faction mod, double delta) {
+        if (table != null) {
+            //everything this causes goes out as one change
+            table.beginChanges();
+            try {
+                applyDerivedModification(mod, delta);
+            } finally {
+                table.endChanges();
+            }
+        } else {
+            applyDerivedModification(mod, delta);
+        }
+    }
+
+    private void applyDerivedModification(Faction mod, double delta) {
         /*
          * When you destroy someone's ship you get a standings hit to them,
          * and a derived standings hit to their allies.
@@ -291,8 +319,17 @@ public class Faction implements Serializable {
         }
     }
 
+    public double getStanding(Faction faction) {
+        if (table != null && faction.table == table) {
+            return table.getStanding(id, faction.id);
+        }
+        return getStanding(faction.getName());
+    }
+
     public double getStanding(String faction) {
-        if (standings != null) {
+        if (table != null) {
+            return table.getStanding(id, table.getId(faction));
+        } else if (standings != null) {
             for (int a = 0; a < standings.size(); a++) {
                 Binling test = standings.get(a);
                 if (test.getString().hashCode() == faction.hashCode()) {
@@ -312,7 +349,9 @@ public class Faction implements Serializable {
             } else if (value > PERMA_GREEN) {
                 value = PERMA_GREEN;
             }
-            if (standings != null) {
+            if (table != null) {
+                table.setStanding(id, table.getId(faction), value);
+            } else if (standings != null) {
                 for (int a = 0; a < standings.size(); a++) {
                     Binling test = standings.get(a);
                     if (test.getString().equals(faction)) {
@@ -336,6 +375,9 @@ public class Faction implements Serializable {
     }
 
     public ArrayList<Binling> getStandings() {
+        if (table != null) {
+            return table.getStandings(id);
+        }
         return standings;
     }
 
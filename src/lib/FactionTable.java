@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Every faction in a universe, interned to a small number, with the
+ * standings of each toward the others kept in one dense table. Ships share
+ * the one Faction object for their side instead of each parsing and carrying
+ * its own copy, and comparing two bound factions is an array lookup.
+ *
+ * The table is filled from FACTIONS.txt when it is made. A name it has never
+ * seen gets a new number and an empty row the first time it is asked for.
+ * Rows are grown copy on write so lookups never need the lock.
+ *
+ * Every change to a standing bumps the version, so anything that caches a
+ * decision based on standings only has to redo it when the version moved.
+ * Changes made between beginChanges() and endChanges() are handed to the
+ * listener together as one delta once the outermost batch ends. Batches are
+ * kept per thread, so systems updated side by side each get their own delta.
+ */
+package lib;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import lib.astral.Parser;
+import lib.astral.Parser.Term;
+import universe.Universe;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class FactionTable implements Serializable {
+
+    public static final int UNKNOWN = -1;
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> names = new ArrayList<>();
+    private final ArrayList<Faction> factions = new ArrayList<>();
+    //standings[a][b] is how much a likes b
+    private volatile double[][] standings = new double[0][0];
+    //who each faction has an opinion on, in the order FACTIONS.txt lists them
+    private final ArrayList<int[]> declared = new ArrayList<>();
+    //bumped on every change
+    private volatile long version = 0;
+    //told about changes, not saved
+    private transient Listener listener;
+    //open batches, one per thread
+    private transient ThreadLocal<Batch> batches;
+
+    public interface Listener {
+
+        public void standingsChanged(long version, ArrayList<Change> changes);
+    }
+
+    public FactionTable() {
+        Parser tmp = Universe.getCache().getFactionCache();
+        ArrayList<Term> terms = tmp.getTermsOfType("Faction");
+        ArrayList<Faction> parsed = new ArrayList<>();
+        for (int a = 0; a < terms.size(); a++) {
+            Faction fac = new Faction(terms.get(a).getValue("name"));
+            factions.set(intern(fac.getName()), fac);
+            parsed.add(fac);
+        }
+        //now everyone has a number, move the standings into the table
+        for (int a = 0; a < parsed.size(); a++) {
+            Faction fac = parsed.get(a);
+            int id = getId(fac.getName());
+            ArrayList<Binling> list = fac.getStandings();
+            int[] known = new int[list.size()];
+            for (int b = 0; b < list.size(); b++) {
+                known[b] = intern(list.get(b).getString());
+                standings[id][known[b]] = list.get(b).getDouble();
+            }
+            declared.set(id, known);
+            fac.bind(this, id);
+        }
+    }
+
+    /*
+     * Returns the shared faction with this name, making it if needed.
+     */
+    public synchronized Faction get(String name) {
+        int id = intern(name);
+        Faction ret = factions.get(id);
+        if (ret == null) {
+            ret = new Faction(name);
+            ret.bind(this, id);
+            factions.set(id, ret);
+        }
+        return ret;
+    }
+
+    public synchronized int getId(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            return UNKNOWN;
+        }
+        return id;
+    }
+
+    public int size() {
+        return standings.length;
+    }
+
+    private synchronized int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        int ret = names.size();
+        ids.put(name, ret);
+        names.add(name);
+        factions.add(null);
+        declared.add(new int[0]);
+        //grow the table by one row and column
+        double[][] old = standings;
+        double[][] grown = new double[ret + 1][ret + 1];
+        for (int a = 0; a < old.length; a++) {
+            System.arraycopy(old[a], 0, grown[a], 0, old[a].length);
+        }
+        standings = grown;
+        return ret;
+    }
+
+    /*
+     * Standings
+     */
+    public double getStanding(int from, int to) {
+        double[][] tmp = standings;
+        if (from < 0 || to < 0 || from >= tmp.length || to >= tmp.length) {
+            return 0;
+        }
+        return tmp[from][to];
+    }
+
+    public void setStanding(int from, int to, double value) {
+        beginChanges();
+        try {
+            Change change = null;
+            synchronized (this) {
+                double[][] tmp = standings;
+                if (from >= 0 && to >= 0 && from < tmp.length && to < tmp.length) {
+                    double old = tmp[from][to];
+                    if (old != value) {
+                        tmp[from][to] = value;
+                        version++;
+                        change = new Change(names.get(from), names.get(to), old, value);
+                    }
+                }
+            }
+            if (change != null) {
+                getBatch().changes.add(change);
+            }
+        } finally {
+            endChanges();
+        }
+    }
+
+    public void beginChanges() {
+        getBatch().depth++;
+    }
+
+    public void endChanges() {
+        Batch mine = getBatch();
+        ArrayList<Change> out = null;
+        mine.depth--;
+        if (mine.depth == 0 && !mine.changes.isEmpty()) {
+            out = mine.changes;
+            mine.changes = new ArrayList<>();
+        }
+        long at;
+        Listener tell;
+        synchronized (this) {
+            at = version;
+            tell = listener;
+        }
+        //outside the lock, listeners may well look at the table
+        if (out != null && tell != null) {
+            tell.standingsChanged(at, out);
+        }
+    }
+
+    private Batch getBatch() {
+        synchronized (this) {
+            if (batches == null) {
+                //not saved, made again after loading
+                batches = ThreadLocal.withInitial(Batch::new);
+            }
+        }
+        return batches.get();
+    }
+
+    private static class Batch {
+
+        int depth;
+        ArrayList<Change> changes = new ArrayList<>();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public synchronized Listener getListener() {
+        return listener;
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized ArrayList<Binling> getStandings(int from) {
+        ArrayList<Binling> ret = new ArrayList<>();
+        int[] known = declared.get(from);
+        for (int a = 0; a < known.length; a++) {
+            ret.add(new Binling(names.get(known[a]), getStanding(from, known[a])));
+        }
+        return ret;
+    }
+
+    /*
+     * One standing that moved, by faction name.
+     */
+    public static class Change {
+
+        private final String from;
+        private final String to;
+        private final double before;
+        private final double after;
+
+        public Change(String from, String to, double before, double after) {
+            this.from = from;
+            this.to = to;
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+
+        public double getBefore() {
+            return before;
+        }
+
+        public double getAfter() {
+            return after;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Holds the entities in a solar system. Every entity gets a slot with a
+ * generation number, and knows its own slot, so adding, removing and checking
+ * membership are all constant time. Removal swaps the last entry into the hole
+ * instead of shifting the list.
+ *
+ * The typed lists handed out by the solar system are views kept in step with
+ * the store. While the system is iterating the main list (locked), removals
+ * are taken out of the typed views right away but stay in the main list until
+ * unlock() so the loop doesn't skip anything.
+ */
+package universe;
+
+import celestial.Celestial;
+import entity.Entity;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class EntityStore implements Serializable {
+
+    public static final long NO_HANDLE = -1;
+    //everything, and the typed views, with the slot behind each entry
+    private final ArrayList<Entity> all = new ArrayList<>();
+    private final ArrayList<Slot> allSlots = new ArrayList<>();
+    private final ArrayList<ArrayList<Entity>> views = new ArrayList<>();
+    private final ArrayList<ArrayList<Slot>> viewSlots = new ArrayList<>();
+    //slot table
+    private final ArrayList<Slot> slots = new ArrayList<>();
+    private final ArrayList<Integer> free = new ArrayList<>();
+    //removals waiting for unlock()
+    private final ArrayList<Slot> pending = new ArrayList<>();
+    private boolean locked = false;
+
+    public EntityStore(int viewCount) {
+        for (int a = 0; a < viewCount; a++) {
+            views.add(new ArrayList<>());
+            viewSlots.add(new ArrayList<>());
+        }
+    }
+
+    /*
+     * Adds an entity, putting it in the given typed view (or none if the view
+     * is negative). Returns false if it was already in the store.
+     */
+    public boolean add(Entity entity, int view) {
+        Slot slot = find(entity);
+        if (slot != null) {
+            if (slot.removing) {
+                //removed and put back in the same tick
+                slot.removing = false;
+                addToView(slot, view);
+                return true;
+            }
+            return false;
+        }
+        //get a slot
+        int index;
+        if (free.isEmpty()) {
+            index = slots.size();
+            slots.add(new Slot(index));
+        } else {
+            index = free.remove(free.size() - 1);
+        }
+        slot = slots.get(index);
+        slot.entity = entity;
+        slot.removing = false;
+        slot.allIndex = all.size();
+        all.add(entity);
+        allSlots.add(slot);
+        addToView(slot, view);
+        if (entity instanceof Celestial) {
+            ((Celestial) entity).setStoreHandle(handle(index, slot.generation));
+        }
+        return true;
+    }
+
+    /*
+     * Removes an entity. Returns false if it wasn't in the store.
+     */
+    public boolean remove(Entity entity) {
+        Slot slot = find(entity);
+        if (slot == null || slot.removing) {
+            return false;
+        }
+        removeFromView(slot);
+        if (locked) {
+            slot.removing = true;
+            pending.add(slot);
+        } else {
+            release(slot);
+        }
+        return true;
+    }
+
+    public boolean contains(Entity entity) {
+        Slot slot = find(entity);
+        return slot != null && !slot.removing;
+    }
+
+    /*
+     * Returns the entity a handle points to, or null if that entity has since
+     * been removed.
+     */
+    public Entity get(long handle) {
+        if (handle == NO_HANDLE) {
+            return null;
+        }
+        int index = (int) (handle >>> 32);
+        if (index >= slots.size()) {
+            return null;
+        }
+        Slot slot = slots.get(index);
+        if (slot.generation != (int) handle || slot.entity == null || slot.removing) {
+            return null;
+        }
+        return slot.entity;
+    }
+
+    public void lock() {
+        locked = true;
+    }
+
+    /*
+     * Applies removals that were queued while locked.
+     */
+    public void unlock() {
+        locked = false;
+        for (int a = 0; a < pending.size(); a++) {
+            if (pending.get(a).removing) {
+                release(pending.get(a));
+            }
+        }
+        pending.clear();
+    }
+
+    public ArrayList<Entity> getAll() {
+        return all;
+    }
+
+    public ArrayList<Entity> getView(int view) {
+        return views.get(view);
+    }
+
+    public void clear() {
+        while (!all.isEmpty()) {
+            Slot slot = allSlots.get(all.size() - 1);
+            removeFromView(slot);
+            release(slot);
+        }
+        pending.clear();
+    }
+
+    private Slot find(Entity entity) {
+        if (entity instanceof Celestial) {
+            long handle = ((Celestial) entity).getStoreHandle();
+            if (handle != NO_HANDLE) {
+                int index = (int) (handle >>> 32);
+                if (index < slots.size()) {
+                    Slot slot = slots.get(index);
+                    if (slot.entity == entity && slot.generation == (int) handle) {
+                        return slot;
+                    }
+                }
+            }
+            return null;
+        }
+        //anything else doesn't know its slot
+        for (int a = 0; a < slots.size(); a++) {
+            if (slots.get(a).entity == entity && entity != null) {
+                return slots.get(a);
+            }
+        }
+        return null;
+    }
+
+    private void release(Slot slot) {
+        Entity entity = slot.entity;
+        //swap the last entry into the hole
+        Entity last = all.remove(all.size() - 1);
+        Slot lastSlot = allSlots.remove(allSlots.size() - 1);
+        if (lastSlot != slot) {
+            all.set(slot.allIndex, last);
+            allSlots.set(slot.allIndex, lastSlot);
+            lastSlot.allIndex = slot.allIndex;
+        }
+        if (entity instanceof Celestial) {
+            Celestial tmp = (Celestial) entity;
+            if (tmp.getStoreHandle() == handle(slot.index, slot.generation)) {
+                tmp.setStoreHandle(NO_HANDLE);
+            }
+        }
+        //retire the slot
+        slot.entity = null;
+        slot.removing = false;
+        slot.view = -1;
+        slot.generation++;
+        free.add(slot.index);
+    }
+
+    private void addToView(Slot slot, int view) {
+        slot.view = view;
+        if (view >= 0) {
+            slot.viewIndex = views.get(view).size();
+            views.get(view).add(slot.entity);
+            viewSlots.get(view).add(slot);
+        }
+    }
+
+    private void removeFromView(Slot slot) {
+        if (slot.view >= 0) {
+            ArrayList<Entity> list = views.get(slot.view);
+            ArrayList<Slot> listSlots = viewSlots.get(slot.view);
+            Entity last = list.remove(list.size() - 1);
+            Slot lastSlot = listSlots.remove(listSlots.size() - 1);
+            if (lastSlot != slot) {
+                list.set(slot.viewIndex, last);
+                listSlots.set(slot.viewIndex, lastSlot);
+                lastSlot.viewIndex = slot.viewIndex;
+            }
+            slot.view = -1;
+        }
+    }
+
+    private static long handle(int index, int generation) {
+        return ((long) index << 32) | (generation & 0xFFFFFFFFL);
+    }
+
+    private static class Slot implements Serializable {
+
+        private final int index;
+        private Entity entity;
+        private int generation = 0;
+        private int allIndex;
+        private int view = -1;
+        private int viewIndex;
+        private boolean removing = false;
+
+        private Slot(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Delivers GameEvents to whoever subscribed to their type. Normal listeners
+ * are called synchronously on the thread driving the simulation. While the
+ * systems are updated in parallel, events are held and then delivered in
+ * system order when flush() is called after the merge, so listeners never
+ * run on a worker thread.
+ *
+ * Listeners that do slow work like I/O or analytics can subscribe to the
+ * async lane instead. It hands them events on a background thread, in
+ * publish order.
+ */
+package universe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.bushe.swing.event.EventSubscriber;
+import org.bushe.swing.event.ThreadSafeEventService;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class EventBus {
+
+    private final Universe universe;
+    private final ThreadSafeEventService sync = new ThreadSafeEventService();
+    private final ThreadSafeEventService async = new ThreadSafeEventService();
+    private ExecutorService asyncLane;
+    //events published during the parallel phase
+    private final ArrayList<GameEvent> pending = new ArrayList<>();
+
+    public EventBus(Universe universe) {
+        this.universe = universe;
+    }
+
+    public <T extends GameEvent> void subscribe(Class<T> type, EventSubscriber<T> listener) {
+        sync.subscribeStrongly(type, listener);
+    }
+
+    public synchronized <T extends GameEvent> void subscribeAsync(Class<T> type, EventSubscriber<T> listener) {
+        if (asyncLane == null) {
+            asyncLane = Executors.newSingleThreadExecutor((Runnable r) -> {
+                Thread thread = new Thread(r, "EventBus async");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        async.subscribeStrongly(type, listener);
+    }
+
+    public <T extends GameEvent> void unsubscribe(Class<T> type, EventSubscriber<T> listener) {
+        sync.unsubscribe(type, listener);
+        async.unsubscribe(type, listener);
+    }
+
+    public void publish(GameEvent event) {
+        if (universe.isParallelPhase()) {
+            synchronized (pending) {
+                pending.add(event);
+            }
+        } else {
+            dispatch(event);
+        }
+    }
+
+    public void flush() {
+        ArrayList<GameEvent> out;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            out = new ArrayList<>(pending);
+            pending.clear();
+        }
+        //each system published from one thread, so a stable sort by system keeps its order
+        final ArrayList<SolarSystem> order = universe.getSystems();
+        Collections.sort(out, (GameEvent left, GameEvent right)
+                -> Integer.compare(order.indexOf(left.getSystem()), order.indexOf(right.getSystem())));
+        for (int a = 0; a < out.size(); a++) {
+            dispatch(out.get(a));
+        }
+    }
+
+    private void dispatch(final GameEvent event) {
+        sync.publish(event);
+        ExecutorService lane;
+        synchronized (this) {
+            lane = asyncLane;
+        }
+        if (lane != null) {
+            lane.execute(() -> async.publish(event));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Things that happen in the universe that other parts of the game care
+ * about. Published through the universe's EventBus so missions, the HUD and
+ * audio can react when something happens instead of polling for it.
+ */
+package universe;
+
+import cargo.Item;
+import celestial.Ship.Ship;
+import celestial.Ship.Station;
+import entity.Entity;
+import java.util.ArrayList;
+import lib.FactionTable.Change;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public abstract class GameEvent {
+
+    //where it happened
+    private final SolarSystem system;
+
+    public GameEvent(SolarSystem system) {
+        this.system = system;
+    }
+
+    public SolarSystem getSystem() {
+        return system;
+    }
+
+    /*
+     * Something new was put into a solar system. Ships arriving through a
+     * jump are reported as ShipJumped instead.
+     */
+    public static class EntitySpawned extends GameEvent {
+
+        private final Entity entity;
+
+        public EntitySpawned(SolarSystem system, Entity entity) {
+            super(system);
+            this.entity = entity;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+    }
+
+    /*
+     * Something stopped being alive. Sent once, when it first leaves the
+     * ALIVE state.
+     */
+    public static class EntityDied extends GameEvent {
+
+        private final Entity entity;
+
+        public EntityDied(SolarSystem system, Entity entity) {
+            super(system);
+            this.entity = entity;
+        }
+
+        public Entity getEntity() {
+            return entity;
+        }
+    }
+
+    /*
+     * A ship moved between solar systems, by jumphole or jump drive. The
+     * system is the one it arrived in.
+     */
+    public static class ShipJumped extends GameEvent {
+
+        private final Ship ship;
+        private final SolarSystem from;
+
+        public ShipJumped(SolarSystem system, Ship ship, SolarSystem from) {
+            super(system);
+            this.ship = ship;
+            this.from = from;
+        }
+
+        public Ship getShip() {
+            return ship;
+        }
+
+        public SolarSystem getFrom() {
+            return from;
+        }
+    }
+
+    public static class ShipDocked extends GameEvent {
+
+        private final Ship ship;
+        private final Station station;
+
+        public ShipDocked(SolarSystem system, Ship ship, Station station) {
+            super(system);
+            this.ship = ship;
+            this.station = station;
+        }
+
+        public Ship getShip() {
+            return ship;
+        }
+
+        public Station getStation() {
+            return station;
+        }
+    }
+
+    /*
+     * A completed trade between a station and a ship. Bought is from the
+     * ship's point of view. Quantity is how many units actually changed
+     * hands, at the given unit price.
+     */
+    public static class TradeExecuted extends GameEvent {
+
+        private final Station station;
+        private final Ship ship;
+        private final Item item;
+        private final int quantity;
+        private final int price;
+        private final boolean bought;
+
+        public TradeExecuted(SolarSystem system, Station station, Ship ship, Item item,
+                int quantity, int price, boolean bought) {
+            super(system);
+            this.station = station;
+            this.ship = ship;
+            this.item = item;
+            this.quantity = quantity;
+            this.price = price;
+            this.bought = bought;
+        }
+
+        public Station getStation() {
+            return station;
+        }
+
+        public Ship getShip() {
+            return ship;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+
+        public boolean isBought() {
+            return bought;
+        }
+    }
+
+    /*
+     * Faction standings moved. Everything one action caused comes together,
+     * and the version is the faction table's version after the changes. Not
+     * tied to a solar system.
+     */
+    public static class StandingsChanged extends GameEvent {
+
+        private final long version;
+        private final ArrayList<Change> changes;
+
+        public StandingsChanged(long version, ArrayList<Change> changes) {
+            super(null);
+            this.version = version;
+            this.changes = changes;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public ArrayList<Change> getChanges() {
+            return changes;
+        }
+    }
+
+    /*
+     * A ship added a sound to its sound queue and wants it played.
+     */
+    public static class SoundQueued extends GameEvent {
+
+        private final Ship ship;
+
+        public SoundQueued(SolarSystem system, Ship ship) {
+            super(system);
+            this.ship = ship;
+        }
+
+        public Ship getShip() {
+            return ship;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * The ships and stations in one solar system split up by faction, plus who
+ * is hostile to whom, worked out once a tick by the system. Each faction has
+ * its own spatial grid holding only its living, undocked members, so asking
+ * for the hostiles of a faction near a point only looks at the grids of the
+ * factions that hate it. Crowds of friendlies cost nothing to a turret sweep.
+ *
+ * The relation follows Ship.isHostileToMe(), which only depends on the names
+ * of the two factions and on the player's standings, so one lookup per pair
+ * of factions present covers every pair of ships. The relation is only
+ * redone when the faction table's version moved or a new faction showed up,
+ * so standings changed during a tick are picked up at the start of the next.
+ *
+ * Like the system grid, queries only read and can run from the sense phase.
+ */
+package universe;
+
+import celestial.Ship.Ship;
+import com.jme3.math.Vector3f;
+import entity.Entity;
+import entity.Entity.State;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import lib.Faction;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class Hostilities {
+
+    private final HashMap<String, Partition> byName = new HashMap<>();
+    private final ArrayList<Partition> partitions = new ArrayList<>();
+    private final IdentityHashMap<Ship, Partition> members = new IdentityHashMap<>();
+    //hostile[a][b] is true when members of a are hostile to members of b
+    private boolean[][] hostile = new boolean[0][0];
+    //standings version the relation was worked out for
+    private long relatedVersion = -1;
+
+    /*
+     * Upkeep
+     */
+    public void refresh(ArrayList<Entity> ships, ArrayList<Entity> stations, Faction player, long version) {
+        file(ships, player);
+        file(stations, player);
+        for (int a = 0; a < partitions.size(); a++) {
+            partitions.get(a).grid.refresh();
+        }
+        if (version != relatedVersion || hostile.length != partitions.size()) {
+            relate();
+            relatedVersion = version;
+        }
+    }
+
+    public void remove(Entity entity) {
+        Partition old = members.remove(entity);
+        if (old != null) {
+            old.grid.remove(entity);
+        }
+    }
+
+    private void file(ArrayList<Entity> list, Faction player) {
+        for (int a = 0; a < list.size(); a++) {
+            Ship tmp = (Ship) list.get(a);
+            Partition want = null;
+            if (tmp.getState() == State.ALIVE && !tmp.isDocked()) {
+                want = getPartition(tmp.getFaction());
+                if (player != null && want.faction.getName().equals(Faction.PLAYER)) {
+                    //player standings live on the player's ship
+                    want.faction = player;
+                } else {
+                    want.faction = tmp.getFaction();
+                }
+            }
+            Partition old = members.get(tmp);
+            if (old != want) {
+                if (old != null) {
+                    old.grid.remove(tmp);
+                    members.remove(tmp);
+                }
+                if (want != null) {
+                    want.grid.add(tmp);
+                    members.put(tmp, want);
+                }
+            }
+        }
+    }
+
+    private Partition getPartition(Faction faction) {
+        Partition ret = byName.get(faction.getName());
+        if (ret == null) {
+            ret = new Partition(partitions.size(), faction);
+            byName.put(faction.getName(), ret);
+            partitions.add(ret);
+        }
+        return ret;
+    }
+
+    private void relate() {
+        int n = partitions.size();
+        if (hostile.length != n) {
+            hostile = new boolean[n][n];
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) {
+                hostile[a][b] = isHostile(partitions.get(a).faction, partitions.get(b).faction);
+            }
+        }
+    }
+
+    private static boolean isHostile(Faction them, Faction me) {
+        //same rule as Ship.getStandingsToMe(), asked of them about me
+        int standing;
+        if (me.getName().equals(Faction.PLAYER)) {
+            standing = (int) me.getStanding(them);
+        } else {
+            standing = (int) them.getStanding(me);
+        }
+        return standing <= Faction.HOSTILE_STANDING;
+    }
+
+    /*
+     * Queries
+     */
+    public ArrayList<Ship> getHostilesInRange(Ship me, Vector3f center, float range) {
+        ArrayList<Ship> ret = new ArrayList<>();
+        Partition mine = byName.get(me.getFaction().getName());
+        for (int a = 0; a < partitions.size(); a++) {
+            Partition them = partitions.get(a);
+            if (isHostile(them, mine, me)) {
+                ret.addAll(them.grid.getInRange(center, range, Ship.class,
+                        (Entity test) -> test != me && test.getState() == State.ALIVE
+                        && !((Ship) test).isDocked()));
+            }
+        }
+        return ret;
+    }
+
+    public Ship getNearestHostile(Ship me, Vector3f center, float range) {
+        Ship ret = null;
+        float best = range;
+        Partition mine = byName.get(me.getFaction().getName());
+        for (int a = 0; a < partitions.size(); a++) {
+            Partition them = partitions.get(a);
+            if (isHostile(them, mine, me)) {
+                Ship tmp = them.grid.getNearest(center, best, Ship.class,
+                        (Entity test) -> test != me && test.getState() == State.ALIVE
+                        && !((Ship) test).isDocked());
+                if (tmp != null) {
+                    //anything from the remaining factions has to beat this one
+                    ret = tmp;
+                    best = tmp.getLocation().distance(center);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private boolean isHostile(Partition them, Partition mine, Ship me) {
+        if (mine != null && them.index < hostile.length && mine.index < hostile.length) {
+            return hostile[them.index][mine.index];
+        }
+        //a faction nobody in the system had at the last refresh
+        return isHostile(them.faction, me.getFaction());
+    }
+
+    private static class Partition {
+
+        private final int index;
+        private final SpatialGrid grid = new SpatialGrid();
+        private Faction faction;
+
+        public Partition(int index, Faction faction) {
+            this.index = index;
+            this.faction = faction;
+        }
+    }
+}
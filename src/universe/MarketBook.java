@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Every station's offers in the universe, sorted by price for each ware.
+ * Bids are the stations buying a ware, best (highest) price first, and asks
+ * are the stations selling it, best (lowest) price first. A trader looking
+ * for where to buy or sell walks the ware's list from the top and takes the
+ * first station it can reach and dock at, instead of pricing every station.
+ *
+ * Stations are listed by the solar systems as they come and go. A station's
+ * market tells the book when a quantity or static price changes, and only
+ * that ware's listings for that station move. Like the universe index this
+ * isn't saved, it is rebuilt from the systems after loading.
+ *
+ * The same listings are also kept per solar system, so a trader that stays
+ * in its sector only walks the stations there instead of the whole
+ * universe's list for the ware.
+ *
+ * Each ware also has a version that is bumped when a station starts or stops
+ * trading it, or when one of its prices has drifted far enough from the last
+ * time the version moved. Planners can keep work per ware and only redo it
+ * when the version changes, without hearing about every single unit traded.
+ */
+package universe;
+
+import cargo.Item;
+import cargo.ItemType;
+import cargo.WareRegistry;
+import celestial.Ship.Station;
+import celestial.Ship.StationMarket;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+import universe.SpatialGrid.Filter;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class MarketBook {
+
+    private static final Comparator<Listing> BIDS = (Listing a, Listing b) -> {
+        if (a.price != b.price) {
+            return a.price > b.price ? -1 : 1;
+        }
+        return Long.compare(a.seq, b.seq);
+    };
+    private static final Comparator<Listing> ASKS = (Listing a, Listing b) -> {
+        if (a.price != b.price) {
+            return a.price < b.price ? -1 : 1;
+        }
+        return Long.compare(a.seq, b.seq);
+    };
+    //per ware id
+    private final ArrayList<TreeSet<Listing>> bids = new ArrayList<>();
+    private final ArrayList<TreeSet<Listing>> asks = new ArrayList<>();
+    //per solar system, then per ware id
+    private final IdentityHashMap<SolarSystem, Sides> local = new IdentityHashMap<>();
+    //what each station has listed
+    private final IdentityHashMap<Station, ArrayList<Listing>> listed = new IdentityHashMap<>();
+    //keeps equal prices in the order they were listed
+    private long nextSeq = 0;
+    //per ware id, see above
+    private long[] versions = new long[0];
+    //fraction of a ware's price range that counts as a real move
+    private static final int MOVE_FRACTION = 20;
+
+    public synchronized void rebuild(Universe universe) {
+        for (Station station : listed.keySet()) {
+            station.getMarket().setBook(null);
+        }
+        bids.clear();
+        asks.clear();
+        local.clear();
+        listed.clear();
+        for (int a = 0; a < universe.getSystems().size(); a++) {
+            SolarSystem system = universe.getSystems().get(a);
+            ArrayList<Entity> stations = system.getStationList();
+            for (int b = 0; b < stations.size(); b++) {
+                list((Station) stations.get(b), system);
+            }
+        }
+    }
+
+    /*
+     * Mutation
+     */
+    public synchronized void add(Entity entity) {
+        if (entity instanceof Station && !listed.containsKey((Station) entity)) {
+            Station station = (Station) entity;
+            list(station, station.getCurrentSystem());
+        }
+    }
+
+    public synchronized void remove(Entity entity) {
+        if (entity instanceof Station) {
+            unlist((Station) entity);
+        }
+    }
+
+    public synchronized void relist(Station station) {
+        if (listed.containsKey(station)) {
+            unlist(station);
+            list(station, station.getCurrentSystem());
+        }
+    }
+
+    public synchronized void update(Station station, int id) {
+        //reposition the station's listings for one ware after a price change
+        ArrayList<Listing> mine = listed.get(station);
+        if (mine == null) {
+            return;
+        }
+        for (int a = 0; a < mine.size(); a++) {
+            Listing tmp = mine.get(a);
+            if (tmp.id == id) {
+                TreeSet<Listing> side = tmp.bid ? bids.get(id) : asks.get(id);
+                TreeSet<Listing> near = tmp.getLocal(local);
+                side.remove(tmp);
+                near.remove(tmp);
+                tmp.price = station.getMarket().getPrice(id);
+                side.add(tmp);
+                near.add(tmp);
+                if (Math.abs(tmp.price - tmp.settled) >= getMoveThreshold(id)) {
+                    bump(id);
+                    tmp.settled = tmp.price;
+                }
+            }
+        }
+    }
+
+    private void list(Station station, SolarSystem system) {
+        StationMarket market = station.getMarket();
+        ArrayList<Listing> mine = new ArrayList<>();
+        ArrayList<Item> buying = station.getStationBuying();
+        for (int a = 0; a < buying.size(); a++) {
+            int id = buying.get(a).getItemType().getId();
+            if (market.isBuying(id)) {
+                mine.add(new Listing(station, system, id, true, market.getPrice(id), nextSeq++));
+            }
+        }
+        ArrayList<Item> selling = station.getStationSelling();
+        for (int a = 0; a < selling.size(); a++) {
+            int id = selling.get(a).getItemType().getId();
+            if (market.isSelling(id)) {
+                mine.add(new Listing(station, system, id, false, market.getPrice(id), nextSeq++));
+            }
+        }
+        for (int a = 0; a < mine.size(); a++) {
+            Listing tmp = mine.get(a);
+            if (tmp.bid) {
+                getSide(bids, tmp.id, BIDS).add(tmp);
+            } else {
+                getSide(asks, tmp.id, ASKS).add(tmp);
+            }
+            tmp.getLocal(local).add(tmp);
+            bump(tmp.id);
+        }
+        listed.put(station, mine);
+        market.setBook(this);
+    }
+
+    private void unlist(Station station) {
+        ArrayList<Listing> mine = listed.remove(station);
+        if (mine == null) {
+            return;
+        }
+        for (int a = 0; a < mine.size(); a++) {
+            Listing tmp = mine.get(a);
+            if (tmp.bid) {
+                bids.get(tmp.id).remove(tmp);
+            } else {
+                asks.get(tmp.id).remove(tmp);
+            }
+            tmp.getLocal(local).remove(tmp);
+            bump(tmp.id);
+        }
+        station.getMarket().setBook(null);
+    }
+
+    private void bump(int id) {
+        if (id >= versions.length) {
+            versions = Arrays.copyOf(versions, id + 1);
+        }
+        versions[id]++;
+    }
+
+    private static int getMoveThreshold(int id) {
+        ItemType type = Universe.getCache().getWares().get(id);
+        return Math.max(1, (type.getMaxPrice() - type.getMinPrice()) / MOVE_FRACTION);
+    }
+
+    private static TreeSet<Listing> getSide(ArrayList<TreeSet<Listing>> sides, int id, Comparator<Listing> order) {
+        while (sides.size() <= id) {
+            sides.add(new TreeSet<>(order));
+        }
+        return sides.get(id);
+    }
+
+    /*
+     * Queries. The filter decides which stations count, for example the ones
+     * a trader can reach and dock at.
+     */
+    public synchronized Station getBestBid(Item ware, Filter filter) {
+        //the station paying the most for the ware
+        return best(bids, ware, filter);
+    }
+
+    public synchronized Station getBestAsk(Item ware, Filter filter) {
+        //the station charging the least for the ware
+        return best(asks, ware, filter);
+    }
+
+    public synchronized Station getBestBidIn(SolarSystem system, Item ware, Filter filter) {
+        //the station in the system paying the most for the ware
+        Sides near = local.get(system);
+        return near == null ? null : best(near.bids, ware, filter);
+    }
+
+    public synchronized Station getBestAskIn(SolarSystem system, Item ware, Filter filter) {
+        //the station in the system charging the least for the ware
+        Sides near = local.get(system);
+        return near == null ? null : best(near.asks, ware, filter);
+    }
+
+    public synchronized ArrayList<ItemType> getTradedWaresIn(SolarSystem system) {
+        //wares with at least one buyer and one seller in the system
+        Sides near = local.get(system);
+        return near == null ? new ArrayList<>() : traded(near.bids, near.asks);
+    }
+
+    public synchronized ArrayList<ItemType> getTradedWares() {
+        //wares with at least one buyer and one seller
+        return traded(bids, asks);
+    }
+
+    private static ArrayList<ItemType> traded(ArrayList<TreeSet<Listing>> bids, ArrayList<TreeSet<Listing>> asks) {
+        ArrayList<ItemType> ret = new ArrayList<>();
+        WareRegistry wares = Universe.getCache().getWares();
+        for (int a = 0; a < bids.size() && a < asks.size(); a++) {
+            if (!bids.get(a).isEmpty() && !asks.get(a).isEmpty()) {
+                ret.add(wares.get(a));
+            }
+        }
+        return ret;
+    }
+
+    public synchronized long getVersion(int id) {
+        return id < versions.length ? versions[id] : 0;
+    }
+
+    public synchronized ArrayList<Station> getBestBids(int id, int count) {
+        //the top stations buying a ware, best first
+        return top(bids, id, count);
+    }
+
+    public synchronized ArrayList<Station> getBestAsks(int id, int count) {
+        //the top stations selling a ware, best first
+        return top(asks, id, count);
+    }
+
+    private ArrayList<Station> top(ArrayList<TreeSet<Listing>> sides, int id, int count) {
+        ArrayList<Station> ret = new ArrayList<>();
+        if (id < sides.size()) {
+            Iterator<Listing> it = sides.get(id).iterator();
+            while (it.hasNext() && ret.size() < count) {
+                Station tmp = it.next().station;
+                if (tmp.getState() == Entity.State.ALIVE) {
+                    ret.add(tmp);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private Station best(ArrayList<TreeSet<Listing>> sides, Item ware, Filter filter) {
+        int id = ware.getItemType().getId();
+        if (id >= sides.size()) {
+            return null;
+        }
+        Iterator<Listing> it = sides.get(id).iterator();
+        while (it.hasNext()) {
+            Station tmp = it.next().station;
+            if (tmp.getState() == Entity.State.ALIVE && (filter == null || filter.accept(tmp))) {
+                return tmp;
+            }
+        }
+        return null;
+    }
+
+    private static class Sides {
+
+        final ArrayList<TreeSet<Listing>> bids = new ArrayList<>();
+        final ArrayList<TreeSet<Listing>> asks = new ArrayList<>();
+    }
+
+    private static class Listing {
+
+        final Station station;
+        //where the station was when it was listed
+        final SolarSystem system;
+        final int id;
+        final boolean bid;
+        final long seq;
+        int price;
+        //price when the ware's version last moved for this listing
+        int settled;
+
+        Listing(Station station, SolarSystem system, int id, boolean bid, int price, long seq) {
+            this.station = station;
+            this.system = system;
+            this.id = id;
+            this.bid = bid;
+            this.price = price;
+            this.seq = seq;
+            settled = price;
+        }
+
+        TreeSet<Listing> getLocal(IdentityHashMap<SolarSystem, Sides> local) {
+            Sides near = local.get(system);
+            if (near == null) {
+                near = new Sides();
+                local.put(system, near);
+            }
+            return bid ? getSide(near.bids, id, BIDS) : getSide(near.asks, id, ASKS);
+        }
+    }
+}
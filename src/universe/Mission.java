@@ -28,6 +28,7 @@ package universe;
 import cargo.Item;
 import celestial.Ship.Ship;
 import celestial.Ship.Station;
+import engine.Rng;
 import entity.Entity;
 import entity.Entity.State;
 import java.io.Serializable;
@@ -36,12 +37,14 @@ import java.util.Random;
 import lib.Binling;
 import lib.Faction;
 import lib.astral.Parser.Term;
+import org.bushe.swing.event.EventSubscriber;
+import universe.GameEvent.EntityDied;
 
 /**
  *
  * @author nwiehoff
  */
-public class Mission implements Serializable {
+public class Mission implements Serializable, EventSubscriber<EntityDied> {
 
     public enum Type {
 
@@ -53,7 +56,7 @@ public class Mission implements Serializable {
     private Type missionType;
     private boolean aborted = false;
     //rng
-    Random rnd = new Random();
+    Random rnd = Rng.create();
     //reward and agent
     private long reward;
     private double deltaStanding;
@@ -62,6 +65,10 @@ public class Mission implements Serializable {
     private String briefing = "NO AIM";
     //destroy missions
     private final ArrayList<Entity> targets = new ArrayList<>();
+    //targets still alive, counted down by death events
+    private transient int aliveTargets;
+    //transient fields come back false after loading, so this forces a recount
+    private transient boolean counted;
     //ware delivery missions
     private Item deliver;
     private Entity deliverTo;
@@ -196,17 +203,9 @@ public class Mission implements Serializable {
             //store item
             deliver = pick;
             //now pick one of this faction's stations to deliver to
-            ArrayList<Entity> stations = new ArrayList<>();
+            ArrayList<Station> stations = agent.getUniverse().getIndex()
+                    .getStations(agent.getFaction().getName(), null);
             Entity dTo = null;
-            for (int a = 0; a < agent.getUniverse().getSystems().size(); a++) {
-                ArrayList<Entity> lStat = agent.getUniverse().getSystems().get(a).getStationList();
-                for (int v = 0; v < lStat.size(); v++) {
-                    Ship test = (Ship) lStat.get(v);
-                    if (test.getFaction().getName().equals(agent.getFaction().getName()) && test.getState() == State.ALIVE) {
-                        stations.add(lStat.get(v));
-                    }
-                }
-            }
             //pick a station
             if (!stations.isEmpty()) {
                 dTo = stations.get(rnd.nextInt(stations.size()));
@@ -253,16 +252,7 @@ public class Mission implements Serializable {
             //find one of their stations
             Entity toKill = null;
             //get a list of all their stations
-            ArrayList<Entity> options = new ArrayList<>();
-            for (int a = 0; a < agent.getUniverse().getSystems().size(); a++) {
-                ArrayList<Entity> lStat = agent.getUniverse().getSystems().get(a).getStationList();
-                for (int v = 0; v < lStat.size(); v++) {
-                    Ship test = (Ship) lStat.get(v);
-                    if (test.getFaction().getName().equals(pick) && test.getState() == State.ALIVE) {
-                        options.add(lStat.get(v));
-                    }
-                }
-            }
+            ArrayList<Station> options = agent.getUniverse().getIndex().getStations(pick, null);
             //pick a station
             if (!options.isEmpty()) {
                 toKill = options.get(rnd.nextInt(options.size()));
@@ -309,16 +299,7 @@ public class Mission implements Serializable {
             //find one of their stations
             Entity toKill = null;
             //get a list of all their stations
-            ArrayList<Entity> options = new ArrayList<>();
-            for (int a = 0; a < agent.getUniverse().getSystems().size(); a++) {
-                ArrayList<Entity> lStat = agent.getUniverse().getSystems().get(a).getShipList();
-                for (int v = 0; v < lStat.size(); v++) {
-                    Ship test = (Ship) lStat.get(v);
-                    if (test.getFaction().getName().equals(pick) && test.getState() == State.ALIVE) {
-                        options.add(lStat.get(v));
-                    }
-                }
-            }
+            ArrayList<Ship> options = agent.getUniverse().getIndex().getShips(pick, null);
             //pick a ship
             if (!options.isEmpty()) {
                 toKill = options.get(rnd.nextInt(options.size()));
@@ -345,6 +326,7 @@ public class Mission implements Serializable {
      */
     private void abortMission() {
         aborted = true;
+        stopListening();
         //remove this mission
         agent.getUniverse().getPlayerMissions().remove(this);
         //notify
@@ -352,6 +334,7 @@ public class Mission implements Serializable {
     }
 
     private void failMission() {
+        stopListening();
         if (!aborted) {
             //update standing
             agent.getUniverse().getPlayerShip().getFaction().derivedModification(agent.getFaction(), -deltaStanding);
@@ -363,6 +346,7 @@ public class Mission implements Serializable {
     }
 
     private void completeMission() {
+        stopListening();
         if (!aborted) {
             //pay player
             agent.getUniverse().getPlayerShip().setCash(agent.getUniverse().getPlayerShip().getCash() + reward);
@@ -392,6 +376,9 @@ public class Mission implements Serializable {
     public void periodicUpdate(double tpf) {
         //update timer
         timer += tpf;
+        if (missionType == Type.DESTROY_STATION || missionType == Type.BOUNTY_HUNT) {
+            listen();
+        }
         //events
         if (!missionComplete()) {
             //waiting
@@ -471,9 +458,22 @@ public class Mission implements Serializable {
 
     private boolean checkDestroyStation() {
         //are all targets dead?
+        return counted && aliveTargets == 0;
+    }
+
+    private boolean checkBountyHunt() {
+        //are all targets dead?
+        if (!counted || aliveTargets != 0) {
+            //nope
+            return false;
+        }
         for (int a = 0; a < targets.size(); a++) {
-            if (targets.get(a).getState() == State.ALIVE) {
-                //nope
+            Ship test = (Ship) targets.get(a);
+            if (test.getLastBlow().getFaction().getName().equals(Faction.PLAYER)) {
+                //this is good news
+            } else {
+                //someone else got it first
+                abortMission();
                 return false;
             }
         }
@@ -481,25 +481,34 @@ public class Mission implements Serializable {
         return true;
     }
 
-    private boolean checkBountyHunt() {
-        //are all targets dead?
-        for (int a = 0; a < targets.size(); a++) {
-            if (targets.get(a).getState() == State.ALIVE) {
-                //nope
-                return false;
-            } else {
-                Ship test = (Ship) targets.get(a);
-                if (test.getLastBlow().getFaction().getName().equals(Faction.PLAYER)) {
-                    //this is good news
-                } else {
-                    //someone else got it first
-                    abortMission();
-                    return false;
+    /*
+     * Targets are counted once, then death events count them down. Listeners
+     * are not saved, so a loaded mission counts again on its first update.
+     */
+    private void listen() {
+        if (!counted) {
+            counted = true;
+            aliveTargets = 0;
+            for (int a = 0; a < targets.size(); a++) {
+                if (targets.get(a).getState() == State.ALIVE) {
+                    aliveTargets++;
                 }
             }
+            agent.getUniverse().getEvents().subscribe(EntityDied.class, this);
+        }
+    }
+
+    private void stopListening() {
+        if (counted) {
+            agent.getUniverse().getEvents().unsubscribe(EntityDied.class, this);
+        }
+    }
+
+    @Override
+    public void onEvent(EntityDied event) {
+        if (counted && targets.contains(event.getEntity())) {
+            aliveTargets--;
         }
-        //if we made it this far
-        return true;
     }
 
     /*
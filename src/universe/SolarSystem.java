@@ -36,6 +36,7 @@ import celestial.Nebula;
 import celestial.Planet;
 import celestial.Ship.Ship;
 import celestial.Ship.Station;
+import celestial.Ship.Trip;
 import celestial.Star;
 import com.jme3.asset.AssetManager;
 import com.jme3.bullet.BulletAppState;
@@ -43,15 +44,26 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
 import com.jme3.scene.Node;
+import engine.Rng;
+import engine.TimerWheel;
+import engine.TimerWheel.Timer;
 import entity.Entity;
+import entity.PhysicsEntity;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
 import jmeplanet.PlanetAppState;
 import jmeplanet.Utility;
 import jmeplanet.Utility.SkyBoxContainer;
 import lib.Faction;
 import lib.astral.Parser;
 import lib.astral.Parser.Term;
+import universe.GameEvent.EntitySpawned;
+import universe.GameEvent.ShipJumped;
 
 /**
  *
@@ -66,7 +78,20 @@ public class SolarSystem implements Entity, Serializable {
     float y;
     float z;
     //what it contains
-    private ArrayList<Entity> celestials = new ArrayList<>();
+    private static final int STATIONS = 0;
+    private static final int SHIPS = 1;
+    private static final int PLANETS = 2;
+    private static final int JUMPHOLES = 3;
+    private final EntityStore store = new EntityStore(4);
+    private final ArrayList<Entity> celestials = store.getAll();
+    //where everything is, for range queries
+    private transient SpatialGrid grid;
+    //who is where and who they hate, for turret and patrol sweeps
+    private transient Hostilities hostilities;
+    //where new stations and ships may go
+    private transient SpawnSites spawnSites;
+    //how many entities each thread senses or thinks about at a time
+    private static final int SENSE_BATCH = 64;
     //what contains it
     private final Universe universe;
     //engine resources
@@ -76,11 +101,30 @@ public class SolarSystem implements Entity, Serializable {
     private transient Node rootNode;
     private transient BulletAppState physics;
     private transient PlanetAppState planetAppState;
-    //lists
-    private final ArrayList<Entity> stationList = new ArrayList<>();
-    private final ArrayList<Entity> shipList = new ArrayList<>();
-    private final ArrayList<Entity> planetList = new ArrayList<>();
-    private final ArrayList<Entity> jumpholeList = new ArrayList<>();
+    //transfers waiting for the end of a parallel update
+    private transient ArrayList<Transfer> transfers;
+    //what those transfers move, frozen until they are made
+    private transient Set<Entity> leaving;
+    //changes to the player's standings and messages, same as above
+    private transient ArrayList<Runnable> playerChanges;
+    //simulated time and out of system trips ordered by arrival
+    private double clock = 0;
+    private final PriorityQueue<Trip> arrivals = new PriorityQueue<>();
+    //alarms for sleeping celestials
+    private static final double ALARM_RESOLUTION = 0.25;
+    private final TimerWheel<Celestial> alarms = new TimerWheel<>(ALARM_RESOLUTION);
+    private transient ArrayList<Celestial> woken;
+    /*
+     * Floating origin. While the player is here the physics space is offset
+     * so the player stays near zero, where floats are precise. The offset is
+     * kept in double precision and only grows when the player drifts past
+     * the rebase distance, so the whole system is moved rarely instead of
+     * every frame.
+     */
+    private static final float REBASE_DISTANCE = 5000;
+    private double originX = 0;
+    private double originY = 0;
+    private double originZ = 0;
     //music
     private String ambientMusic = "Audio/Music/Undefined.wav";
     private String dangerMusic = "Audio/Music/Committing.wav";
@@ -396,11 +440,61 @@ public class SolarSystem implements Entity, Serializable {
     }
 
     public void setCelestials(ArrayList<Entity> celestials) {
-        this.celestials = celestials;
+        ArrayList<Entity> tmp = new ArrayList<>(celestials);
+        store.clear();
+        for (int a = 0; a < tmp.size(); a++) {
+            store.add(tmp.get(a), viewOf(tmp.get(a)));
+        }
+        grid = null;
+        hostilities = null;
+    }
+
+    private int viewOf(Entity entity) {
+        /*
+         * Check to see what lists to add it to
+         */
+        if (entity instanceof Station) {
+            return STATIONS;
+        } else if (entity instanceof Ship) {
+            return SHIPS;
+        } else if (entity instanceof Jumphole) {
+            return JUMPHOLES;
+        } else if (entity instanceof Planet) {
+            return PLANETS;
+        }
+        return -1;
+    }
+
+    public boolean contains(Entity entity) {
+        return store.contains(entity);
+    }
+
+    public boolean hasPlayer() {
+        return universe.getPlayerShip() != null && store.contains(universe.getPlayerShip());
     }
 
     public void putEntityInSystem(Entity entity) {
-        celestials.add(entity);
+        insert(entity);
+        universe.getEvents().publish(new EntitySpawned(this, entity));
+    }
+
+    public void jumpEntityInto(Ship ship, Vector3f arrival) {
+        /*
+         * Completes a jump into this system from wherever the ship is now.
+         * Callers must already have checked deferTransfer().
+         */
+        SolarSystem from = ship.getCurrentSystem();
+        if (from != null) {
+            from.pullEntityFromSystem(ship);
+        }
+        ship.setLocation(arrival);
+        insert(ship);
+        universe.getEvents().publish(new ShipJumped(this, ship, from));
+    }
+
+    private void insert(Entity entity) {
+        store.add(entity, viewOf(entity));
+        getGrid().add(entity);
         if (entity instanceof Celestial) {
             Celestial tmp = (Celestial) entity;
             tmp.setCurrentSystem(this);
@@ -419,6 +513,8 @@ public class SolarSystem implements Entity, Serializable {
                 }
             }
         }
+        universe.getIndex().add(entity, this);
+        universe.getMarkets().add(entity);
         //check to see if this is player property
         if (universe.getPlayerProperty().contains(entity)) {
             //already in list
@@ -430,23 +526,12 @@ public class SolarSystem implements Entity, Serializable {
                 }
             }
         }
-        /*
-         * Check to see what lists to add it to
-         */
-        if (entity instanceof Station) {
-            stationList.add(entity);
-        } else if (entity instanceof Ship) {
-            shipList.add(entity);
-        } else if (entity instanceof Jumphole) {
-            jumpholeList.add(entity);
-        } else if (entity instanceof Planet) {
-            planetList.add(entity);
-        }
     }
 
     public void pullEntityFromSystem(Entity entity) {
         if (entity instanceof Celestial) {
             Celestial tmp = (Celestial) entity;
+            tmp.wake();
             tmp.setCurrentSystem(null);
             if (universe.getPlayerShip() != null) {
                 /*
@@ -459,53 +544,167 @@ public class SolarSystem implements Entity, Serializable {
                 tmp.deconstruct();
             }
         }
-        //remove from lists
-        celestials.remove(entity);
-        stationList.remove(entity);
-        shipList.remove(entity);
-        planetList.remove(entity);
-        jumpholeList.remove(entity);
+        //remove from lists, held until the end of the tick if updating
+        store.remove(entity);
+        getGrid().remove(entity);
+        getHostilities().remove(entity);
+        universe.getIndex().remove(entity);
+        universe.getMarkets().remove(entity);
         universe.getPlayerProperty().remove(entity);
     }
 
+    public boolean deferTransfer(Entity entity, SolarSystem destination, Vector3f arrival) {
+        /*
+         * While systems are updated in parallel nothing may change which
+         * system an entity is in, because other workers can be reading this
+         * system's lists. The move is stored and made by applyTransfers()
+         * after the parallel step. A null destination removes the entity.
+         *
+         * Returns false if the caller should make the move right away.
+         */
+        if (!universe.isParallelPhase()) {
+            return false;
+        }
+        if (transfers == null) {
+            transfers = new ArrayList<>();
+            leaving = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+        if (!leaving.add(entity)) {
+            //already leaving
+            return true;
+        }
+        transfers.add(new Transfer(entity, destination, arrival));
+        return true;
+    }
+
+    public void changePlayer(Runnable change) {
+        /*
+         * The player's faction and message list are shared by every system,
+         * so workers can't change them during a parallel update. The change
+         * is stored and made by applyPlayerChanges() after the parallel step,
+         * in the order this system asked for them. Otherwise it is made now.
+         */
+        if (!universe.isParallelPhase()) {
+            change.run();
+            return;
+        }
+        synchronized (this) {
+            if (playerChanges == null) {
+                playerChanges = new ArrayList<>();
+            }
+            playerChanges.add(change);
+        }
+    }
+
+    public void applyPlayerChanges() {
+        ArrayList<Runnable> out;
+        synchronized (this) {
+            if (playerChanges == null || playerChanges.isEmpty()) {
+                return;
+            }
+            out = new ArrayList<>(playerChanges);
+            playerChanges.clear();
+        }
+        for (int a = 0; a < out.size(); a++) {
+            out.get(a).run();
+        }
+    }
+
+    public void applyTransfers() {
+        if (transfers == null) {
+            return;
+        }
+        for (int a = 0; a < transfers.size(); a++) {
+            Transfer tmp = transfers.get(a);
+            if (tmp.destination != null && tmp.entity instanceof Ship) {
+                tmp.destination.jumpEntityInto((Ship) tmp.entity, tmp.arrival);
+            } else if (tmp.destination != null) {
+                pullEntityFromSystem(tmp.entity);
+                tmp.entity.setLocation(tmp.arrival);
+                tmp.destination.insert(tmp.entity);
+            } else {
+                pullEntityFromSystem(tmp.entity);
+            }
+        }
+        transfers.clear();
+        leaving.clear();
+    }
+
+    private boolean isLeaving(Entity entity) {
+        return leaving != null && leaving.contains(entity);
+    }
+
     @Override
     public void periodicUpdate(float tpf) {
         try {
+            clock += tpf;
+            //the physics needs real positions
+            finishTrips(true);
+            wakeAll();
             checkPlayerPresence();
-            for (int a = 0; a < celestials.size(); a++) {
-                if (celestials.get(a).getState() == Entity.State.DEAD) {
-                    //remove the entity
-                    pullEntityFromSystem(celestials.get(a));
-                } else {
-                    doAlways(a);
-                    //but leave this
-                    celestials.get(a).periodicUpdate(tpf);
+            store.lock();
+            try {
+                getGrid().refresh();
+                refreshHostilities();
+                sense(tpf);
+                think(tpf);
+                for (int a = 0; a < celestials.size(); a++) {
+                    if (!store.contains(celestials.get(a))) {
+                        //removed this tick
+                    } else if (celestials.get(a).getState() == Entity.State.DEAD) {
+                        //remove the entity
+                        pullEntityFromSystem(celestials.get(a));
+                    } else {
+                        doAlways(a);
+                        celestials.get(a).act(tpf);
+                        //but leave this
+                        celestials.get(a).periodicUpdate(tpf);
+                    }
                 }
+            } finally {
+                //apply removals from this tick, even if it failed part way
+                store.unlock();
             }
 
-            centerPlayer();
+            trackOrigin();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private void centerPlayer() {
-        //center system around player
+    private void trackOrigin() {
+        //pick up where the physics moved things this frame
+        for (int a = 0; a < celestials.size(); a++) {
+            if (celestials.get(a) instanceof PhysicsEntity) {
+                ((PhysicsEntity) celestials.get(a)).syncLocation();
+            }
+        }
+        //only rebase once the player is far from the origin
         Vector3f pLoc = universe.getPlayerShip().getPhysicsLocation().clone();
+        if (pLoc.lengthSquared() > REBASE_DISTANCE * REBASE_DISTANCE) {
+            shiftOrigin(pLoc);
+        }
+    }
 
+    private void shiftOrigin(Vector3f shift) {
+        //move everything so the shift point becomes the new origin
         for (int a = 0; a < celestials.size(); a++) {
             Vector3f cLoc = celestials.get(a).getPhysicsLocation().clone();
-            celestials.get(a).setLocation(cLoc.subtract(pLoc));
+            celestials.get(a).setLocation(cLoc.subtract(shift));
         }
+        originX += shift.x;
+        originY += shift.y;
+        originZ += shift.z;
     }
 
-    private void uncenterPlayer() {
-        //center system around player
-        Vector3f pLoc = universe.getPlayerShip().getPhysicsLocation().clone();
-
-        for (int a = 0; a < celestials.size(); a++) {
-            Vector3f cLoc = celestials.get(a).getPhysicsLocation().clone();
-            celestials.get(a).setLocation(cLoc.add(pLoc));
+    private void restoreOrigin() {
+        //put everything back in system coordinates
+        if (originX != 0 || originY != 0 || originZ != 0) {
+            Vector3f shift = new Vector3f((float) -originX, (float) -originY, (float) -originZ);
+            shiftOrigin(shift);
+            originX = 0;
+            originY = 0;
+            originZ = 0;
         }
     }
 
@@ -517,7 +716,7 @@ public class SolarSystem implements Entity, Serializable {
     private void doAtmosphereDamage(int a) {
         if (celestials.get(a) instanceof Ship) {
             Ship s = (Ship) celestials.get(a);
-            planetList.stream().filter((p) -> ((Planet) p).getAtmosphereRadius() > 0)
+            getPlanetList().stream().filter((p) -> ((Planet) p).getAtmosphereRadius() > 0)
                     .map((p) -> (Planet) p).forEach((test) -> {
                         float shellR = test.getAtmosphereRadius();
                         if (test.distanceTo(s) < shellR) {
@@ -538,8 +737,8 @@ public class SolarSystem implements Entity, Serializable {
          */
         if (celestials.get(a) instanceof Jumphole) {
             Jumphole s = (Jumphole) celestials.get(a);
-            for (int b = 0; b < planetList.size(); b++) {
-                Planet test = (Planet) planetList.get(b);
+            for (int b = 0; b < getPlanetList().size(); b++) {
+                Planet test = (Planet) getPlanetList().get(b);
                 float shellR = test.getRadius()
                         + (test.getRadius() * test.getAtmosphereScaler());
                 if (test.distanceTo(s) < shellR * 3) {
@@ -554,27 +753,115 @@ public class SolarSystem implements Entity, Serializable {
     @Override
     public void oosPeriodicUpdate(float tpf) {
         try {
+            clock += tpf;
+            finishTrips(false);
+            wakeSleepers();
             checkPlayerPresence();
-            for (int a = 0; a < celestials.size(); a++) {
-                if (celestials.get(a).getState() == Entity.State.DEAD) {
-                    //remove the entity
-                    pullEntityFromSystem(celestials.get(a));
-                } else {
-                    doAlways(a);
-                    //do integrity checks
-                    checkEntity(celestials.get(a));
-                    //update as normal
-                    celestials.get(a).oosPeriodicUpdate(tpf);
+            store.lock();
+            try {
+                getGrid().refresh();
+                refreshHostilities();
+                sense(tpf);
+                think(tpf);
+                for (int a = 0; a < celestials.size(); a++) {
+                    if (!store.contains(celestials.get(a))) {
+                        //removed this tick
+                    } else if (isLeaving(celestials.get(a))) {
+                        /*
+                         * Queued to leave in an earlier sub step of this
+                         * frame. It waits for the merge so it can't jump
+                         * again or keep flying in the wrong system.
+                         */
+                    } else if (celestials.get(a).getState() == Entity.State.DEAD) {
+                        //remove the entity
+                        if (!deferTransfer(celestials.get(a), null, null)) {
+                            pullEntityFromSystem(celestials.get(a));
+                        }
+                    } else if (celestials.get(a) instanceof Celestial) {
+                        Celestial tmp = (Celestial) celestials.get(a);
+                        if (!tmp.isAsleep()) {
+                            doAlways(a);
+                            //do integrity checks
+                            checkEntity(tmp);
+                            tmp.act(tpf);
+                            //update as normal
+                            tmp.oosPeriodicUpdate(tmp.getCatchUpTpf(tpf));
+                        }
+                    } else {
+                        doAlways(a);
+                        //do integrity checks
+                        checkEntity(celestials.get(a));
+                        celestials.get(a).act(tpf);
+                        //update as normal
+                        celestials.get(a).oosPeriodicUpdate(tpf);
+                    }
                 }
+            } finally {
+                //apply removals from this tick, even if it failed part way
+                store.unlock();
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /*
+     * Lands every trip whose arrival time has passed. When all is set every
+     * trip is ended, with ships still on the way put wherever they are now.
+     */
+    private void finishTrips(boolean all) {
+        while (!arrivals.isEmpty() && (all || arrivals.peek().getArrival() <= clock)) {
+            arrivals.poll().finish();
+        }
+    }
+
+    /*
+     * Wakes every celestial whose alarm has gone off.
+     */
+    private void wakeSleepers() {
+        if (woken == null) {
+            woken = new ArrayList<>();
+        }
+        alarms.advance(clock, woken);
+        for (int a = 0; a < woken.size(); a++) {
+            woken.get(a).wake();
+        }
+        woken.clear();
+    }
+
+    /*
+     * Wakes everything, nothing sleeps while the player is watching.
+     */
+    private void wakeAll() {
+        if (alarms.size() > 0 || !hasGraphics) {
+            for (int a = 0; a < celestials.size(); a++) {
+                if (celestials.get(a) instanceof Celestial) {
+                    ((Celestial) celestials.get(a)).wake();
+                }
+            }
+            alarms.clear();
+        }
+    }
+
+    public boolean canSleep() {
+        return !hasGraphics;
+    }
+
+    public Timer<Celestial> setAlarm(Celestial celestial, double time) {
+        return alarms.schedule(celestial, time);
+    }
+
+    public void scheduleArrival(Trip trip) {
+        arrivals.add(trip);
+    }
+
+    public double getClock() {
+        return clock;
+    }
+
     private void checkEntity(Entity entity) {
         if (entity instanceof Ship) {
-            if (!celestials.contains(universe.getPlayerShip())) {
+            if (!hasPlayer()) {
                 Ship test = (Ship) entity;
                 //don't do OOS checks on player property obviously
                 if (!test.isPlayerFaction()) {
@@ -618,7 +905,7 @@ public class SolarSystem implements Entity, Serializable {
     }
 
     private void checkPlayerPresence() {
-        if (celestials.contains(universe.getPlayerShip())) {
+        if (hasPlayer()) {
             hasGraphics = true;
             discover();
         } else {
@@ -668,8 +955,8 @@ public class SolarSystem implements Entity, Serializable {
 
     @Override
     public void deconstruct() {
-        //cleanup centering
-        uncenterPlayer();
+        //cleanup floating origin
+        restoreOrigin();
         
         //cleanup skybox
         if (skybox != null) {
@@ -684,6 +971,8 @@ public class SolarSystem implements Entity, Serializable {
 
     @Override
     public void attach(Node node, BulletAppState physics, PlanetAppState planetAppState) {
+        finishTrips(true);
+        wakeAll();
         //store references to add future objects
         this.physics = physics;
         this.planetAppState = planetAppState;
@@ -707,6 +996,77 @@ public class SolarSystem implements Entity, Serializable {
         //do nothing
     }
 
+    /*
+     * Sense phase for everything in the system. Without graphics nothing in
+     * here touches the scene, so large systems sense in parallel.
+     */
+    @Override
+    public void sense(float tpf) {
+        if (!hasGraphics && celestials.size() > SENSE_BATCH) {
+            new PhaseTask(tpf, false, 0, celestials.size()).invoke();
+        } else {
+            phaseRange(tpf, false, 0, celestials.size());
+        }
+    }
+
+    /*
+     * Think phase, same as above. Ships claim trade routes while thinking, so
+     * deterministic runs think one entity at a time in a fixed order.
+     */
+    @Override
+    public void think(float tpf) {
+        if (!hasGraphics && celestials.size() > SENSE_BATCH && !Rng.isDeterministic()) {
+            new PhaseTask(tpf, true, 0, celestials.size()).invoke();
+        } else {
+            phaseRange(tpf, true, 0, celestials.size());
+        }
+    }
+
+    @Override
+    public void act(float tpf) {
+        //members act one at a time in the update loop
+    }
+
+    private void phaseRange(float tpf, boolean think, int start, int end) {
+        for (int a = start; a < end; a++) {
+            Entity tmp = celestials.get(a);
+            if (tmp instanceof Celestial && ((Celestial) tmp).isAsleep()) {
+                //sleeping
+            } else if (tmp.getState() != State.ALIVE || isLeaving(tmp)) {
+                //nothing to decide
+            } else if (think) {
+                tmp.think(tpf);
+            } else {
+                tmp.sense(tpf);
+            }
+        }
+    }
+
+    private class PhaseTask extends RecursiveAction {
+
+        private final float tpf;
+        private final boolean think;
+        private final int start;
+        private final int end;
+
+        public PhaseTask(float tpf, boolean think, int start, int end) {
+            this.tpf = tpf;
+            this.think = think;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= SENSE_BATCH) {
+                phaseRange(tpf, think, start, end);
+            } else {
+                int mid = (start + end) / 2;
+                invokeAll(new PhaseTask(tpf, think, start, mid), new PhaseTask(tpf, think, mid, end));
+            }
+        }
+    }
+
     @Override
     public Vector3f getLocation() {
         return new Vector3f(x, y, z);
@@ -738,20 +1098,61 @@ public class SolarSystem implements Entity, Serializable {
         return universe;
     }
 
+    /*
+     * The grid is not saved, it is rebuilt from the entities on first use.
+     */
+    public SpatialGrid getGrid() {
+        if (grid == null) {
+            grid = new SpatialGrid();
+            for (int a = 0; a < celestials.size(); a++) {
+                if (store.contains(celestials.get(a))) {
+                    grid.add(celestials.get(a));
+                }
+            }
+        }
+        return grid;
+    }
+
+    public SpawnSites getSpawnSites() {
+        if (spawnSites == null) {
+            spawnSites = new SpawnSites(this);
+        }
+        return spawnSites;
+    }
+
+    /*
+     * Rebuilt like the grid, but only kept up to date once a tick, when the
+     * memberships and the faction relation are redone.
+     */
+    public Hostilities getHostilities() {
+        if (hostilities == null) {
+            hostilities = new Hostilities();
+        }
+        return hostilities;
+    }
+
+    private void refreshHostilities() {
+        Faction player = null;
+        if (universe.getPlayerShip() != null) {
+            player = universe.getPlayerShip().getFaction();
+        }
+        getHostilities().refresh(getShipList(), getStationList(), player, universe.getFactions().getVersion());
+    }
+
     public ArrayList<Entity> getStationList() {
-        return stationList;
+        return store.getView(STATIONS);
     }
 
     public ArrayList<Entity> getShipList() {
-        return shipList;
+        return store.getView(SHIPS);
     }
 
     public ArrayList<Entity> getPlanetList() {
-        return planetList;
+        return store.getView(PLANETS);
     }
 
     public ArrayList<Entity> getJumpholeList() {
-        return jumpholeList;
+        return store.getView(JUMPHOLES);
     }
 
     public boolean hasGraphics() {
@@ -800,4 +1201,17 @@ public class SolarSystem implements Entity, Serializable {
     public void setDangerMusic(String dangerMusic) {
         this.dangerMusic = dangerMusic;
     }
+
+    private class Transfer {
+
+        private final Entity entity;
+        private final SolarSystem destination;
+        private final Vector3f arrival;
+
+        public Transfer(Entity entity, SolarSystem destination, Vector3f arrival) {
+            this.entity = entity;
+            this.destination = destination;
+            this.arrival = arrival;
+        }
+    }
 }
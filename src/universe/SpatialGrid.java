@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * A uniform grid over the entities in one solar system, so range and nearest
+ * neighbor questions only look at the cells the range touches instead of at
+ * everything in the system. Cells are cubes keyed by their packed coordinates
+ * and exist only while something is in them, so empty space costs nothing.
+ *
+ * Positions come from getLocation(). While the player is in the system those
+ * are the physics positions synced every tick, out of system they are the
+ * integrated ones. The system refreshes the grid once a tick before the sense
+ * phase, and an entry only moves when its entity crosses into another cell.
+ * Queries measure real distances to current locations, the cells just narrow
+ * down who gets measured, so something that crossed a cell edge since the
+ * refresh can be missed right at the edge of a range for that one tick.
+ *
+ * Queries only read, so the sense phase can run them from several threads.
+ * Adding, removing and refreshing must not overlap with them.
+ */
+package universe;
+
+import com.jme3.math.Vector3f;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class SpatialGrid {
+
+    //about one sensor range, so a sensor sweep looks at a 3x3x3 block
+    public static final float CELL_SIZE = 5000;
+    //cell coordinates are packed into 21 bits each
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    /*
+     * Decides what a query is interested in, on top of the type and range.
+     */
+    public interface Filter {
+
+        public boolean accept(Entity entity);
+    }
+
+    private final float cellSize;
+    private final HashMap<Long, Cell> cells = new HashMap<>();
+    private final IdentityHashMap<Entity, Entry> entries = new IdentityHashMap<>();
+    private final ArrayList<Entry> all = new ArrayList<>();
+
+    public SpatialGrid() {
+        this(CELL_SIZE);
+    }
+
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /*
+     * Upkeep
+     */
+    public void add(Entity entity) {
+        if (entries.containsKey(entity)) {
+            return;
+        }
+        Entry entry = new Entry(entity);
+        entry.index = all.size();
+        all.add(entry);
+        entries.put(entity, entry);
+        file(entry, entity.getLocation());
+    }
+
+    public void remove(Entity entity) {
+        Entry entry = entries.remove(entity);
+        if (entry == null) {
+            return;
+        }
+        unfile(entry);
+        //swap the last entry into the hole
+        Entry last = all.remove(all.size() - 1);
+        if (last != entry) {
+            last.index = entry.index;
+            all.set(entry.index, last);
+        }
+    }
+
+    public void refresh() {
+        for (int a = 0; a < all.size(); a++) {
+            Entry entry = all.get(a);
+            Vector3f loc = entry.entity.getLocation();
+            if (keyOf(loc) != entry.cell.key) {
+                unfile(entry);
+                file(entry, loc);
+            }
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        entries.clear();
+        all.clear();
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    private void file(Entry entry, Vector3f loc) {
+        long key = keyOf(loc);
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell(key);
+            cells.put(key, cell);
+        }
+        cell.entities.add(entry.entity);
+        entry.cell = cell;
+    }
+
+    private void unfile(Entry entry) {
+        Cell cell = entry.cell;
+        cell.entities.remove(entry.entity);
+        if (cell.entities.isEmpty()) {
+            cells.remove(cell.key);
+        }
+        entry.cell = null;
+    }
+
+    /*
+     * Queries
+     */
+    public <T extends Entity> ArrayList<T> getInRange(Vector3f center, float range, Class<T> type, Filter filter) {
+        ArrayList<T> ret = new ArrayList<>();
+        float rangeSq = range * range;
+        ArrayList<Cell> near = getCells(center, range);
+        for (int a = 0; a < near.size(); a++) {
+            ArrayList<Entity> tmp = near.get(a).entities;
+            for (int b = 0; b < tmp.size(); b++) {
+                Entity test = tmp.get(b);
+                if (type.isInstance(test) && (filter == null || filter.accept(test))) {
+                    if (test.getLocation().distanceSquared(center) <= rangeSq) {
+                        ret.add(type.cast(test));
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    public <T extends Entity> T getNearest(Vector3f center, float range, Class<T> type, Filter filter) {
+        ArrayList<T> ret = getNearest(center, range, 1, type, filter);
+        if (ret.isEmpty()) {
+            return null;
+        }
+        return ret.get(0);
+    }
+
+    /*
+     * The k nearest matches within range, nearest first. Cells are searched in
+     * shells moving out from the center, stopping once no unsearched cell
+     * could hold anything closer than what was already found.
+     */
+    public <T extends Entity> ArrayList<T> getNearest(Vector3f center, float range, int k, Class<T> type, Filter filter) {
+        ArrayList<T> found = new ArrayList<>();
+        ArrayList<Float> distances = new ArrayList<>();
+        if (k <= 0 || cells.isEmpty()) {
+            return found;
+        }
+        float rangeSq = range * range;
+        int cx = cellOf(center.x);
+        int cy = cellOf(center.y);
+        int cz = cellOf(center.z);
+        int shells = (int) Math.min(Math.ceil(range / cellSize), MASK);
+        for (int r = 0; r <= shells; r++) {
+            if (found.size() == k) {
+                //nothing in this shell or beyond is nearer than (r - 1) cells
+                float reach = (r - 1) * cellSize;
+                if (reach > 0 && reach * reach > distances.get(k - 1)) {
+                    break;
+                }
+            }
+            if (shellVolume(r) > cells.size()) {
+                //the shells have outgrown the occupied cells, finish by scanning those
+                for (Cell cell : cells.values()) {
+                    if (ring(cell.key, cx, cy, cz) >= r) {
+                        consider(cell, center, rangeSq, k, type, filter, found, distances);
+                    }
+                }
+                break;
+            }
+            for (int x = -r; x <= r; x++) {
+                for (int y = -r; y <= r; y++) {
+                    for (int z = -r; z <= r; z++) {
+                        if (Math.abs(x) == r || Math.abs(y) == r || Math.abs(z) == r) {
+                            Cell cell = cells.get(pack(cx + x, cy + y, cz + z));
+                            if (cell != null) {
+                                consider(cell, center, rangeSq, k, type, filter, found, distances);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private <T extends Entity> void consider(Cell cell, Vector3f center, float rangeSq, int k,
+            Class<T> type, Filter filter, ArrayList<T> found, ArrayList<Float> distances) {
+        ArrayList<Entity> tmp = cell.entities;
+        for (int a = 0; a < tmp.size(); a++) {
+            Entity test = tmp.get(a);
+            if (type.isInstance(test) && (filter == null || filter.accept(test))) {
+                float distSq = test.getLocation().distanceSquared(center);
+                if (distSq <= rangeSq && (found.size() < k || distSq < distances.get(k - 1))) {
+                    //insert in order, dropping the farthest if full
+                    int at = found.size();
+                    while (at > 0 && distances.get(at - 1) > distSq) {
+                        at--;
+                    }
+                    found.add(at, type.cast(test));
+                    distances.add(at, distSq);
+                    if (found.size() > k) {
+                        found.remove(k);
+                        distances.remove(k);
+                    }
+                }
+            }
+        }
+    }
+
+    private ArrayList<Cell> getCells(Vector3f center, float range) {
+        ArrayList<Cell> ret = new ArrayList<>();
+        int x0 = cellOf(center.x - range);
+        int x1 = cellOf(center.x + range);
+        int y0 = cellOf(center.y - range);
+        int y1 = cellOf(center.y + range);
+        int z0 = cellOf(center.z - range);
+        int z1 = cellOf(center.z + range);
+        long volume = (long) (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+        if (volume > cells.size()) {
+            //cheaper to look at every occupied cell than at every empty one
+            for (Cell cell : cells.values()) {
+                int x = unpack(cell.key, 2 * BITS);
+                int y = unpack(cell.key, BITS);
+                int z = unpack(cell.key, 0);
+                if (x >= x0 && x <= x1 && y >= y0 && y <= y1 && z >= z0 && z <= z1) {
+                    ret.add(cell);
+                }
+            }
+        } else {
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    for (int z = z0; z <= z1; z++) {
+                        Cell cell = cells.get(pack(x, y, z));
+                        if (cell != null) {
+                            ret.add(cell);
+                        }
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static long shellVolume(int r) {
+        long side = 2L * r + 1;
+        long inner = Math.max(0, side - 2);
+        return side * side * side - inner * inner * inner;
+    }
+
+    private static int ring(long key, int cx, int cy, int cz) {
+        int dx = Math.abs(unpack(key, 2 * BITS) - cx);
+        int dy = Math.abs(unpack(key, BITS) - cy);
+        int dz = Math.abs(unpack(key, 0) - cz);
+        return Math.max(dx, Math.max(dy, dz));
+    }
+
+    private int cellOf(float v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private long keyOf(Vector3f loc) {
+        return pack(cellOf(loc.x), cellOf(loc.y), cellOf(loc.z));
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    private static int unpack(long key, int shift) {
+        //sign extend the 21 bit field
+        return (int) (((key >>> shift) & MASK) << (64 - BITS) >> (64 - BITS));
+    }
+
+    private static class Cell {
+
+        private final long key;
+        private final ArrayList<Entity> entities = new ArrayList<>();
+
+        public Cell(long key) {
+            this.key = key;
+        }
+    }
+
+    private static class Entry {
+
+        private final Entity entity;
+        private Cell cell;
+        private int index;
+
+        public Entry(Entity entity) {
+            this.entity = entity;
+        }
+    }
+}
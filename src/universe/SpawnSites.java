@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Hands out places to put new things in one solar system. Points are picked
+ * near a host celestial the same way God always picked them, and station
+ * sites are checked against the system grid so a new station never lands on
+ * top of an existing one. Everything random comes from the caller's Random,
+ * and the grid answers the same way for the same contents, so the same seed
+ * still gives the same universe.
+ */
+package universe;
+
+import celestial.Celestial;
+import celestial.Planet;
+import celestial.Ship.Station;
+import com.jme3.math.Vector3f;
+import java.util.Random;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class SpawnSites {
+
+    //how far apart stations have to be
+    public static final float STATION_CLEARANCE = 1000;
+    //how many sites to try before giving up
+    private static final int ATTEMPTS = 16;
+    //how much further out each failed attempt looks
+    private static final float SPREAD_GROWTH = 1.25f;
+    private final SolarSystem system;
+
+    public SpawnSites(SolarSystem system) {
+        this.system = system;
+    }
+
+    /*
+     * Finds a free station site near the host, looking further out after
+     * each collision. Returns null if every attempt collided.
+     */
+    public Vector3f findStationSite(Celestial host, Random rnd) {
+        float spread = 1;
+        for (int a = 0; a < ATTEMPTS; a++) {
+            Vector3f pnt = pointNear(host, rnd, spread);
+            if (isClearForStation(pnt)) {
+                return pnt;
+            }
+            spread *= SPREAD_GROWTH;
+        }
+        return null;
+    }
+
+    public boolean isClearForStation(Vector3f loc) {
+        return system.getGrid().getNearest(loc, STATION_CLEARANCE, Station.class, null) == null;
+    }
+
+    /*
+     * A point near a celestial, outside of it if it is a planet. Spread
+     * scales how far away the point may be.
+     */
+    public static Vector3f pointNear(Celestial host, Random rnd, float spread) {
+        float x;
+        float y;
+        float z;
+        int wide = (int) (10000 * spread);
+        int tall = (int) (2000 * spread);
+        if (host instanceof Planet) {
+            //pick a point outside of the planet
+            Planet tmp = (Planet) host;
+            float r = tmp.getRadius() * 2;
+            float dx = (rnd.nextInt(wide) + r) * Math.signum(rnd.nextFloat() - 0.5f);
+            float dy = (rnd.nextInt(tall) + r) * Math.signum(rnd.nextFloat() - 0.5f);
+            float dz = (rnd.nextInt(wide) + r) * Math.signum(rnd.nextFloat() - 0.5f);
+            //store
+            x = host.getLocation().getX() + dx;
+            y = host.getLocation().getY() + dy;
+            z = host.getLocation().getZ() + dz;
+        } else {
+            //pick a point near the celestial
+            x = host.getLocation().getX() + rnd.nextInt(wide) - wide / 2;
+            y = host.getLocation().getY() + rnd.nextInt(tall) - tall / 2;
+            z = host.getLocation().getZ() + rnd.nextInt(wide) - wide / 2;
+        }
+        //make a point
+        return new Vector3f(x, y, z);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Profitable trade routes across the universe, worked out from the market
+ * book and shared by every universe trader. A route is a ware bought at one
+ * station and sold at another for more. For each ware only the best few
+ * sellers are paired with the best few buyers, and the routes are ranked by
+ * margin.
+ *
+ * A ware's routes are only planned again when its version in the book moved,
+ * which happens when a station starts or stops trading it or a price drifted
+ * far enough. The margins here can lag the live prices a little, traders
+ * check the real prices before they commit.
+ *
+ * Traders claim a route and hold it until they finish, give up or die. A
+ * route's worth to the next trader is its margin shared among the traders
+ * already on it, so they spread out instead of all chasing the best one.
+ * When none of the planned routes is in a trader's reach, the claim falls
+ * back to the best pair the trader can reach in the market book, like the
+ * traders used to work it out for themselves.
+ *
+ * A route's jumps are the jumphole hops between its two systems.
+ */
+package universe;
+
+import cargo.Item;
+import cargo.ItemType;
+import celestial.Jumphole;
+import celestial.Ship.Ship;
+import celestial.Ship.Station;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import universe.SpatialGrid.Filter;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class TradeRoutePlanner {
+
+    //best sellers and buyers paired up per ware
+    private static final int DEPTH = 6;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private final Universe universe;
+    private final MarketBook book;
+    //per ware id
+    private final ArrayList<ArrayList<Route>> byWare = new ArrayList<>();
+    private long[] planned = new long[0];
+    //all routes, best margin first
+    private final ArrayList<Route> ranked = new ArrayList<>();
+    //what each trader is working on
+    private final IdentityHashMap<Ship, Route> claims = new IdentityHashMap<>();
+    //jumphole hops between systems, by their order in the universe
+    private int[][] hops = new int[0][0];
+
+    public TradeRoutePlanner(Universe universe, MarketBook book) {
+        this.universe = universe;
+        this.book = book;
+    }
+
+    /*
+     * Claims
+     */
+    public synchronized Route claim(Ship trader, Filter filter) {
+        //drop whatever it was doing before
+        release(trader);
+        refresh();
+        Route ret = null;
+        double best = 0;
+        for (int a = 0; a < ranked.size(); a++) {
+            Route tmp = ranked.get(a);
+            if (tmp.margin <= best) {
+                //nothing further down can beat it, even unclaimed
+                break;
+            }
+            double worth = tmp.margin / (1.0 + tmp.claims);
+            if (worth > best && tmp.isAlive()
+                    && filter.accept(tmp.source) && filter.accept(tmp.sink)) {
+                ret = tmp;
+                best = worth;
+            }
+        }
+        if (ret == null) {
+            //nothing planned is in reach
+            ret = findReachable(filter);
+        }
+        if (ret != null) {
+            ret.claims++;
+            claims.put(trader, ret);
+        }
+        return ret;
+    }
+
+    private Route findReachable(Filter filter) {
+        //the best pair per ware among the stations the filter lets through
+        Route ret = null;
+        ArrayList<ItemType> wares = book.getTradedWares();
+        for (int a = 0; a < wares.size(); a++) {
+            Item ware = new Item(wares.get(a));
+            Station source = book.getBestAsk(ware, filter);
+            Station sink = book.getBestBid(ware, filter);
+            if (source == null || sink == null || source == sink) {
+                continue;
+            }
+            int id = wares.get(a).getId();
+            int buy = source.getMarket().getPrice(id);
+            int sell = sink.getMarket().getPrice(id);
+            if (sell > buy && (ret == null || sell - buy > ret.margin)) {
+                ret = new Route(source, sink, wares.get(a));
+                ret.buyPrice = buy;
+                ret.sellPrice = sell;
+                ret.margin = sell - buy;
+                ret.jumps = getHops(source.getCurrentSystem(), sink.getCurrentSystem());
+            }
+        }
+        return ret;
+    }
+
+    public synchronized void release(Ship trader) {
+        Route old = claims.remove(trader);
+        if (old != null) {
+            old.claims--;
+        }
+    }
+
+    public synchronized ArrayList<Route> getRoutes() {
+        refresh();
+        return new ArrayList<>(ranked);
+    }
+
+    /*
+     * Planning
+     */
+    private void refresh() {
+        int size = Universe.getCache().getWares().size();
+        if (planned.length < size) {
+            int old = planned.length;
+            planned = Arrays.copyOf(planned, size);
+            //force a first plan of the new wares
+            Arrays.fill(planned, old, size, -1);
+        }
+        boolean changed = false;
+        for (int a = 0; a < size; a++) {
+            long version = book.getVersion(a);
+            if (planned[a] != version) {
+                plan(a);
+                planned[a] = version;
+                changed = true;
+            }
+        }
+        if (changed) {
+            rank();
+        }
+    }
+
+    private void plan(int id) {
+        while (byWare.size() <= id) {
+            byWare.add(new ArrayList<>());
+        }
+        ArrayList<Route> old = byWare.get(id);
+        ArrayList<Route> routes = new ArrayList<>();
+        ItemType ware = Universe.getCache().getWares().get(id);
+        ArrayList<Station> sellers = book.getBestAsks(id, DEPTH);
+        ArrayList<Station> buyers = book.getBestBids(id, DEPTH);
+        for (int a = 0; a < sellers.size(); a++) {
+            Station source = sellers.get(a);
+            int buy = source.getMarket().getPrice(id);
+            for (int b = 0; b < buyers.size(); b++) {
+                Station sink = buyers.get(b);
+                int sell = sink.getMarket().getPrice(id);
+                if (source != sink && sell > buy) {
+                    Route tmp = find(old, source, sink);
+                    if (tmp == null) {
+                        tmp = new Route(source, sink, ware);
+                    }
+                    tmp.buyPrice = buy;
+                    tmp.sellPrice = sell;
+                    tmp.margin = sell - buy;
+                    tmp.jumps = getHops(source.getCurrentSystem(), sink.getCurrentSystem());
+                    routes.add(tmp);
+                }
+            }
+        }
+        byWare.set(id, routes);
+    }
+
+    private int getHops(SolarSystem from, SolarSystem to) {
+        ArrayList<SolarSystem> systems = universe.getSystems();
+        if (hops.length != systems.size()) {
+            mapHops(systems);
+        }
+        int start = systems.indexOf(from);
+        int end = systems.indexOf(to);
+        if (start == -1 || end == -1) {
+            return UNREACHABLE;
+        }
+        return hops[start][end];
+    }
+
+    private void mapHops(ArrayList<SolarSystem> systems) {
+        /*
+         * Breadth first search over the jumphole links from every system.
+         * The systems don't change once the universe is made, so this is
+         * only done once.
+         */
+        int size = systems.size();
+        hops = new int[size][size];
+        for (int a = 0; a < size; a++) {
+            int[] row = hops[a];
+            Arrays.fill(row, UNREACHABLE);
+            row[a] = 0;
+            ArrayList<Integer> frontier = new ArrayList<>();
+            frontier.add(a);
+            for (int b = 0; b < frontier.size(); b++) {
+                int curr = frontier.get(b);
+                ArrayList<Entity> holes = systems.get(curr).getJumpholeList();
+                for (int c = 0; c < holes.size(); c++) {
+                    String out = ((Jumphole) holes.get(c)).getOut();
+                    if (out == null) {
+                        continue;
+                    }
+                    String outSys = out.split("/")[0];
+                    for (int d = 0; d < size; d++) {
+                        if (row[d] == UNREACHABLE && systems.get(d).getName().equals(outSys)) {
+                            row[d] = row[curr] + 1;
+                            frontier.add(d);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Route find(ArrayList<Route> list, Station source, Station sink) {
+        //reuse the old route so its claims carry over
+        for (int a = 0; a < list.size(); a++) {
+            Route tmp = list.get(a);
+            if (tmp.source == source && tmp.sink == sink) {
+                return tmp;
+            }
+        }
+        return null;
+    }
+
+    private void rank() {
+        ranked.clear();
+        for (int a = 0; a < byWare.size(); a++) {
+            ranked.addAll(byWare.get(a));
+        }
+        //best margin first, then fewest jumps, stable otherwise
+        ranked.sort((Route a, Route b) -> {
+            if (a.margin != b.margin) {
+                return a.margin > b.margin ? -1 : 1;
+            }
+            return Integer.compare(a.getJumps(), b.getJumps());
+        });
+    }
+
+    public static class Route {
+
+        private final Station source;
+        private final Station sink;
+        private final ItemType ware;
+        private int buyPrice;
+        private int sellPrice;
+        private int margin;
+        private int claims;
+        private int jumps;
+
+        public Route(Station source, Station sink, ItemType ware) {
+            this.source = source;
+            this.sink = sink;
+            this.ware = ware;
+        }
+
+        public Station getSource() {
+            return source;
+        }
+
+        public Station getSink() {
+            return sink;
+        }
+
+        public ItemType getWare() {
+            return ware;
+        }
+
+        public int getBuyPrice() {
+            return buyPrice;
+        }
+
+        public int getSellPrice() {
+            return sellPrice;
+        }
+
+        public int getMargin() {
+            return margin;
+        }
+
+        public int getClaims() {
+            return claims;
+        }
+
+        public int getJumps() {
+            //jumphole hops between picking up and dropping off
+            return jumps;
+        }
+
+        boolean isAlive() {
+            return source.getState() == Entity.State.ALIVE && sink.getState() == Entity.State.ALIVE
+                    && source.getCurrentSystem() != null && sink.getCurrentSystem() != null;
+        }
+    }
+}
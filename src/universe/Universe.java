@@ -31,8 +31,11 @@ import engine.ResourceCache;
 import entity.Entity;
 import java.io.Serializable;
 import java.util.ArrayList;
+import lib.FactionTable;
+import lib.FactionTable.Change;
 import lib.astral.Parser;
 import lib.astral.Parser.Term;
+import universe.GameEvent.StandingsChanged;
 
 /**
  *
@@ -51,9 +54,22 @@ public class Universe implements Serializable {
     private final ArrayList<Mission> playerMissions = new ArrayList<>();
     //discovered space
     private final ArrayList<SolarSystem> discoveredSpace = new ArrayList<>();
+    //every faction and their standings, shared by all ships
+    private FactionTable factions;
+    //set while systems are being updated side by side
+    private transient boolean parallelPhase = false;
+    //ships and stations by faction, behavior and loadout
+    private transient UniverseIndex index;
+    //station offers sorted by price for each ware
+    private transient MarketBook markets;
+    //profitable routes shared by the universe traders
+    private transient TradeRoutePlanner routes;
+    //spawn, death, jump, dock and trade notifications
+    private transient EventBus events;
 
     public Universe(AssetManager assets) {
         this.assets = assets;
+        factions = new FactionTable();
         init();
     }
 
@@ -146,4 +162,57 @@ public class Universe implements Serializable {
     public ArrayList<Mission> getPlayerMissions() {
         return playerMissions;
     }
+
+    public synchronized FactionTable getFactions() {
+        if (factions == null) {
+            factions = new FactionTable();
+        }
+        if (factions.getListener() == null) {
+            //not saved, pass standings changes on to the event bus again
+            factions.setListener((long version, ArrayList<Change> changes)
+                    -> getEvents().publish(new StandingsChanged(version, changes)));
+        }
+        return factions;
+    }
+
+    public synchronized UniverseIndex getIndex() {
+        if (index == null) {
+            //not saved with the game, build it from what is out there
+            index = new UniverseIndex();
+            index.rebuild(this);
+        }
+        return index;
+    }
+
+    public synchronized MarketBook getMarkets() {
+        if (markets == null) {
+            //not saved with the game either
+            markets = new MarketBook();
+            markets.rebuild(this);
+        }
+        return markets;
+    }
+
+    public synchronized TradeRoutePlanner getRoutes() {
+        if (routes == null) {
+            routes = new TradeRoutePlanner(this, getMarkets());
+        }
+        return routes;
+    }
+
+    public synchronized EventBus getEvents() {
+        if (events == null) {
+            //listeners are not saved, they subscribe again after loading
+            events = new EventBus(this);
+        }
+        return events;
+    }
+
+    public boolean isParallelPhase() {
+        return parallelPhase;
+    }
+
+    public void setParallelPhase(boolean parallelPhase) {
+        this.parallelPhase = parallelPhase;
+    }
 }
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2016 SUGRA-SYM LLC (Nathan Wiehoff, Geoffrey Hibbert)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+/*
+ * Answers "which ships of this faction are where" without walking every
+ * system. Ships and stations are filed by faction, both universe wide and per
+ * system, and ships are further split by behavior and loadout. Stations are
+ * also filed under each ware they sell.
+ *
+ * The index is kept up to date by the solar systems as entities come and go,
+ * and by ships when their faction, behavior, loadout or state changes. Only
+ * living entities that are in a system are filed. Lists handed out are
+ * copies taken under the lock, so callers can keep and change them freely.
+ */
+package universe;
+
+import cargo.Item;
+import celestial.Ship.Ship;
+import celestial.Ship.Ship.Behavior;
+import celestial.Ship.Station;
+import entity.Entity;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ *
+ * @author Nathan Wiehoff
+ */
+public class UniverseIndex {
+
+    //universe wide groups by faction name
+    private final HashMap<String, Group> factions = new HashMap<>();
+    //per system groups by faction name
+    private final IdentityHashMap<SolarSystem, HashMap<String, Group>> systems = new IdentityHashMap<>();
+    //where each filed ship currently is
+    private final IdentityHashMap<Ship, Key> keys = new IdentityHashMap<>();
+
+    public synchronized void rebuild(Universe universe) {
+        factions.clear();
+        systems.clear();
+        keys.clear();
+        for (int a = 0; a < universe.getSystems().size(); a++) {
+            SolarSystem system = universe.getSystems().get(a);
+            ArrayList<Entity> all = system.getCelestials();
+            for (int b = 0; b < all.size(); b++) {
+                file(all.get(b), system);
+            }
+        }
+    }
+
+    /*
+     * Mutation
+     */
+    public synchronized void add(Entity entity, SolarSystem system) {
+        file(entity, system);
+    }
+
+    public synchronized void remove(Entity entity) {
+        unfile(entity);
+    }
+
+    public synchronized void refresh(Ship ship) {
+        //files it again under its current faction, behavior and loadout
+        file(ship, ship.getCurrentSystem());
+    }
+
+    private void file(Entity entity, SolarSystem system) {
+        if (!(entity instanceof Ship)) {
+            return;
+        }
+        Ship ship = (Ship) entity;
+        boolean fileable = system != null && ship.getState() == Entity.State.ALIVE
+                && ship.getFaction() != null && system.contains(ship);
+        Key old = keys.get(ship);
+        if (fileable && old != null && old.matches(system, ship)) {
+            //nothing changed
+            return;
+        }
+        unfile(ship);
+        if (!fileable) {
+            return;
+        }
+        Key key = new Key(system, ship);
+        keys.put(ship, key);
+        key.add(ship, getGroup(factions, key.faction));
+        key.add(ship, getGroup(getSystemGroups(system), key.faction));
+    }
+
+    private void unfile(Entity entity) {
+        if (!(entity instanceof Ship)) {
+            return;
+        }
+        Ship ship = (Ship) entity;
+        Key key = keys.remove(ship);
+        if (key != null) {
+            key.remove(ship, factions.get(key.faction));
+            key.remove(ship, getSystemGroups(key.system).get(key.faction));
+        }
+    }
+
+    /*
+     * Queries. A null system means the whole universe.
+     */
+    public synchronized int countShips(String faction, SolarSystem system) {
+        Group group = findGroup(faction, system);
+        return group == null ? 0 : group.ships.size();
+    }
+
+    public synchronized int countShipsByRole(String faction, SolarSystem system, Behavior behavior) {
+        Group group = findGroup(faction, system);
+        return group == null ? 0 : group.byBehavior.get(behavior.ordinal()).size();
+    }
+
+    public synchronized int countShipsByLoadout(String faction, SolarSystem system, String loadout) {
+        Group group = findGroup(faction, system);
+        if (group != null) {
+            ArrayList<Ship> list = group.byLoadout.get(loadout);
+            if (list != null) {
+                return list.size();
+            }
+        }
+        return 0;
+    }
+
+    public synchronized ArrayList<Ship> getShips(String faction, SolarSystem system) {
+        Group group = findGroup(faction, system);
+        return group == null ? new ArrayList<>() : new ArrayList<>(group.ships);
+    }
+
+    public synchronized ArrayList<Ship> getShipsByRole(String faction, SolarSystem system, Behavior behavior) {
+        Group group = findGroup(faction, system);
+        return group == null ? new ArrayList<>() : new ArrayList<>(group.byBehavior.get(behavior.ordinal()));
+    }
+
+    public synchronized ArrayList<Station> getStations(String faction, SolarSystem system) {
+        Group group = findGroup(faction, system);
+        return group == null ? new ArrayList<>() : new ArrayList<>(group.stations);
+    }
+
+    public synchronized ArrayList<Station> getStationsSelling(String faction, SolarSystem system, String ware) {
+        Group group = findGroup(faction, system);
+        if (group != null) {
+            ArrayList<Station> list = group.sellers.get(ware);
+            if (list != null) {
+                return new ArrayList<>(list);
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private Group findGroup(String faction, SolarSystem system) {
+        if (system == null) {
+            return factions.get(faction);
+        } else {
+            HashMap<String, Group> groups = systems.get(system);
+            return groups == null ? null : groups.get(faction);
+        }
+    }
+
+    private HashMap<String, Group> getSystemGroups(SolarSystem system) {
+        HashMap<String, Group> groups = systems.get(system);
+        if (groups == null) {
+            groups = new HashMap<>();
+            systems.put(system, groups);
+        }
+        return groups;
+    }
+
+    private Group getGroup(HashMap<String, Group> groups, String faction) {
+        Group group = groups.get(faction);
+        if (group == null) {
+            group = new Group();
+            groups.put(faction, group);
+        }
+        return group;
+    }
+
+    private static class Group {
+
+        final ArrayList<Ship> ships = new ArrayList<>();
+        final ArrayList<Station> stations = new ArrayList<>();
+        final ArrayList<ArrayList<Ship>> byBehavior = new ArrayList<>();
+        final HashMap<String, ArrayList<Ship>> byLoadout = new HashMap<>();
+        final HashMap<String, ArrayList<Station>> sellers = new HashMap<>();
+
+        Group() {
+            for (int a = 0; a < Behavior.values().length; a++) {
+                byBehavior.add(new ArrayList<>());
+            }
+        }
+    }
+
+    private static class Key {
+
+        /*
+         * What a ship was filed under. Kept so it can be unfiled after its
+         * faction, behavior or loadout has already changed.
+         */
+        final SolarSystem system;
+        final String faction;
+        final Behavior behavior;
+        final String loadout;
+        final ArrayList<String> wares;
+
+        Key(SolarSystem system, Ship ship) {
+            this.system = system;
+            faction = ship.getFaction().getName();
+            behavior = ship.getBehavior();
+            loadout = ship.getTemplate();
+            if (ship instanceof Station) {
+                ArrayList<Item> selling = ((Station) ship).getStationSelling();
+                wares = new ArrayList<>();
+                for (int a = 0; a < selling.size(); a++) {
+                    wares.add(selling.get(a).getName());
+                }
+            } else {
+                wares = null;
+            }
+        }
+
+        boolean matches(SolarSystem system, Ship ship) {
+            return this.system == system && faction.equals(ship.getFaction().getName())
+                    && behavior == ship.getBehavior()
+                    && (loadout == null ? ship.getTemplate() == null : loadout.equals(ship.getTemplate()));
+        }
+
+        void add(Ship ship, Group group) {
+            if (ship instanceof Station) {
+                Station station = (Station) ship;
+                group.stations.add(station);
+                for (int a = 0; a < wares.size(); a++) {
+                    ArrayList<Station> list = group.sellers.get(wares.get(a));
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        group.sellers.put(wares.get(a), list);
+                    }
+                    list.add(station);
+                }
+            } else {
+                group.ships.add(ship);
+                group.byBehavior.get(behavior.ordinal()).add(ship);
+                if (loadout != null) {
+                    ArrayList<Ship> list = group.byLoadout.get(loadout);
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        group.byLoadout.put(loadout, list);
+                    }
+                    list.add(ship);
+                }
+            }
+        }
+
+        void remove(Ship ship, Group group) {
+            if (group == null) {
+                return;
+            }
+            if (ship instanceof Station) {
+                group.stations.remove(ship);
+                for (int a = 0; a < wares.size(); a++) {
+                    ArrayList<Station> list = group.sellers.get(wares.get(a));
+                    if (list != null) {
+                        list.remove(ship);
+                    }
+                }
+            } else {
+                group.ships.remove(ship);
+                group.byBehavior.get(behavior.ordinal()).remove(ship);
+                if (loadout != null) {
+                    ArrayList<Ship> list = group.byLoadout.get(loadout);
+                    if (list != null) {
+                        list.remove(ship);
+                    }
+                }
+            }
+        }
+    }
+}